@@ -0,0 +1,106 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.CompactAccountsRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+public class AccountsRepositoryBenchmark {
+
+  private static final int CREATES_PER_ITERATION = 100_000;
+
+  @State(Scope.Benchmark)
+  public static class Populated {
+
+    @Param({"100000", "1000000"})
+    public int accounts;
+
+    @Param({"map", "compact"})
+    public String store;
+
+    AccountsRepository repository;
+    String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      repository = newRepository(store);
+      ids = new String[accounts];
+      for (int i = 0; i < accounts; i++) {
+        ids[i] = BenchmarkFixtures.accountId(i);
+        repository.createAccount(new Account(ids[i], BigDecimal.TEN));
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Lookups {
+
+    SplittableRandom random = new SplittableRandom();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Threads(4)
+  public Account getAccount(Populated populated, Lookups lookups) {
+    return populated.repository.getAccount(populated.ids[lookups.random.nextInt(populated.ids.length)]);
+  }
+
+  @State(Scope.Thread)
+  public static class Creations {
+
+    @Param({"map", "compact"})
+    public String store;
+
+    AccountsRepository repository;
+    Account[] pending;
+    int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      repository = newRepository(store);
+      pending = new Account[CREATES_PER_ITERATION];
+      for (int i = 0; i < CREATES_PER_ITERATION; i++) {
+        pending[i] = new Account(BenchmarkFixtures.accountId(i), BigDecimal.TEN);
+      }
+      next = 0;
+    }
+  }
+
+  /**
+   * Inserts a fresh batch of accounts into an empty repository per iteration, so the map
+   * grows through resizes as it does in production.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5, batchSize = CREATES_PER_ITERATION)
+  @Measurement(iterations = 10, batchSize = CREATES_PER_ITERATION)
+  public void createAccount(Creations creations) {
+    creations.repository.createAccount(creations.pending[creations.next++]);
+  }
+
+  static AccountsRepository newRepository(String store) {
+    return switch (store) {
+      case "map" -> new AccountsRepositoryInMemory();
+      case "compact" -> new CompactAccountsRepository();
+      default -> throw new IllegalArgumentException("Unknown store " + store);
+    };
+  }
+}
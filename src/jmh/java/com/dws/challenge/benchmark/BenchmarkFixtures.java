@@ -0,0 +1,98 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.metrics.TransferMetrics;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.ShardedAccountsRepository;
+import com.dws.challenge.repository.history.DisabledTransferHistory;
+import com.dws.challenge.repository.journal.DisabledAccountJournal;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.CasTransferEngine;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferEngine;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+final class BenchmarkFixtures {
+
+  static final BigDecimal LARGE_BALANCE = new BigDecimal("1000000000000");
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * An accounts service wired like the application, minus journaling and with a notification
+   * service that does nothing, so only the transfer path is measured.
+   */
+  static AccountsService accountsService(String engine, Set<String> hotAccountIds) {
+    TransferMetrics transferMetrics = new TransferMetrics();
+    AccountsRepository repository = new AccountsRepositoryInMemory();
+    TransferEngine transferEngine = switch (engine) {
+      case "locking" -> new LockingTransferEngine(transferMetrics);
+      case "cas" -> new CasTransferEngine();
+      case "sharded" -> {
+        ShardedAccountsRepository shardedRepository = new ShardedAccountsRepository(0);
+        repository = shardedRepository;
+        yield new ShardedTransferEngine(shardedRepository);
+      }
+      default -> throw new IllegalArgumentException("Unknown engine " + engine);
+    };
+    return new AccountsService(repository, new DirectNotificationDispatcher((account, description) -> { }),
+      transferEngine, new DisabledAccountJournal(), transferMetrics, hotAccountIds,
+      new DisabledTransferHistory());
+  }
+
+  static String[] createAccounts(AccountsService service, int count, BigDecimal balance) {
+    String[] ids = new String[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = accountId(i);
+      service.createAccount(new Account(ids[i], balance));
+    }
+    return ids;
+  }
+
+  static String accountId(int index) {
+    return "Id-" + index;
+  }
+
+  /**
+   * Samples account indexes following a Zipf distribution with exponent 1: index 0 is the
+   * most popular, index k is picked about 1/(k+1) times as often.
+   */
+  static final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int size) {
+      cumulative = new double[size];
+      double sum = 0;
+      for (int i = 0; i < size; i++) {
+        sum += 1.0 / (i + 1);
+        cumulative[i] = sum;
+      }
+      for (int i = 0; i < size; i++) {
+        cumulative[i] /= sum;
+      }
+    }
+
+    int next(SplittableRandom random) {
+      double u = random.nextDouble();
+      int low = 0;
+      int high = cumulative.length - 1;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (cumulative[mid] < u) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.metrics.TransferMetrics;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.history.DisabledTransferHistory;
+import com.dws.challenge.repository.journal.DisabledAccountJournal;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.LockingTransferEngine;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test of request-per-thread execution: a burst of transfers, each followed by a blocking
+ * notification call standing in for e-mail I/O, submitted either to a fixed pool sized like
+ * Tomcat's default or to one virtual thread per transfer. The peak number of transfers in flight
+ * at once is reported next to the time to drain the burst.
+ *
+ * <p>The virtual mode needs a JDK 21+ runtime, e.g. {@code ./gradlew jmh -PjavaVersion=21}.
+ */
+@State(Scope.Benchmark)
+public class InFlightTransfersBenchmark {
+
+  private static final int ACCOUNTS = 10_000;
+  private static final int PLATFORM_POOL_SIZE = 200;
+
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  @Param({"20000"})
+  public int transfers;
+
+  @Param({"2"})
+  public int notificationMillis;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger peakInFlight = new AtomicInteger();
+
+  private AccountsService accountsService;
+  private String[] ids;
+  private ExecutorService executor;
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Concurrency {
+
+    public long peakInFlight;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    long notificationNanos = TimeUnit.MILLISECONDS.toNanos(notificationMillis);
+    TransferMetrics transferMetrics = new TransferMetrics();
+    accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> LockSupport.parkNanos(notificationNanos)),
+      new LockingTransferEngine(transferMetrics), new DisabledAccountJournal(), transferMetrics, Set.of(),
+      new DisabledTransferHistory());
+    ids = BenchmarkFixtures.createAccounts(accountsService, ACCOUNTS, BenchmarkFixtures.LARGE_BALANCE);
+    executor = switch (threads) {
+      case "platform" -> Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+      case "virtual" -> newVirtualThreadPerTaskExecutor();
+      default -> throw new IllegalArgumentException("Unknown threads " + threads);
+    };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3)
+  @Measurement(iterations = 10)
+  public void burst(Concurrency concurrency) throws InterruptedException {
+    peakInFlight.set(0);
+    CountDownLatch done = new CountDownLatch(transfers);
+    SplittableRandom random = new SplittableRandom();
+    for (int i = 0; i < transfers; i++) {
+      int from = random.nextInt(ids.length);
+      int to = (from + 1 + random.nextInt(ids.length - 1)) % ids.length;
+      executor.execute(() -> {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+          accountsService.transfer(ids[from], ids[to], BigDecimal.ONE);
+        } finally {
+          inFlight.decrementAndGet();
+          done.countDown();
+        }
+      });
+    }
+    done.await();
+    concurrency.peakInFlight = peakInFlight.get();
+  }
+
+  // Looked up reflectively so the benchmarks still compile for the project's Java 18 baseline.
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual threads need a JDK 21 or later runtime", e);
+    }
+  }
+}
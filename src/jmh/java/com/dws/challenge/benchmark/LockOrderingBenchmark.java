@@ -0,0 +1,113 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.service.TransferEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-account locking under contention: the handle-striped lock table of
+ * {@link LockingTransferEngine} against the earlier scheme of synchronizing on the accounts
+ * themselves in account id order. Long ids with a shared prefix make the id comparison walk
+ * most of the string, as with prefixed or UUID-style ids.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class LockOrderingBenchmark {
+
+  private static final int PAIRS_PER_THREAD = 1 << 16;
+
+  @Param({"handle-stripes", "id-monitors"})
+  public String scheme;
+
+  @Param({"16", "10000"})
+  public int accounts;
+
+  @Param({"short", "long"})
+  public String ids;
+
+  Transfers transfers;
+  Account[] population;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    transfers = scheme.equals("handle-stripes") ? new LockingTransferEngine()::transfer
+      : LockOrderingBenchmark::transferUnderIdOrderedMonitors;
+    AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+    String prefix = ids.equals("long") ? "customer-account-0000000000-0000000000-0000000000-" : "";
+    population = new Account[accounts];
+    for (int i = 0; i < accounts; i++) {
+      population[i] = new Account(prefix + BenchmarkFixtures.accountId(i));
+      population[i].setBalanceMinorUnits(Long.MAX_VALUE / 2);
+      repository.createAccount(population[i]);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Pairs {
+
+    Account[] from;
+    Account[] to;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp(LockOrderingBenchmark benchmark) {
+      SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+      from = new Account[PAIRS_PER_THREAD];
+      to = new Account[PAIRS_PER_THREAD];
+      for (int i = 0; i < PAIRS_PER_THREAD; i++) {
+        int source = random.nextInt(benchmark.accounts);
+        int destination = (source + 1 + random.nextInt(benchmark.accounts - 1)) % benchmark.accounts;
+        from[i] = benchmark.population[source];
+        to[i] = benchmark.population[destination];
+      }
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void transfer8Threads(Pairs pairs) {
+    int i = pairs.next++ & (PAIRS_PER_THREAD - 1);
+    transfers.transfer(pairs.from[i], pairs.to[i], 1);
+  }
+
+  /**
+   * What the benchmark measures: one transfer under the scheme's two-account locking.
+   */
+  @FunctionalInterface
+  interface Transfers {
+    void transfer(Account fromAccount, Account toAccount, long amountMinorUnits);
+  }
+
+  /**
+   * The locking scheme before the lock table: account monitors ordered by String.compareTo.
+   */
+  static void transferUnderIdOrderedMonitors(Account fromAccount, Account toAccount, long amountMinorUnits) {
+    boolean fromFirst = fromAccount.getAccountId().compareTo(toAccount.getAccountId()) < 0;
+    Account firstLock = fromFirst ? fromAccount : toAccount;
+    Account secondLock = fromFirst ? toAccount : fromAccount;
+    synchronized (firstLock) {
+      synchronized (secondLock) {
+        if (fromAccount.getBalanceMinorUnits() < amountMinorUnits) {
+          throw TransferEngine.insufficientBalance(fromAccount);
+        }
+        toAccount.creditMinorUnits(amountMinorUnits);
+        fromAccount.tryDebitMinorUnits(amountMinorUnits);
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Successful transfers through {@link AccountsService#transfer} under different account
+ * popularity distributions:
+ * <ul>
+ *   <li>uniform: source and destination picked uniformly</li>
+ *   <li>zipf: source and destination both Zipf-skewed towards a few accounts</li>
+ *   <li>hot: uniform sources all paying one collector account</li>
+ *   <li>hot-striped: as hot, with the collector using striped credit cells</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+  private static final BigDecimal AMOUNT = BigDecimal.ONE;
+  private static final int PAIRS_PER_THREAD = 1 << 16;
+
+  @Param({"locking", "cas", "sharded"})
+  public String engine;
+
+  @Param({"uniform", "zipf", "hot", "hot-striped"})
+  public String distribution;
+
+  @Param({"10000"})
+  public int accounts;
+
+  AccountsService service;
+  String[] ids;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Set<String> hotAccountIds = distribution.equals("hot-striped")
+      ? Set.of(BenchmarkFixtures.accountId(0)) : Set.of();
+    service = BenchmarkFixtures.accountsService(engine, hotAccountIds);
+    ids = BenchmarkFixtures.createAccounts(service, accounts, BenchmarkFixtures.LARGE_BALANCE);
+  }
+
+  @State(Scope.Thread)
+  public static class Pairs {
+
+    String[] from;
+    String[] to;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp(TransferBenchmark benchmark) {
+      SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+      BenchmarkFixtures.ZipfSampler zipf = new BenchmarkFixtures.ZipfSampler(benchmark.accounts);
+      from = new String[PAIRS_PER_THREAD];
+      to = new String[PAIRS_PER_THREAD];
+      for (int i = 0; i < PAIRS_PER_THREAD; i++) {
+        int source;
+        int destination;
+        do {
+          switch (benchmark.distribution) {
+            case "uniform" -> {
+              source = random.nextInt(benchmark.accounts);
+              destination = random.nextInt(benchmark.accounts);
+            }
+            case "zipf" -> {
+              source = zipf.next(random);
+              destination = zipf.next(random);
+            }
+            case "hot", "hot-striped" -> {
+              source = random.nextInt(benchmark.accounts);
+              destination = 0;
+            }
+            default -> throw new IllegalArgumentException("Unknown distribution " + benchmark.distribution);
+          }
+        } while (source == destination);
+        from[i] = benchmark.ids[source];
+        to[i] = benchmark.ids[destination];
+      }
+    }
+
+    void transfer(AccountsService service) {
+      int i = next++ & (PAIRS_PER_THREAD - 1);
+      service.transfer(from[i], to[i], AMOUNT);
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void transfer1Thread(Pairs pairs) {
+    pairs.transfer(service);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void transfer4Threads(Pairs pairs) {
+    pairs.transfer(service);
+  }
+
+  @Benchmark
+  @Threads(16)
+  public void transfer16Threads(Pairs pairs) {
+    pairs.transfer(service);
+  }
+}
@@ -0,0 +1,181 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.web.BinaryTransferProtocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers sent to the application running in its own process on the same machine: JSON over
+ * HTTP to {@code POST /v1/accounts/transfer}, one binary frame at a time, and binary frames
+ * pipelined {@value #PIPELINE} deep. Admission control, history and application logging are off,
+ * so the difference is the transport and the encoding.
+ *
+ * <p>Runs the Boot jar, built by the {@code jmh} task, or the one named by {@code -Dbenchmark.jar}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TransferProtocolBenchmark {
+
+  private static final int ACCOUNTS = 1_000;
+  private static final int PIPELINE = 64;
+
+  Process application;
+  HttpClient http;
+  String[] ids;
+  String baseUri;
+  int binaryPort;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, InterruptedException {
+    int httpPort = freePort();
+    binaryPort = freePort();
+    String jar = System.getProperty("benchmark.jar", "build/libs/challenge-0.0.1-SNAPSHOT.jar");
+    application = new ProcessBuilder(ProcessHandle.current().info().command().orElse("java"), "-jar", jar,
+      "--server.port=" + httpPort, "--transfers.binary.enabled=true", "--transfers.binary.port=" + binaryPort,
+      "--transfers.admission.client-rate-per-second=0", "--transfers.admission.account-rate-per-second=0",
+      "--transfers.admission.max-in-flight-per-account=0", "--accounts.history.enabled=false",
+      "--logging.level.com.dws.challenge=WARN")
+      .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+    http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    baseUri = "http://localhost:" + httpPort + "/v1/accounts";
+    awaitStarted();
+
+    ids = new String[ACCOUNTS];
+    for (int i = 0; i < ACCOUNTS; i++) {
+      ids[i] = BenchmarkFixtures.accountId(i);
+      post("", "{\"accountId\":\"" + ids[i] + "\",\"balance\":" + BenchmarkFixtures.LARGE_BALANCE + "}");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    application.destroy();
+    application.waitFor();
+  }
+
+  @State(Scope.Thread)
+  public static class Client {
+
+    final SplittableRandom random = new SplittableRandom();
+    final ByteBuffer requests = ByteBuffer.allocate(PIPELINE * 64);
+    final ByteBuffer responses = ByteBuffer.allocate(PIPELINE * 32);
+    SocketChannel binary;
+    long correlationId;
+
+    @Setup(Level.Trial)
+    public void connect(TransferProtocolBenchmark benchmark) throws IOException {
+      binary = SocketChannel.open(new InetSocketAddress("localhost", benchmark.binaryPort));
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() throws IOException {
+      binary.close();
+    }
+
+    void readResponses(int count) throws IOException {
+      responses.clear().limit(0);
+      for (int i = 0; i < count; i++) {
+        ensureAvailable(BinaryTransferProtocol.LENGTH_BYTES);
+        int length = responses.getInt();
+        ensureAvailable(length);
+        responses.position(responses.position() + length);
+      }
+    }
+
+    private void ensureAvailable(int bytes) throws IOException {
+      while (responses.remaining() < bytes) {
+        responses.compact();
+        if (binary.read(responses) < 0) {
+          throw new EOFException();
+        }
+        responses.flip();
+      }
+    }
+
+    void send() throws IOException {
+      requests.flip();
+      while (requests.hasRemaining()) {
+        binary.write(requests);
+      }
+      requests.clear();
+    }
+  }
+
+  @Benchmark
+  public int rest(Client client) throws IOException, InterruptedException {
+    return post("/transfer", "{\"accountFromId\":\"" + pick(client) + "\",\"accountToId\":\"" + pick(client)
+      + "\",\"amount\":0.01}");
+  }
+
+  @Benchmark
+  public byte binary(Client client) throws IOException {
+    BinaryTransferProtocol.writeTransfer(client.requests, ++client.correlationId, pick(client), pick(client), 1);
+    client.send();
+    client.readResponses(1);
+    return client.responses.get(BinaryTransferProtocol.LENGTH_BYTES + Long.BYTES);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PIPELINE)
+  public void binaryPipelined(Client client) throws IOException {
+    for (int i = 0; i < PIPELINE; i++) {
+      BinaryTransferProtocol.writeTransfer(client.requests, ++client.correlationId, pick(client), pick(client), 1);
+    }
+    client.send();
+    client.readResponses(PIPELINE);
+  }
+
+  private String pick(Client client) {
+    return ids[client.random.nextInt(ACCOUNTS)];
+  }
+
+  private int post(String path, String json) throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + path))
+      .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+
+  private void awaitStarted() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+    while (true) {
+      try {
+        http.send(HttpRequest.newBuilder(URI.create(baseUri + "/Id-none")).build(),
+          HttpResponse.BodyHandlers.discarding());
+        return;
+      } catch (IOException e) {
+        if (!application.isAlive() || System.nanoTime() > deadline) {
+          throw new IllegalStateException("The application did not start", e);
+        }
+        Thread.sleep(100);
+      }
+    }
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.dws.challenge.benchmark;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.InvalidTransferRequestException;
+import com.dws.challenge.service.AccountsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of transfers that are rejected, compared with one that succeeds: rejections thrown as
+ * exceptions by {@code transfer}, and returned as results by {@code tryTransfer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class TransferRejectionBenchmark {
+
+  private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+  @Param({"locking", "cas"})
+  public String engine;
+
+  AccountsService service;
+  String rich;
+  String empty;
+  String other;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    service = BenchmarkFixtures.accountsService(engine, Set.of());
+    String[] ids = BenchmarkFixtures.createAccounts(service, 2, BenchmarkFixtures.LARGE_BALANCE);
+    rich = ids[0];
+    other = ids[1];
+    empty = "Id-empty";
+    service.createAccount(new Account(empty));
+  }
+
+  @Benchmark
+  public void accepted() {
+    service.transfer(rich, other, AMOUNT);
+  }
+
+  @Benchmark
+  public Object insufficientBalance() {
+    try {
+      service.transfer(empty, other, AMOUNT);
+      return null;
+    } catch (InsufficientBalanceException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object missingAccount() {
+    try {
+      service.transfer(rich, "Id-missing", AMOUNT);
+      return null;
+    } catch (InvalidTransferRequestException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public TransferResult insufficientBalanceResult() {
+    return service.tryTransfer(empty, other, AMOUNT);
+  }
+
+  @Benchmark
+  public TransferResult missingAccountResult() {
+    return service.tryTransfer(rich, "Id-missing", AMOUNT);
+  }
+}
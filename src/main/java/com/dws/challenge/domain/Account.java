@@ -1,34 +1,160 @@
 package com.dws.challenge.domain;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 public class Account {
 
+  private static final VarHandle BALANCE_MINOR_UNITS;
+  private static final VarHandle STRIPED_CREDITS;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      BALANCE_MINOR_UNITS = lookup.findVarHandle(Account.class, "balanceMinorUnits", long.class);
+      STRIPED_CREDITS = lookup.findVarHandle(Account.class, "stripedCredits", LongAdder.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   @NotNull
   @NotEmpty
   private final String accountId;
 
-  @NotNull
-  @Min(value = 0, message = "Initial balance must be positive.")
-  private BigDecimal balance;
+  @JsonIgnore
+  private volatile long balanceMinorUnits;
+
+  /**
+   * Credits of a hot account land here, striped across cells, instead of in
+   * {@link #balanceMinorUnits}. Credits only ever add to it, so its sum is a safe lower bound.
+   */
+  @JsonIgnore
+  @Getter(AccessLevel.NONE)
+  @Setter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private volatile LongAdder stripedCredits;
+
+  public static final int NO_HANDLE = -1;
+
+  /**
+   * Dense number given by the repository when the account is created, or {@link #NO_HANDLE}
+   * until then; account locks are ordered and striped by it.
+   */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private volatile int handle = NO_HANDLE;
 
   public Account(String accountId) {
     this.accountId = accountId;
-    this.balance = BigDecimal.ZERO;
   }
 
   @JsonCreator
   public Account(@JsonProperty("accountId") String accountId,
     @JsonProperty("balance") BigDecimal balance) {
+    if (balance == null) {
+      throw new IllegalArgumentException("Initial balance must be provided.");
+    }
     this.accountId = accountId;
-    this.balance = balance;
+    this.balanceMinorUnits = Money.toMinorUnits(balance);
+  }
+
+  @Min(value = 0, message = "Initial balance must be positive.")
+  public BigDecimal getBalance() {
+    return Money.toDecimal(getBalanceMinorUnits());
+  }
+
+  public void setBalance(BigDecimal balance) {
+    setBalanceMinorUnits(Money.toMinorUnits(balance));
+  }
+
+  public long getBalanceMinorUnits() {
+    LongAdder credits = stripedCredits;
+    return credits == null ? balanceMinorUnits : balanceMinorUnits + credits.sum();
+  }
+
+  /**
+   * Overwrites the balance. Not safe against concurrent credits; use for set-up and restore only.
+   */
+  public void setBalanceMinorUnits(long balanceMinorUnits) {
+    LongAdder credits = stripedCredits;
+    if (credits != null) {
+      credits.reset();
+    }
+    this.balanceMinorUnits = balanceMinorUnits;
+  }
+
+  /**
+   * Switches credits to per-core striped cells so concurrent credits to this account do not
+   * contend with each other or need the account lock.
+   */
+  public void enableStripedCredits() {
+    if (stripedCredits == null) {
+      STRIPED_CREDITS.compareAndSet(this, null, new LongAdder());
+    }
+  }
+
+  @JsonIgnore
+  public boolean hasStripedCredits() {
+    return stripedCredits != null;
+  }
+
+  /**
+   * Atomically debits the amount if the balance covers it.
+   *
+   * @return false, leaving the balance untouched, if the balance is lower than the amount
+   */
+  public boolean tryDebitMinorUnits(long amountMinorUnits) {
+    for (;;) {
+      long base = balanceMinorUnits;
+      LongAdder credits = stripedCredits;
+      long balance = credits == null ? base : base + credits.sum();
+      if (balance < amountMinorUnits) {
+        return false;
+      }
+      if (BALANCE_MINOR_UNITS.compareAndSet(this, base, base - amountMinorUnits)) {
+        return true;
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Atomically credits the amount, to a striped cell for hot accounts.
+   *
+   * @throws ArithmeticException, leaving the balance untouched, if the balance would overflow
+   */
+  public void creditMinorUnits(long amountMinorUnits) {
+    LongAdder credits = stripedCredits;
+    if (credits != null) {
+      Math.addExact(getBalanceMinorUnits(), amountMinorUnits);
+      credits.add(amountMinorUnits);
+      return;
+    }
+    for (;;) {
+      long base = balanceMinorUnits;
+      if (BALANCE_MINOR_UNITS.compareAndSet(this, base, Math.addExact(base, amountMinorUnits))) {
+        return;
+      }
+      Thread.onSpinWait();
+    }
   }
 }
@@ -0,0 +1,19 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Held funds are taken out of the balance when the hold is placed, so the balance is what is
+ * available and the total is available plus reserved.
+ */
+@Value
+public class AccountFunds {
+
+    String accountId;
+
+    BigDecimal available;
+
+    BigDecimal reserved;
+}
@@ -0,0 +1,13 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+@Value
+public class AccountImportError {
+
+    long line;
+
+    AccountImportFailure failure;
+
+    String message;
+}
@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class AccountImportResult {
+
+    long imported;
+
+    long duplicates;
+
+    long invalid;
+
+    /**
+     * The first rejected lines, up to a fixed limit; the counts above cover all of them.
+     */
+    List<AccountImportError> errors;
+}
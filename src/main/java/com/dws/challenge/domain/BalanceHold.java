@@ -0,0 +1,18 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Value
+public class BalanceHold {
+
+    long id;
+
+    String accountId;
+
+    BigDecimal amount;
+
+    Instant expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Balances of several accounts as they all were at one instant, in request order.
+ */
+@Value
+public class BalanceSnapshot {
+
+    Map<String, BigDecimal> balances;
+
+    List<String> unknownAccountIds;
+}
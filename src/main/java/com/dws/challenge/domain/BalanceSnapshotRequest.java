@@ -0,0 +1,18 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BalanceSnapshotRequest {
+
+    public static final int MAX_ACCOUNTS = 10_000;
+
+    @NotEmpty
+    @Size(max = MAX_ACCOUNTS, message = "A snapshot may cover at most " + MAX_ACCOUNTS + " accounts.")
+    private List<@NotNull String> accountIds;
+}
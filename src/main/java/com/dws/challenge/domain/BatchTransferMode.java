@@ -0,0 +1,14 @@
+package com.dws.challenge.domain;
+
+public enum BatchTransferMode {
+
+    /**
+     * Every leg is applied or none is; the first rejected leg aborts the batch.
+     */
+    ALL_OR_NOTHING,
+
+    /**
+     * Valid legs are applied, rejected legs are reported and skipped.
+     */
+    BEST_EFFORT
+}
@@ -0,0 +1,22 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequest {
+
+    public static final int MAX_LEGS = 1000;
+
+    @NotNull
+    private BatchTransferMode mode = BatchTransferMode.ALL_OR_NOTHING;
+
+    @NotEmpty
+    @Size(max = MAX_LEGS, message = "A batch may contain at most " + MAX_LEGS + " transfers.")
+    private List<@Valid @NotNull TransferRequest> transfers;
+}
@@ -0,0 +1,17 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class BatchTransferResult {
+
+    BatchTransferMode mode;
+
+    int completed;
+
+    int failed;
+
+    List<TransferLegResult> results;
+}
@@ -0,0 +1,18 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class CaptureRequest {
+
+    @NotNull
+    private String accountToId;
+
+    // Optional; defaults to the whole hold. Whatever is not captured goes back to the account.
+    @Positive(message = "Captured amount must be greater than zero.")
+    private BigDecimal amount;
+}
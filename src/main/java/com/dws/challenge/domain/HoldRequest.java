@@ -0,0 +1,22 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class HoldRequest {
+
+    @NotNull
+    private String accountId;
+
+    @NotNull
+    @Positive(message = "Hold amount must be greater than zero.")
+    private BigDecimal amount;
+
+    // Optional; defaults to holds.default-expiry-seconds.
+    @Positive
+    private Long expiresInSeconds;
+}
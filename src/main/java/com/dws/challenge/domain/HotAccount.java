@@ -0,0 +1,11 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+@Value
+public class HotAccount {
+
+    String accountId;
+
+    long lockWaitNanos;
+}
@@ -0,0 +1,26 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Percentiles are the upper bound of the power-of-two bucket the percentile falls in.
+ */
+@Value
+public class LatencySummary {
+
+    long count;
+
+    long meanNanos;
+
+    long p50Nanos;
+
+    long p90Nanos;
+
+    long p99Nanos;
+
+    long p999Nanos;
+
+    Map<Long, Long> countsByUpperBoundNanos;
+}
@@ -0,0 +1,37 @@
+package com.dws.challenge.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between decimal amounts and the fixed-point minor units balances are stored in.
+ */
+public final class Money {
+
+  public static final int SCALE = 2;
+
+  private Money() {
+  }
+
+  /**
+   * @throws ArithmeticException if the amount has more than {@link #SCALE} fractional digits
+   *     or does not fit in a {@code long}
+   */
+  public static long toMinorUnits(BigDecimal amount) {
+    return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+  }
+
+  /**
+   * Whether {@link #toMinorUnits} accepts the amount, decided without throwing.
+   */
+  public static boolean isRepresentable(BigDecimal amount) {
+    if (amount.scale() > SCALE && amount.stripTrailingZeros().scale() > SCALE) {
+      return false;
+    }
+    return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().bitLength() < Long.SIZE;
+  }
+
+  public static BigDecimal toDecimal(long minorUnits) {
+    return BigDecimal.valueOf(minorUnits, SCALE);
+  }
+}
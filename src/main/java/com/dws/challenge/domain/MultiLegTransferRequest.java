@@ -0,0 +1,26 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Debits and credits applied as one unit; both sides must add up to the same total.
+ */
+@Data
+public class MultiLegTransferRequest {
+
+    public static final int MAX_LEGS = 100;
+
+    @NotEmpty
+    @Size(max = MAX_LEGS, message = "A transfer may have at most " + MAX_LEGS + " debits.")
+    private List<@Valid @NotNull TransferLeg> debits;
+
+    @NotEmpty
+    @Size(max = MAX_LEGS, message = "A transfer may have at most " + MAX_LEGS + " credits.")
+    private List<@Valid @NotNull TransferLeg> credits;
+}
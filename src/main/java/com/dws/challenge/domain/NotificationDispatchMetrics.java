@@ -0,0 +1,19 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+@Value
+public class NotificationDispatchMetrics {
+
+    int queueDepth;
+
+    int queueCapacity;
+
+    long enqueued;
+
+    long dropped;
+
+    long delivered;
+
+    long batches;
+}
@@ -0,0 +1,24 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+/**
+ * On the leader, connections are followers being shipped to and bytes are what was shipped; on a
+ * follower, a connection is the one to the leader and bytes are what was applied. Lag, on a
+ * follower only, is how long ago the last applied records became durable on the leader: their age
+ * by the leader's clock when shipped plus the time since, by the follower's, so the two clocks
+ * need not agree; -1 until the follower has caught up once.
+ */
+@Value
+public class ReplicationMetrics {
+
+    String role;
+
+    int connections;
+
+    long bootstraps;
+
+    long bytes;
+
+    long lagMillis;
+}
@@ -0,0 +1,21 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+@Value
+public class SnapshotMetrics {
+
+    long snapshotsTaken;
+
+    long lastCoveredSegment;
+
+    int lastAccounts;
+
+    long lastBytes;
+
+    long lastDurationMillis;
+
+    long startupSnapshotLoadMillis;
+
+    long startupReplayMillis;
+}
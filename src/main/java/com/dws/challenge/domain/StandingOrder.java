@@ -0,0 +1,22 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Value
+public class StandingOrder {
+
+    long id;
+
+    String accountFromId;
+
+    String accountToId;
+
+    BigDecimal amount;
+
+    Instant nextDueAt;
+
+    Long intervalSeconds;
+}
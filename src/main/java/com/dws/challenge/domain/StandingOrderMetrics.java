@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+/**
+ * Lag is how long after its due time each occurrence was executed.
+ */
+@Value
+public class StandingOrderMetrics {
+
+    long pending;
+
+    long executed;
+
+    long completed;
+
+    long rejected;
+
+    LatencySummary lag;
+}
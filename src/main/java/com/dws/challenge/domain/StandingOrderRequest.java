@@ -0,0 +1,29 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+public class StandingOrderRequest {
+
+    @NotNull
+    private String accountFromId;
+
+    @NotNull
+    private String accountToId;
+
+    @NotNull
+    @Positive(message = "Transfer amount must be greater than zero.")
+    private BigDecimal amount;
+
+    // Optional; defaults to now.
+    private Instant firstDueAt;
+
+    // Optional; without it the transfer runs once.
+    @Positive
+    private Long intervalSeconds;
+}
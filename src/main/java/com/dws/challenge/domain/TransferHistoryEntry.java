@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Value
+public class TransferHistoryEntry {
+
+    long id;
+
+    Instant timestamp;
+
+    String accountFromId;
+
+    String accountToId;
+
+    BigDecimal amount;
+}
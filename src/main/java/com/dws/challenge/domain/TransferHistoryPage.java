@@ -0,0 +1,17 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Transfers of one account, newest first. Pass {@code nextCursor} back as the cursor to get the
+ * next page; it is null on the last page.
+ */
+@Value
+public class TransferHistoryPage {
+
+    List<TransferHistoryEntry> transfers;
+
+    Long nextCursor;
+}
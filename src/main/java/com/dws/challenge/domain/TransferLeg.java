@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferLeg {
+
+    @NotNull
+    private String accountId;
+
+    @NotNull
+    private BigDecimal amount;
+}
@@ -0,0 +1,13 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+@Value
+public class TransferLegResult {
+
+    int index;
+
+    TransferStatus status;
+
+    String message;
+}
@@ -0,0 +1,20 @@
+package com.dws.challenge.domain;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+@Value
+public class TransferMetricsSnapshot {
+
+    Map<TransferOutcome, Long> outcomes;
+
+    LatencySummary transferLatency;
+
+    LatencySummary lockWait;
+
+    LatencySummary lockHold;
+
+    List<HotAccount> hottestAccounts;
+}
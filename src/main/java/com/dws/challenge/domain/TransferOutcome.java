@@ -0,0 +1,8 @@
+package com.dws.challenge.domain;
+
+public enum TransferOutcome {
+    COMPLETED,
+    INSUFFICIENT_BALANCE,
+    INVALID,
+    ACCOUNT_NOT_FOUND
+}
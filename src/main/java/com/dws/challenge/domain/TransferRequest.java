@@ -2,6 +2,7 @@ package com.dws.challenge.domain;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 import java.math.BigDecimal;
 
@@ -17,5 +18,9 @@ public class TransferRequest {
     @NotNull
     @Min(value = 0, message = "Transfer amount must be positive.")
     private BigDecimal amount;
+
+    // Optional; retries carrying the same key return the first attempt's outcome.
+    @Size(min = 1, max = 128)
+    private String idempotencyKey;
 }
 
@@ -0,0 +1,48 @@
+package com.dws.challenge.domain;
+
+/**
+ * How a transfer ended, returned instead of thrown so that rejections, which are routine, cost
+ * no exception or stack trace. Messages are built only when someone asks for one.
+ *
+ * <p>The binary transfer protocol sends ordinals, so constants are only ever appended.
+ */
+public enum TransferResult {
+    COMPLETED(TransferOutcome.COMPLETED),
+    SAME_ACCOUNT(TransferOutcome.INVALID),
+    NON_POSITIVE_AMOUNT(TransferOutcome.INVALID),
+    UNREPRESENTABLE_AMOUNT(TransferOutcome.INVALID),
+    ACCOUNT_NOT_FOUND(TransferOutcome.ACCOUNT_NOT_FOUND),
+    INSUFFICIENT_BALANCE(TransferOutcome.INSUFFICIENT_BALANCE),
+    BALANCE_OVERFLOW(TransferOutcome.INVALID),
+    HOLD_NOT_FOUND(TransferOutcome.INVALID),
+    CAPTURE_EXCEEDS_HOLD(TransferOutcome.INVALID);
+
+    private final TransferOutcome outcome;
+
+    TransferResult(TransferOutcome outcome) {
+        this.outcome = outcome;
+    }
+
+    public boolean isCompleted() {
+        return this == COMPLETED;
+    }
+
+    public TransferOutcome getOutcome() {
+        return outcome;
+    }
+
+    public String describe(String fromId, String toId) {
+        return switch (this) {
+            case COMPLETED -> "Transfer completed.";
+            case SAME_ACCOUNT -> "Cannot transfer to the same account.";
+            case NON_POSITIVE_AMOUNT -> "Transfer amount must be greater than zero.";
+            case UNREPRESENTABLE_AMOUNT ->
+                    "Transfer amount must have at most " + Money.SCALE + " decimal places and fit the balance range.";
+            case ACCOUNT_NOT_FOUND -> "Source or destination account does not exist.";
+            case INSUFFICIENT_BALANCE -> "Account " + fromId + " has insufficient balance.";
+            case BALANCE_OVERFLOW -> "Transfer would overflow the balance of account " + toId + ".";
+            case HOLD_NOT_FOUND -> "Hold does not exist or is no longer active.";
+            case CAPTURE_EXCEEDS_HOLD -> "Captured amount exceeds the held amount.";
+        };
+    }
+}
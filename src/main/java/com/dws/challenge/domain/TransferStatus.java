@@ -0,0 +1,7 @@
+package com.dws.challenge.domain;
+
+public enum TransferStatus {
+    COMPLETED,
+    REJECTED,
+    ABORTED
+}
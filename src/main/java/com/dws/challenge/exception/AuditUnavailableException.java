@@ -0,0 +1,12 @@
+package com.dws.challenge.exception;
+
+/**
+ * The audit log could not be written. A transfer that was waiting for its audit record may
+ * already show in the accounts, but it is not acknowledged; the audit log refuses every later
+ * transfer before it is attempted, until a restart.
+ */
+public class AuditUnavailableException extends RuntimeException {
+    public AuditUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
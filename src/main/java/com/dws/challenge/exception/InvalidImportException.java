@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+/**
+ * The import body cannot be read any further. The accounts on the lines before the offending one
+ * have been imported and made durable.
+ */
+public class InvalidImportException extends RuntimeException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.dws.challenge.exception;
+
+/**
+ * The journal could not be written, so no change can be made durable any more. The change that
+ * was waiting may already show in memory, but it is not committed: once the journal has failed it
+ * refuses every later append, so nothing builds on that change, and a restart recovers the state
+ * as of the last durable record.
+ */
+public class JournalUnavailableException extends RuntimeException {
+    public JournalUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+/**
+ * The accounts of a balance snapshot kept changing while they were read, so no consistent
+ * reading was taken. Nothing was locked meanwhile; the caller may retry.
+ */
+public class SnapshotUnavailableException extends RuntimeException {
+    public SnapshotUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.dws.challenge.exception;
+
+/**
+ * The request is valid but needs something the configured transfer engine does not offer,
+ * such as locking several accounts at once. Retrying will not help until the engine is changed.
+ */
+public class UnsupportedByTransferEngineException extends RuntimeException {
+    public UnsupportedByTransferEngineException(String message) {
+        super(message);
+    }
+}
@@ -1,16 +1,24 @@
 package com.dws.challenge.exception.handler;
 
 import com.dws.challenge.exception.AccountNotFoundException;
+import com.dws.challenge.exception.AuditUnavailableException;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.InvalidImportException;
 import com.dws.challenge.exception.InvalidTransferRequestException;
+import com.dws.challenge.exception.JournalUnavailableException;
+import com.dws.challenge.exception.SnapshotUnavailableException;
+import com.dws.challenge.exception.UnsupportedByTransferEngineException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -41,6 +49,52 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<String> handleInvalidImport(InvalidImportException ex) {
+        return new ResponseEntity<>(ex.getMessage(), BAD_REQUEST);
+    }
+
+    @ExceptionHandler(JournalUnavailableException.class)
+    public ResponseEntity<String> handleJournalUnavailable(JournalUnavailableException ex) {
+        return new ResponseEntity<>("The change could not be made durable and was not committed.",
+                SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(AuditUnavailableException.class)
+    public ResponseEntity<String> handleAuditUnavailable(AuditUnavailableException ex) {
+        return new ResponseEntity<>("The transfer could not be audited and is not acknowledged; transfers are refused until restart.",
+                SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(SnapshotUnavailableException.class)
+    public ResponseEntity<String> handleSnapshotUnavailable(SnapshotUnavailableException ex) {
+        return new ResponseEntity<>(ex.getMessage(), SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(UnsupportedByTransferEngineException.class)
+    public ResponseEntity<String> handleUnsupportedByTransferEngine(UnsupportedByTransferEngineException ex) {
+        return new ResponseEntity<>(ex.getMessage(), NOT_IMPLEMENTED);
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<String> handleUnreadableMessage(HttpMessageNotReadableException ex) {
+        return new ResponseEntity<>("Malformed request body.", BAD_REQUEST);
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<String> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return new ResponseEntity<>("Invalid value for parameter " + ex.getName() + ".", BAD_REQUEST);
+    }
+
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<Map<String, String>> handleParameterValidation(HandlerMethodValidationException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getParameterValidationResults().forEach(result -> errors.put(
+                result.getMethodParameter().getParameterName(),
+                result.getResolvableErrors().get(0).getDefaultMessage()));
+        return new ResponseEntity<>(errors, BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneric(Exception ex) {
         log.error("Unhandled exception", ex);
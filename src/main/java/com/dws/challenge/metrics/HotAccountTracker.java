@@ -0,0 +1,61 @@
+package com.dws.challenge.metrics;
+
+import com.dws.challenge.domain.HotAccount;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Approximate heavy-hitter tracking of lock wait per account in a fixed table. Each slot holds
+ * one account; a different account hashing to an occupied slot wears its weight down and
+ * takes the slot over once the weight is used up, so accounts with little weight are evicted
+ * by hot ones. Recording stores a reference to the caller's id and never allocates.
+ */
+public class HotAccountTracker {
+
+    private final AtomicReferenceArray<String> accountIds;
+    private final AtomicLongArray weights;
+    private final int mask;
+
+    public HotAccountTracker(int slots) {
+        int size = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.accountIds = new AtomicReferenceArray<>(size);
+        this.weights = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    public void record(String accountId, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        int hash = accountId.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String current = accountIds.get(slot);
+        if (current == null && accountIds.compareAndSet(slot, null, accountId)) {
+            weights.addAndGet(slot, weight);
+        } else if (accountId.equals(current)) {
+            weights.addAndGet(slot, weight);
+        } else {
+            long remaining = weights.addAndGet(slot, -weight);
+            if (remaining <= 0 && accountIds.compareAndSet(slot, current, accountId)) {
+                weights.addAndGet(slot, -remaining);
+            }
+        }
+    }
+
+    public List<HotAccount> top(int limit) {
+        List<HotAccount> hottest = new ArrayList<>();
+        for (int slot = 0; slot <= mask; slot++) {
+            String accountId = accountIds.get(slot);
+            long weight = weights.get(slot);
+            if (accountId != null && weight > 0) {
+                hottest.add(new HotAccount(accountId, weight));
+            }
+        }
+        hottest.sort(Comparator.comparingLong(HotAccount::getLockWaitNanos).reversed());
+        return hottest.size() > limit ? List.copyOf(hottest.subList(0, limit)) : hottest;
+    }
+}
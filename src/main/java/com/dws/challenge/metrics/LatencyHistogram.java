@@ -0,0 +1,65 @@
+package com.dws.challenge.metrics;
+
+import com.dws.challenge.domain.LatencySummary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed power-of-two bucket histogram of nanosecond durations. Recording only increments
+ * striped counters, so it never allocates once the counters have been set up.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 48;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int bucket = nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+        counts[bucket].increment();
+        totalNanos.add(Math.max(0, nanos));
+    }
+
+    public LatencySummary summary() {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            count += snapshot[i];
+        }
+        Map<Long, Long> nonEmpty = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (snapshot[i] > 0) {
+                nonEmpty.put(upperBound(i), snapshot[i]);
+            }
+        }
+        return new LatencySummary(count, count == 0 ? 0 : totalNanos.sum() / count,
+                percentile(snapshot, count, 0.50), percentile(snapshot, count, 0.90),
+                percentile(snapshot, count, 0.99), percentile(snapshot, count, 0.999), nonEmpty);
+    }
+
+    private static long percentile(long[] snapshot, long count, double quantile) {
+        long rank = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && seen > 0) {
+                return upperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : 1L << bucket;
+    }
+}
@@ -0,0 +1,75 @@
+package com.dws.challenge.metrics;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferMetricsSnapshot;
+import com.dws.challenge.domain.TransferOutcome;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on transfer instrumentation: outcome counters, end-to-end, lock-wait and lock-hold
+ * histograms, and the accounts threads wait on the longest. Recording is allocation-free.
+ */
+@Component
+public class TransferMetrics {
+
+    private static final TransferOutcome[] OUTCOMES = TransferOutcome.values();
+
+    private final LongAdder[] outcomes = new LongAdder[OUTCOMES.length];
+    private final LatencyHistogram transferLatency = new LatencyHistogram();
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+    private final LatencyHistogram lockHold = new LatencyHistogram();
+    private final HotAccountTracker hotAccounts;
+    private final int hottestAccountsReported;
+
+    public TransferMetrics() {
+        this(1024, 10);
+    }
+
+    @Autowired
+    public TransferMetrics(@Value("${accounts.metrics.hot-account-slots:1024}") int hotAccountSlots,
+                           @Value("${accounts.metrics.hottest-accounts-reported:10}") int hottestAccountsReported) {
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+        this.hotAccounts = new HotAccountTracker(hotAccountSlots);
+        this.hottestAccountsReported = hottestAccountsReported;
+    }
+
+    public void recordTransfer(TransferOutcome outcome, long nanos) {
+        outcomes[outcome.ordinal()].increment();
+        transferLatency.record(nanos);
+    }
+
+    /**
+     * Records one two-account lock acquisition: how long each lock took to get and how long
+     * both were held.
+     */
+    public void recordLocks(Account firstLock, long firstWaitNanos, Account secondLock, long secondWaitNanos,
+                            long holdNanos) {
+        lockWait.record(firstWaitNanos + secondWaitNanos);
+        lockHold.record(holdNanos);
+        hotAccounts.record(firstLock.getAccountId(), firstWaitNanos);
+        hotAccounts.record(secondLock.getAccountId(), secondWaitNanos);
+    }
+
+    public void recordLock(Account lock, long waitNanos, long holdNanos) {
+        lockWait.record(waitNanos);
+        lockHold.record(holdNanos);
+        hotAccounts.record(lock.getAccountId(), waitNanos);
+    }
+
+    public TransferMetricsSnapshot snapshot() {
+        Map<TransferOutcome, Long> counts = new EnumMap<>(TransferOutcome.class);
+        for (TransferOutcome outcome : OUTCOMES) {
+            counts.put(outcome, outcomes[outcome.ordinal()].sum());
+        }
+        return new TransferMetricsSnapshot(counts, transferLatency.summary(), lockWait.summary(), lockHold.summary(),
+                hotAccounts.top(hottestAccountsReported));
+    }
+}
@@ -3,11 +3,27 @@ package com.dws.challenge.repository;
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
 
+import java.util.function.Consumer;
+
 public interface AccountsRepository {
 
-  void createAccount(Account account) throws DuplicateAccountIdException;
+  default void createAccount(Account account) throws DuplicateAccountIdException {
+    createAccount(account, () -> { });
+  }
+
+  /**
+   * Runs {@code beforeVisible} once the id is known to be free, before any other thread can see
+   * the account, so its creation can be journaled ahead of anything that refers to it. Nothing is
+   * created if it throws.
+   */
+  void createAccount(Account account, Runnable beforeVisible) throws DuplicateAccountIdException;
 
   Account getAccount(String accountId);
 
   void clearAccounts();
+
+  /**
+   * Visits every account without copying the set; accounts created meanwhile may or may not be seen.
+   */
+  void forEachAccount(Consumer<Account> action);
 }
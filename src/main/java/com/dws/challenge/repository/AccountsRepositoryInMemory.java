@@ -2,20 +2,31 @@ package com.dws.challenge.repository;
 
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Repository;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Repository
+@ConditionalOnExpression("'${accounts.transfer.engine:locking}' != 'sharded' and '${accounts.repository:map}' != 'compact'")
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
     private final Map<String, Account> accounts = new ConcurrentHashMap<>();
 
+    private final AtomicInteger nextHandle = new AtomicInteger();
+
     @Override
-    public void createAccount(Account account) throws DuplicateAccountIdException {
-        Account previousAccount = accounts.putIfAbsent(account.getAccountId(), account);
-        if (previousAccount != null) {
+    public void createAccount(Account account, Runnable beforeVisible) throws DuplicateAccountIdException {
+        // Assigned only once the id is known to be free, before the account becomes visible.
+        Account existing = accounts.computeIfAbsent(account.getAccountId(), id -> {
+            beforeVisible.run();
+            account.setHandle(nextHandle.getAndIncrement());
+            return account;
+        });
+        if (existing != account) {
             throw new DuplicateAccountIdException(
                     "Account id " + account.getAccountId() + " already exists!");
         }
@@ -31,4 +42,9 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
         accounts.clear();
     }
 
+    @Override
+    public void forEachAccount(Consumer<Account> action) {
+        accounts.values().forEach(action);
+    }
+
 }
@@ -0,0 +1,69 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+
+/**
+ * View of one account in a {@link CompactAccountsRepository}: every balance operation reads or
+ * atomically updates the account's cell in the store's balance chunk.
+ */
+final class CompactAccount extends Account {
+
+    private final long[] balanceChunk;
+    private final int index;
+
+    CompactAccount(String accountId, int number, long[] balanceChunk, int index) {
+        super(accountId);
+        setHandle(number);
+        this.balanceChunk = balanceChunk;
+        this.index = index;
+    }
+
+    @Override
+    public long getBalanceMinorUnits() {
+        return (long) CompactAccountsRepository.BALANCES.getVolatile(balanceChunk, index);
+    }
+
+    @Override
+    public void setBalanceMinorUnits(long balanceMinorUnits) {
+        CompactAccountsRepository.BALANCES.setVolatile(balanceChunk, index, balanceMinorUnits);
+    }
+
+    /**
+     * Credits already take no lock here, so there is nothing to stripe.
+     */
+    @Override
+    public void enableStripedCredits() {
+    }
+
+    @Override
+    public boolean hasStripedCredits() {
+        return false;
+    }
+
+    @Override
+    public boolean tryDebitMinorUnits(long amountMinorUnits) {
+        for (;;) {
+            long balance = getBalanceMinorUnits();
+            if (balance < amountMinorUnits) {
+                return false;
+            }
+            if (CompactAccountsRepository.BALANCES.compareAndSet(balanceChunk, index, balance,
+                    balance - amountMinorUnits)) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void creditMinorUnits(long amountMinorUnits) {
+        for (;;) {
+            long balance = getBalanceMinorUnits();
+            if (CompactAccountsRepository.BALANCES.compareAndSet(balanceChunk, index, balance,
+                    Math.addExact(balance, amountMinorUnits))) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
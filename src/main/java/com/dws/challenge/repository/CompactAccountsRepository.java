@@ -0,0 +1,237 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Repository;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps accounts in a handful of primitive arrays instead of one map node, String, and Account
+ * per account, so tens of millions of accounts cost the garbage collector next to nothing to
+ * trace. Accounts are numbered densely in creation order: balances and id references live in
+ * fixed-size chunks indexed by that number and never move, ids are packed as UTF-8 into byte
+ * chunks, and an open-addressing table maps id hashes to account numbers.
+ *
+ * <p>{@link #getAccount} hands out a fresh view whose balance operations go straight to the
+ * balance chunk. A view's handle is its account number, so all views of one account share a
+ * lock stripe.
+ */
+@Repository
+// The sharded engine keeps accounts in its own repository, which refuses this combination.
+@ConditionalOnExpression("'${accounts.repository:map}' == 'compact' and '${accounts.transfer.engine:locking}' != 'sharded'")
+public class CompactAccountsRepository implements AccountsRepository {
+
+    static final int MAX_ID_BYTES = 1024;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+    private static final int MAX_ACCOUNTS = MAX_TABLE_SIZE - (MAX_TABLE_SIZE >>> 2);
+    private static final int MAX_CHUNKS = (MAX_ACCOUNTS >>> CHUNK_SHIFT) + 1;
+    private static final int ARENA_SHIFT = 20;
+    private static final int ARENA_SIZE = 1 << ARENA_SHIFT;
+    private static final int MAX_ARENAS = 1 << 16;
+    private static final int INITIAL_TABLE_SIZE = 1 << 16;
+
+    static final VarHandle BALANCES = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /**
+     * Slots hold account number + 1, 0 meaning empty, and are published with release stores so a
+     * reader that finds a number also sees that account's id and balance.
+     */
+    private static final class Table {
+        final int[] slots;
+        final int[] hashes;
+
+        Table(int size) {
+            slots = new int[size];
+            hashes = new int[size];
+        }
+    }
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final long[][] balances = new long[MAX_CHUNKS][];
+    private final long[][] idReferences = new long[MAX_CHUNKS][];
+    private final byte[][] idArenas = new byte[MAX_ARENAS][];
+
+    private volatile Table table = new Table(INITIAL_TABLE_SIZE);
+    private volatile int size;
+    private int arena = -1;
+    private int arenaPosition = ARENA_SIZE;
+
+    @Override
+    public void createAccount(Account account, Runnable beforeVisible) throws DuplicateAccountIdException {
+        String accountId = account.getAccountId();
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Account id is longer than " + MAX_ID_BYTES + " bytes.");
+        }
+        int hash = accountId.hashCode();
+
+        writeLock.lock();
+        try {
+            Table current = table;
+            int mask = current.slots.length - 1;
+            int slot = spread(hash) & mask;
+            for (int number; (number = current.slots[slot]) != 0; slot = (slot + 1) & mask) {
+                if (current.hashes[slot] == hash && idEquals(number - 1, id)) {
+                    throw new DuplicateAccountIdException("Account id " + accountId + " already exists!");
+                }
+            }
+            int number = size;
+            if (number == MAX_ACCOUNTS) {
+                throw new IllegalStateException("Compact account store is full");
+            }
+
+            int chunk = number >>> CHUNK_SHIFT;
+            if (balances[chunk] == null) {
+                balances[chunk] = new long[CHUNK_SIZE];
+                idReferences[chunk] = new long[CHUNK_SIZE];
+            }
+            balances[chunk][number & (CHUNK_SIZE - 1)] = account.getBalanceMinorUnits();
+            idReferences[chunk][number & (CHUNK_SIZE - 1)] = storeId(id);
+            beforeVisible.run();
+
+            current.hashes[slot] = hash;
+            SLOTS.setRelease(current.slots, slot, number + 1);
+            size = number + 1;
+            if (size > current.slots.length - (current.slots.length >>> 2) && current.slots.length < MAX_TABLE_SIZE) {
+                table = grow(current);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Account getAccount(String accountId) {
+        if (accountId == null) {
+            return null;
+        }
+        int hash = accountId.hashCode();
+        byte[] id = null;
+        Table current = table;
+        int mask = current.slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int number = (int) SLOTS.getAcquire(current.slots, slot);
+            if (number == 0) {
+                return null;
+            }
+            if (current.hashes[slot] == hash) {
+                if (id == null) {
+                    id = accountId.getBytes(StandardCharsets.UTF_8);
+                }
+                if (idEquals(number - 1, id)) {
+                    return new CompactAccount(accountId, number - 1, balanceChunk(number - 1),
+                            (number - 1) & (CHUNK_SIZE - 1));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clearAccounts() {
+        writeLock.lock();
+        try {
+            Arrays.fill(balances, null);
+            Arrays.fill(idReferences, null);
+            Arrays.fill(idArenas, null);
+            arena = -1;
+            arenaPosition = ARENA_SIZE;
+            size = 0;
+            table = new Table(INITIAL_TABLE_SIZE);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void forEachAccount(Consumer<Account> action) {
+        int count = size;
+        for (int number = 0; number < count; number++) {
+            long reference = idReferences[number >>> CHUNK_SHIFT][number & (CHUNK_SIZE - 1)];
+            byte[] arenaBytes = idArenas[(int) (reference >>> ARENA_SHIFT)];
+            int offset = (int) reference & (ARENA_SIZE - 1);
+            int length = idLength(arenaBytes, offset);
+            String accountId = new String(arenaBytes, offset + 2, length, StandardCharsets.UTF_8);
+            action.accept(new CompactAccount(accountId, number, balanceChunk(number), number & (CHUNK_SIZE - 1)));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private long[] balanceChunk(int number) {
+        return balances[number >>> CHUNK_SHIFT];
+    }
+
+    /**
+     * Appends the length-prefixed id to the current arena, starting a new one when it does not fit.
+     */
+    private long storeId(byte[] id) {
+        if (arenaPosition + 2 + id.length > ARENA_SIZE) {
+            if (arena + 1 == MAX_ARENAS) {
+                throw new IllegalStateException("Compact account store is full");
+            }
+            arena++;
+            idArenas[arena] = new byte[ARENA_SIZE];
+            arenaPosition = 0;
+        }
+        byte[] arenaBytes = idArenas[arena];
+        arenaBytes[arenaPosition] = (byte) (id.length >>> 8);
+        arenaBytes[arenaPosition + 1] = (byte) id.length;
+        System.arraycopy(id, 0, arenaBytes, arenaPosition + 2, id.length);
+        long reference = ((long) arena << ARENA_SHIFT) | arenaPosition;
+        arenaPosition += 2 + id.length;
+        return reference;
+    }
+
+    private boolean idEquals(int number, byte[] id) {
+        long reference = idReferences[number >>> CHUNK_SHIFT][number & (CHUNK_SIZE - 1)];
+        byte[] arenaBytes = idArenas[(int) (reference >>> ARENA_SHIFT)];
+        int offset = (int) reference & (ARENA_SIZE - 1);
+        return idLength(arenaBytes, offset) == id.length
+                && Arrays.equals(arenaBytes, offset + 2, offset + 2 + id.length, id, 0, id.length);
+    }
+
+    private static int idLength(byte[] arenaBytes, int offset) {
+        return ((arenaBytes[offset] & 0xff) << 8) | (arenaBytes[offset + 1] & 0xff);
+    }
+
+    private static Table grow(Table current) {
+        Table grown = new Table(current.slots.length << 1);
+        int mask = grown.slots.length - 1;
+        for (int i = 0; i < current.slots.length; i++) {
+            int number = current.slots[i];
+            if (number != 0) {
+                int slot = spread(current.hashes[i]) & mask;
+                while (grown.slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown.slots[slot] = number;
+                grown.hashes[slot] = current.hashes[i];
+            }
+        }
+        return grown;
+    }
+
+    /**
+     * Murmur3 finalizer: account ids are often sequential, and their String hashes with them.
+     */
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,82 @@
+package com.dws.challenge.repository;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Hash-partitions accounts into a fixed number of shards. The sharded transfer engine gives each
+ * shard a single owner thread, which is then the only writer of its accounts' balances.
+ */
+@Repository
+@ConditionalOnProperty(name = "accounts.transfer.engine", havingValue = "sharded")
+public class ShardedAccountsRepository implements AccountsRepository {
+
+    private final Map<String, Account>[] shards;
+
+    @Autowired
+    public ShardedAccountsRepository(@Value("${accounts.shards:0}") int shards,
+                                     @Value("${accounts.repository:map}") String repository) {
+        this(shards);
+        if (!repository.equals("map")) {
+            throw new IllegalStateException("accounts.transfer.engine=sharded keeps accounts in its own shards"
+                    + " and cannot be combined with accounts.repository=" + repository);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ShardedAccountsRepository(int shards) {
+        int count = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.shards = new Map[count];
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(String accountId) {
+        int hash = accountId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    @Override
+    public void createAccount(Account account, Runnable beforeVisible) throws DuplicateAccountIdException {
+        Account existing = shards[shardOf(account.getAccountId())].computeIfAbsent(account.getAccountId(), id -> {
+            beforeVisible.run();
+            return account;
+        });
+        if (existing != account) {
+            throw new DuplicateAccountIdException(
+                    "Account id " + account.getAccountId() + " already exists!");
+        }
+    }
+
+    @Override
+    public Account getAccount(String accountId) {
+        return shards[shardOf(accountId)].get(accountId);
+    }
+
+    @Override
+    public void clearAccounts() {
+        for (Map<String, Account> shard : shards) {
+            shard.clear();
+        }
+    }
+
+    @Override
+    public void forEachAccount(Consumer<Account> action) {
+        for (Map<String, Account> shard : shards) {
+            shard.values().forEach(action);
+        }
+    }
+}
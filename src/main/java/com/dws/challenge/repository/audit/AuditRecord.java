@@ -0,0 +1,21 @@
+package com.dws.challenge.repository.audit;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The encoded audit record of one transfer, prepared before the transfer is attempted and handed
+ * to {@link TransferAuditLog#append} once it has committed.
+ */
+public final class AuditRecord {
+
+    static final AuditRecord NONE = new AuditRecord(null);
+
+    final ByteBuffer bytes;
+    // Set by the appending thread before the record is queued, read by the writer after.
+    Thread waiter;
+    volatile boolean durable;
+
+    AuditRecord(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+}
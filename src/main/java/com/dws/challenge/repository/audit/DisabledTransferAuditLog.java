@@ -0,0 +1,24 @@
+package com.dws.challenge.repository.audit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "accounts.audit.enabled", havingValue = "false")
+public class DisabledTransferAuditLog implements TransferAuditLog {
+
+    @Override
+    public AuditRecord prepare(String fromId, String toId, long amountMinorUnits) {
+        return AuditRecord.NONE;
+    }
+
+    @Override
+    public void append(List<AuditRecord> records) {
+    }
+
+    @Override
+    public void read(Handler handler) {
+    }
+}
@@ -0,0 +1,268 @@
+package com.dws.challenge.repository.audit;
+
+import com.dws.challenge.exception.AuditUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Audit log in binary segment files with group commit. Records are encoded by
+ * {@link #prepare}, before any account lock is taken; {@link #append} stamps them with the time,
+ * puts them on a lock-free queue and waits, while a single writer thread drains the queue,
+ * checksums, writes and syncs everything queued since its previous sync, and wakes the callers
+ * it made durable. Every start opens a new segment, and a segment that reaches its size limit is
+ * closed for the next one. Segments are never rewritten or deleted.
+ *
+ * <p>Record layout: payload length (int), CRC32 of the payload (int), then the payload: the time
+ * appended in epoch milliseconds (long), the source and destination account ids, each an int
+ * byte count and UTF-8, and the amount in minor units (long).
+ *
+ * <p>Once a write has failed, the callers waiting on it and every later one are refused, so no
+ * transfer is acknowledged without a durable audit record.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "accounts.audit.enabled", havingValue = "true", matchIfMissing = true)
+public class FileTransferAuditLog implements TransferAuditLog {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int INITIAL_BUFFER_BYTES = 1 << 16;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Thread writer;
+    private final Queue<AuditRecord> queue = new ConcurrentLinkedQueue<>();
+    private volatile IOException failure;
+    private volatile boolean running = true;
+
+    // Writer thread only, once constructed.
+    private FileChannel channel;
+    private long currentSegment;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    private final CRC32 crc = new CRC32();
+
+    @Autowired
+    public FileTransferAuditLog(@Value("${accounts.audit.directory:data/audit}") Path directory,
+                                @Value("${accounts.audit.segment-bytes:67108864}") long segmentBytes)
+            throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        List<Path> segments = listSegments(directory);
+        this.currentSegment = segments.isEmpty() ? 1 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+        this.channel = openSegment(currentSegment);
+        this.writer = new Thread(this::writeLoop, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public AuditRecord prepare(String fromId, String toId, long amountMinorUnits) {
+        checkWritable();
+        byte[] from = fromId.getBytes(StandardCharsets.UTF_8);
+        byte[] to = toId.getBytes(StandardCharsets.UTF_8);
+        int payloadBytes = Long.BYTES + Integer.BYTES + from.length + Integer.BYTES + to.length + Long.BYTES;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadBytes);
+        // The time and the checksum are filled in on append and by the writer.
+        record.putInt(payloadBytes).putInt(0).putLong(0)
+                .putInt(from.length).put(from).putInt(to.length).put(to).putLong(amountMinorUnits);
+        return new AuditRecord(record.flip());
+    }
+
+    @Override
+    public void append(List<AuditRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        checkWritable();
+        long now = System.currentTimeMillis();
+        Thread current = Thread.currentThread();
+        for (AuditRecord record : records) {
+            record.bytes.putLong(HEADER_BYTES, now);
+            record.waiter = current;
+            queue.add(record);
+        }
+        LockSupport.unpark(writer);
+        // The writer syncs records in queue order, so the last is durable only once all are.
+        AuditRecord last = records.get(records.size() - 1);
+        while (!last.durable) {
+            IOException failed = failure;
+            if (failed != null) {
+                throw new AuditUnavailableException("Audit log write failed", failed);
+            }
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Reads every segment, ending each at its first torn or corrupt record. Records still
+     * queued, or being written, may not be seen.
+     */
+    @Override
+    public void read(Handler handler) {
+        try {
+            for (Path segment : listSegments(directory)) {
+                readSegment(segment, handler);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list audit segments in " + directory, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join();
+        channel.close();
+    }
+
+    private void checkWritable() {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new AuditUnavailableException("Audit log write failed", failed);
+        }
+        if (!running) {
+            throw new AuditUnavailableException("Audit log closed", null);
+        }
+    }
+
+    private void writeLoop() {
+        List<AuditRecord> batch = new ArrayList<>();
+        while (true) {
+            for (AuditRecord record; (record = queue.poll()) != null; ) {
+                batch.add(record);
+            }
+            if (batch.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            boolean written = false;
+            if (failure == null) {
+                try {
+                    write(batch);
+                    written = true;
+                } catch (IOException e) {
+                    log.error("Audit log write failed; refusing further transfers", e);
+                    failure = e;
+                }
+            }
+            for (AuditRecord record : batch) {
+                record.durable = written;
+                LockSupport.unpark(record.waiter);
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<AuditRecord> batch) throws IOException {
+        buffer.clear();
+        for (AuditRecord record : batch) {
+            ByteBuffer bytes = record.bytes;
+            crc.reset();
+            crc.update(bytes.array(), HEADER_BYTES, bytes.limit() - HEADER_BYTES);
+            bytes.putInt(Integer.BYTES, (int) crc.getValue());
+            if (buffer.remaining() < bytes.limit()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+                        buffer.position() + bytes.limit()));
+                grown.put(buffer.flip());
+                buffer = grown;
+            }
+            buffer.put(bytes.duplicate().rewind());
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        if (channel.size() >= segmentBytes) {
+            FileChannel next = openSegment(currentSegment + 1);
+            channel.close();
+            channel = next;
+            currentSegment++;
+        }
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(directory.resolve(segmentName(segment)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static void readSegment(Path segment, Handler handler) {
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = in.size();
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt(buffer.position());
+                int checksum = buffer.getInt(buffer.position() + Integer.BYTES);
+                if (length <= 0 || length > buffer.remaining() - HEADER_BYTES) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position() + HEADER_BYTES, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                handler.transferred(payload.getLong(), readString(payload), readString(payload), payload.getLong());
+                buffer.position(buffer.position() + HEADER_BYTES + length);
+            }
+            if (buffer.hasRemaining()) {
+                log.warn("Ignoring {} bytes of torn or corrupt records at the end of {}",
+                        buffer.remaining(), segment.getFileName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read audit segment " + segment, e);
+        }
+    }
+
+    private static String readString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static String segmentName(long segment) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.dws.challenge.repository.audit;
+
+import java.util.List;
+
+/**
+ * Append-only trail of every completed transfer, whichever endpoint or batch it came from, kept
+ * in full: unlike the journal it is never folded into snapshots or netted per account, and unlike
+ * the transfer history it is not held in memory until a segment fills. A transfer is recorded
+ * once its journal record is durable and is not acknowledged until its audit record is too.
+ * Selected with {@code accounts.audit.enabled}.
+ */
+public interface TransferAuditLog {
+
+    /**
+     * Encodes the record of a transfer about to be attempted, so that none of the work is done
+     * with account locks held. A record whose transfer does not commit is simply dropped.
+     *
+     * @throws com.dws.challenge.exception.AuditUnavailableException if the log failed earlier,
+     *         in which case the transfer must not be attempted
+     */
+    AuditRecord prepare(String fromId, String toId, long amountMinorUnits);
+
+    /**
+     * Appends the records of transfers that have committed, in list order, and blocks until they
+     * are on disk. Records appended by concurrent callers share one sync. Must not be called with
+     * account locks held.
+     *
+     * @throws com.dws.challenge.exception.AuditUnavailableException if they could not be written
+     */
+    void append(List<AuditRecord> records);
+
+    /**
+     * Reads every record written so far, oldest first.
+     */
+    void read(Handler handler);
+
+    @FunctionalInterface
+    interface Handler {
+
+        void transferred(long timestampMillis, String fromId, String toId, long amountMinorUnits);
+    }
+}
@@ -0,0 +1,21 @@
+package com.dws.challenge.repository.history;
+
+import com.dws.challenge.domain.TransferHistoryPage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "accounts.history.enabled", havingValue = "false")
+public class DisabledTransferHistory implements TransferHistory {
+
+    @Override
+    public void record(String fromId, String toId, long amountMinorUnits) {
+    }
+
+    @Override
+    public TransferHistoryPage page(String accountId, long fromMillis, long toMillis, Long cursor, int limit) {
+        return new TransferHistoryPage(List.of(), null);
+    }
+}
@@ -0,0 +1,224 @@
+package com.dws.challenge.repository.history;
+
+import com.dws.challenge.domain.Money;
+import com.dws.challenge.domain.TransferHistoryEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A full segment spilled to its own file. Layout: header (magic, version, first sequence, entry
+ * count, first and last timestamp, account count), fixed-size entries (timestamp, from and to
+ * account number, amount), the segment's account ids, then each account's entry positions.
+ * Only the header stays on the heap; account indexes are loaded on demand into a small shared
+ * cache and entries are read by position.
+ */
+class DiskHistorySegment implements HistorySegment {
+
+    private static final int MAGIC = 0x54584853;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int ENTRY_BYTES = 24;
+
+    /**
+     * Most recently used account indexes of disk segments, shared by all of them.
+     */
+    static final class IndexCache {
+        private final Map<Path, Index> indexes;
+
+        IndexCache(int maxSegments) {
+            this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, Index> eldest) {
+                    return size() > maxSegments;
+                }
+            };
+        }
+
+        synchronized Index get(Path file) {
+            return indexes.get(file);
+        }
+
+        synchronized void put(Path file, Index index) {
+            indexes.put(file, index);
+        }
+    }
+
+    record Index(String[] accountIds, Map<String, int[]> positions) {
+    }
+
+    private final Path file;
+    private final IndexCache cache;
+    private final long firstSequence;
+    private final int size;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+    private final int accountCount;
+
+    private DiskHistorySegment(Path file, IndexCache cache, long firstSequence, int size, long firstTimestamp,
+                               long lastTimestamp, int accountCount) {
+        this.file = file;
+        this.cache = cache;
+        this.firstSequence = firstSequence;
+        this.size = size;
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+        this.accountCount = accountCount;
+    }
+
+    static DiskHistorySegment open(Path file, IndexCache cache) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),
+                HEADER_BYTES))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognised history segment format in " + file);
+            }
+            return new DiskHistorySegment(file, cache, in.readLong(), in.readInt(), in.readLong(), in.readLong(),
+                    in.readInt());
+        }
+    }
+
+    /**
+     * Writes the segment to a temporary file and moves it into place, so a segment file is
+     * either complete or absent.
+     */
+    static DiskHistorySegment write(Path file, MemoryHistorySegment segment, IndexCache cache) throws IOException {
+        Map<String, Integer> numbers = new HashMap<>();
+        String[] accountIds = segment.index.keySet().toArray(new String[0]);
+        for (int i = 0; i < accountIds.length; i++) {
+            numbers.put(accountIds[i], i);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel),
+                    1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(segment.firstSequence());
+            out.writeInt(segment.size());
+            out.writeLong(segment.firstTimestamp());
+            out.writeLong(segment.lastTimestamp());
+            out.writeInt(accountIds.length);
+            for (int i = 0; i < segment.size(); i++) {
+                out.writeLong(segment.timestamps[i]);
+                out.writeInt(numbers.get(segment.fromIds[i]));
+                out.writeInt(numbers.get(segment.toIds[i]));
+                out.writeLong(segment.amounts[i]);
+            }
+            for (String accountId : accountIds) {
+                out.writeUTF(accountId);
+            }
+            for (String accountId : accountIds) {
+                MemoryHistorySegment.Positions positions = segment.index.get(accountId);
+                out.writeInt(positions.size);
+                for (int i = 0; i < positions.size; i++) {
+                    out.writeInt(positions.positions[i]);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new DiskHistorySegment(file, cache, segment.firstSequence(), segment.size(),
+                segment.firstTimestamp(), segment.lastTimestamp(), accountIds.length);
+    }
+
+    @Override
+    public long firstSequence() {
+        return firstSequence;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    @Override
+    public long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    @Override
+    public void collect(String accountId, long fromMillis, long toMillis, long beforeSequence, int limit,
+                        List<TransferHistoryEntry> out) throws IOException {
+        Index index = index();
+        int[] positions = index.positions().get(accountId);
+        if (positions == null) {
+            return;
+        }
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = positions.length - 1; i >= 0 && out.size() < limit; i--) {
+                int position = positions[i];
+                if (firstSequence + position >= beforeSequence) {
+                    continue;
+                }
+                entry.clear();
+                long offset = HEADER_BYTES + (long) position * ENTRY_BYTES;
+                while (entry.hasRemaining()) {
+                    if (channel.read(entry, offset + entry.position()) < 0) {
+                        throw new IOException("Truncated history segment " + file);
+                    }
+                }
+                entry.flip();
+                long timestamp = entry.getLong();
+                if (timestamp < fromMillis) {
+                    return;
+                }
+                if (timestamp < toMillis) {
+                    out.add(new TransferHistoryEntry(firstSequence + position, Instant.ofEpochMilli(timestamp),
+                            index.accountIds()[entry.getInt()], index.accountIds()[entry.getInt()],
+                            Money.toDecimal(entry.getLong())));
+                }
+            }
+        }
+    }
+
+    private Index index() throws IOException {
+        Index index = cache.get(file);
+        if (index != null) {
+            return index;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(HEADER_BYTES + (long) size * ENTRY_BYTES);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel),
+                    1 << 16));
+            String[] accountIds = new String[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accountIds[i] = in.readUTF();
+            }
+            Map<String, int[]> positions = new HashMap<>(accountCount * 2);
+            for (String accountId : accountIds) {
+                int[] accountPositions = new int[in.readInt()];
+                for (int i = 0; i < accountPositions.length; i++) {
+                    accountPositions[i] = in.readInt();
+                }
+                positions.put(accountId, accountPositions);
+            }
+            index = new Index(accountIds, positions);
+        }
+        cache.put(file, index);
+        return index;
+    }
+}
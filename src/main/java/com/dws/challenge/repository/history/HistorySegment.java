@@ -0,0 +1,27 @@
+package com.dws.challenge.repository.history;
+
+import com.dws.challenge.domain.TransferHistoryEntry;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A run of consecutively numbered history entries with non-decreasing timestamps.
+ */
+interface HistorySegment {
+
+    long firstSequence();
+
+    int size();
+
+    long firstTimestamp();
+
+    long lastTimestamp();
+
+    /**
+     * Adds the account's entries within {@code [fromMillis, toMillis)} and below
+     * {@code beforeSequence} to {@code out}, newest first, until it holds {@code limit} entries.
+     */
+    void collect(String accountId, long fromMillis, long toMillis, long beforeSequence, int limit,
+                 List<TransferHistoryEntry> out) throws IOException;
+}
@@ -0,0 +1,105 @@
+package com.dws.challenge.repository.history;
+
+import com.dws.challenge.domain.Money;
+import com.dws.challenge.domain.TransferHistoryEntry;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The segment being appended to, held in parallel primitive arrays. Account ids are the
+ * {@code Account}'s own String instances, so an entry costs references, not copies. Each account
+ * has a list of its entry positions.
+ *
+ * <p>Not thread-safe while being appended to; immutable once full.
+ */
+class MemoryHistorySegment implements HistorySegment {
+
+    /**
+     * Ascending positions of one account's entries.
+     */
+    static final class Positions {
+        int[] positions = new int[4];
+        int size;
+
+        void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size << 1);
+            }
+            positions[size++] = position;
+        }
+    }
+
+    private final long firstSequence;
+    final long[] timestamps;
+    final long[] amounts;
+    final String[] fromIds;
+    final String[] toIds;
+    final Map<String, Positions> index = new HashMap<>();
+    private int size;
+
+    MemoryHistorySegment(long firstSequence, int capacity) {
+        this.firstSequence = firstSequence;
+        this.timestamps = new long[capacity];
+        this.amounts = new long[capacity];
+        this.fromIds = new String[capacity];
+        this.toIds = new String[capacity];
+    }
+
+    void append(long timestamp, String fromId, String toId, long amountMinorUnits) {
+        timestamps[size] = timestamp;
+        amounts[size] = amountMinorUnits;
+        fromIds[size] = fromId;
+        toIds[size] = toId;
+        index.computeIfAbsent(fromId, id -> new Positions()).add(size);
+        index.computeIfAbsent(toId, id -> new Positions()).add(size);
+        size++;
+    }
+
+    boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    @Override
+    public long firstSequence() {
+        return firstSequence;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long firstTimestamp() {
+        return timestamps[0];
+    }
+
+    @Override
+    public long lastTimestamp() {
+        return timestamps[size - 1];
+    }
+
+    @Override
+    public void collect(String accountId, long fromMillis, long toMillis, long beforeSequence, int limit,
+                        List<TransferHistoryEntry> out) {
+        Positions positions = index.get(accountId);
+        if (positions == null) {
+            return;
+        }
+        for (int i = positions.size - 1; i >= 0 && out.size() < limit; i--) {
+            int position = positions.positions[i];
+            long timestamp = timestamps[position];
+            if (timestamp < fromMillis) {
+                return;
+            }
+            if (firstSequence + position < beforeSequence && timestamp < toMillis) {
+                out.add(new TransferHistoryEntry(firstSequence + position, Instant.ofEpochMilli(timestamp),
+                        fromIds[position], toIds[position], Money.toDecimal(amounts[position])));
+            }
+        }
+    }
+}
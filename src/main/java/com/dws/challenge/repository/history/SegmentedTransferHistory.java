@@ -0,0 +1,319 @@
+package com.dws.challenge.repository.history;
+
+import com.dws.challenge.domain.TransferHistoryEntry;
+import com.dws.challenge.domain.TransferHistoryPage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Appends transfers to an in-memory segment of fixed capacity. A full segment is sealed and
+ * written to its own file by a background thread, after which only its header stays on the heap,
+ * so history grows on disk rather than in memory. Segment files from earlier runs are picked up
+ * on startup only when the journal recovers the accounts they belong to; otherwise each run starts
+ * an empty history. Entries are numbered consecutively; the number is the paging cursor.
+ *
+ * <p>Transfers are recorded at their commit point, with the account locks held, so the history
+ * orders a transfer after the ones whose funds it spends. Recording only stamps the time and puts
+ * the transfer on a lock-free queue; the queue is drained into the active segment, and numbered,
+ * outside the account locks, by a background thread every {@value #DRAIN_BATCH} transfers and by
+ * every page read before it looks. The segment being filled is lost on a crash; balances are
+ * recovered from the journal. So that a lost entry's number is never given out again, numbers
+ * are reserved on disk two segments ahead, and startup resumes after the last reservation. No
+ * file is touched under the append lock: if the reservation falls behind, draining stops at the
+ * segment boundary until it has been written.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "accounts.history.enabled", havingValue = "true", matchIfMissing = true)
+public class SegmentedTransferHistory implements TransferHistory {
+
+    private static final String PREFIX = "history-";
+    private static final String SUFFIX = ".seg";
+    private static final String RESERVATION = "history-reserved";
+    private static final int CACHED_SEGMENT_INDEXES = 16;
+    private static final int DRAIN_BATCH = 256;
+
+    private record Recorded(long timestamp, String fromId, String toId, long amountMinorUnits) {
+    }
+
+    private final Path directory;
+    private final int segmentEntries;
+    private final Clock clock;
+    private final DiskHistorySegment.IndexCache indexCache = new DiskHistorySegment.IndexCache(CACHED_SEGMENT_INDEXES);
+    private final ExecutorService spiller = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "history-spiller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Sealed segments, oldest first: in memory until spilled, then on disk.
+     */
+    private final List<HistorySegment> sealed = new CopyOnWriteArrayList<>();
+
+    private final Queue<Recorded> recorded = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger undrained = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private MemoryHistorySegment active;
+    private long lastTimestamp;
+
+    /**
+     * Numbers below this may have been given out, by this run or an earlier one.
+     */
+    private volatile long reservedSequence;
+
+    @Autowired
+    public SegmentedTransferHistory(@Value("${accounts.history.directory:data/history}") Path directory,
+                                    @Value("${accounts.history.segment-entries:65536}") int segmentEntries,
+                                    @Value("${accounts.journal.enabled:false}") boolean accountsRecovered) {
+        this(directory, segmentEntries, Clock.systemUTC(), accountsRecovered);
+    }
+
+    public SegmentedTransferHistory(Path directory, int segmentEntries, Clock clock) {
+        this(directory, segmentEntries, clock, true);
+    }
+
+    /**
+     * @param keepEarlierRuns whether the accounts survive restarts, so that history written by
+     *        earlier runs still describes them; if not, it is deleted
+     */
+    public SegmentedTransferHistory(Path directory, int segmentEntries, Clock clock, boolean keepEarlierRuns) {
+        this.directory = directory;
+        this.segmentEntries = segmentEntries;
+        this.clock = clock;
+        if (!keepEarlierRuns) {
+            deleteEarlierRuns();
+        }
+        long nextSequence = 1;
+        for (Path file : listSegments(directory)) {
+            try {
+                DiskHistorySegment segment = DiskHistorySegment.open(file, indexCache);
+                sealed.add(segment);
+                nextSequence = segment.firstSequence() + segment.size();
+                lastTimestamp = segment.lastTimestamp();
+            } catch (IOException e) {
+                log.warn("Skipping unreadable history segment {}", file, e);
+            }
+        }
+        try {
+            nextSequence = Math.max(nextSequence, readReservation());
+            reserve(nextSequence + 2L * segmentEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot reserve history numbers in " + directory, e);
+        }
+        this.active = new MemoryHistorySegment(nextSequence, segmentEntries);
+    }
+
+    @Override
+    public void record(String fromId, String toId, long amountMinorUnits) {
+        recorded.add(new Recorded(clock.millis(), fromId, toId, amountMinorUnits));
+        if (undrained.incrementAndGet() >= DRAIN_BATCH && drainScheduled.compareAndSet(false, true)) {
+            spiller.execute(() -> {
+                drainScheduled.set(false);
+                drain();
+            });
+        }
+    }
+
+    @Override
+    public TransferHistoryPage page(String accountId, long fromMillis, long toMillis, Long cursor, int limit) {
+        long beforeSequence = cursor == null ? Long.MAX_VALUE : cursor;
+        // One extra entry tells whether another page follows.
+        List<TransferHistoryEntry> entries = new ArrayList<>(limit + 1);
+        Object[] older;
+        drain();
+        appendLock.lock();
+        try {
+            if (active.size() > 0) {
+                active.collect(accountId, fromMillis, toMillis, beforeSequence, limit + 1, entries);
+            }
+            older = sealed.toArray();
+        } finally {
+            appendLock.unlock();
+        }
+
+        try {
+            for (int i = older.length - 1; i >= 0 && entries.size() <= limit; i--) {
+                HistorySegment segment = (HistorySegment) older[i];
+                if (segment.lastTimestamp() < fromMillis) {
+                    break;
+                }
+                if (segment.firstSequence() < beforeSequence && segment.firstTimestamp() < toMillis) {
+                    segment.collect(accountId, fromMillis, toMillis, beforeSequence, limit + 1, entries);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read transfer history", e);
+        }
+
+        if (entries.size() <= limit) {
+            return new TransferHistoryPage(entries, null);
+        }
+        List<TransferHistoryEntry> page = entries.subList(0, limit);
+        return new TransferHistoryPage(List.copyOf(page), page.get(limit - 1).getId());
+    }
+
+    /**
+     * Moves recorded transfers into the active segment, in the order they were recorded, sealing
+     * segments as they fill. Waits for the reservation, outside the append lock, when a new
+     * segment would otherwise start beyond it.
+     */
+    private void drain() {
+        while (true) {
+            long reservationNeeded = 0;
+            appendLock.lock();
+            try {
+                for (Recorded next; (next = recorded.peek()) != null; ) {
+                    if (active.isFull()) {
+                        long nextSequence = active.firstSequence() + active.size();
+                        if (reservedSequence < nextSequence + segmentEntries) {
+                            // The reservation made a segment ago has not been written yet.
+                            reservationNeeded = nextSequence + 2L * segmentEntries;
+                            break;
+                        }
+                        seal(nextSequence);
+                    }
+                    recorded.poll();
+                    undrained.decrementAndGet();
+                    // Never step back in time, so every segment stays ordered by timestamp.
+                    lastTimestamp = Math.max(lastTimestamp, next.timestamp());
+                    active.append(lastTimestamp, next.fromId(), next.toId(), next.amountMinorUnits());
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            if (reservationNeeded == 0) {
+                return;
+            }
+            reserveQuietly(reservationNeeded);
+        }
+    }
+
+    private void seal(long nextSequence) {
+        MemoryHistorySegment full = active;
+        sealed.add(full);
+        active = new MemoryHistorySegment(nextSequence, segmentEntries);
+        spiller.execute(() -> reserveQuietly(nextSequence + 2L * segmentEntries));
+        spiller.execute(() -> spill(full));
+    }
+
+    private void spill(MemoryHistorySegment segment) {
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(String.format("%s%020d%s", PREFIX, segment.firstSequence(), SUFFIX));
+            DiskHistorySegment spilled = DiskHistorySegment.write(file, segment, indexCache);
+            sealed.set(sealed.indexOf(segment), spilled);
+        } catch (IOException e) {
+            log.error("Cannot spill history segment starting at {}; keeping it in memory",
+                    segment.firstSequence(), e);
+        }
+    }
+
+    private long readReservation() throws IOException {
+        Path file = directory.resolve(RESERVATION);
+        if (!Files.exists(file)) {
+            return 1;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != Long.BYTES) {
+            throw new IOException("Unrecognised history reservation in " + file);
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+
+    /**
+     * Durably records that numbers below {@code endSequence} may be given out.
+     */
+    private synchronized void reserve(long endSequence) throws IOException {
+        if (endSequence <= reservedSequence) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(RESERVATION + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, endSequence);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(RESERVATION), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        reservedSequence = endSequence;
+    }
+
+    private void reserveQuietly(long endSequence) {
+        try {
+            reserve(endSequence);
+        } catch (IOException e) {
+            log.error("Cannot reserve history numbers up to {}; after a crash they may be given out again",
+                    endSequence, e);
+            // Given out unreserved rather than holding history back for good.
+            reservedSequence = Math.max(reservedSequence, endSequence);
+        }
+    }
+
+    private void deleteEarlierRuns() {
+        try {
+            for (Path file : listSegments(directory)) {
+                Files.delete(file);
+            }
+            Files.deleteIfExists(directory.resolve(RESERVATION));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot clear the history of an earlier run in " + directory, e);
+        }
+    }
+
+    /**
+     * Drains what was recorded and waits for sealed segments to be written out.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        drain();
+        spiller.shutdown();
+        spiller.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private static List<Path> listSegments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list history segments in " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.dws.challenge.repository.history;
+
+import com.dws.challenge.domain.TransferHistoryPage;
+
+/**
+ * Append-only record of completed transfers, queried per account. Selected with
+ * {@code accounts.history.enabled}.
+ */
+public interface TransferHistory {
+
+    void record(String fromId, String toId, long amountMinorUnits);
+
+    /**
+     * Transfers of the account newest first, limited to {@code [fromMillis, toMillis)} and to
+     * entries older than the cursor.
+     *
+     * @param cursor the {@code nextCursor} of the previous page, or null for the newest entries
+     */
+    TransferHistoryPage page(String accountId, long fromMillis, long toMillis, Long cursor, int limit);
+}
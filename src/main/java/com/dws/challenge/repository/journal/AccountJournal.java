@@ -0,0 +1,59 @@
+package com.dws.challenge.repository.journal;
+
+import java.util.Map;
+
+/**
+ * Append-only record of account creations and balance changes, replayed on startup to rebuild
+ * the accounts repository. A creation is appended before its account becomes visible, and a
+ * change when the transfer engine commits to it, before its credit can be spent (see
+ * {@link com.dws.challenge.service.TransferEngine.CommitListener}). Every prefix of the journal,
+ * which is what a crash leaves, therefore replays without negative balances or postings to
+ * accounts that were never created.
+ */
+public interface AccountJournal {
+
+    /**
+     * @return the sequence to pass to {@link #awaitDurable} to wait for this record
+     */
+    long appendAccountCreated(String accountId, long balanceMinorUnits);
+
+    long appendTransfer(String fromId, String toId, long amountMinorUnits);
+
+    /**
+     * Appends several balance changes as one record, so replay applies all of them or none.
+     */
+    long appendPostings(Map<String, Long> deltasByAccountId);
+
+    /**
+     * Blocks until every record up to the sequence is on disk. Records appended by concurrent
+     * callers are flushed together, so they share one sync.
+     *
+     * @throws com.dws.challenge.exception.JournalUnavailableException if the journal failed first
+     */
+    void awaitDurable(long sequence);
+
+    void replay(Handler handler);
+
+    interface Handler {
+
+        void accountCreated(String accountId, long balanceMinorUnits);
+
+        void posted(String accountId, long deltaMinorUnits);
+
+        /**
+         * The changes of one record, which belong together; by default posted one at a time.
+         */
+        default void postings(String[] accountIds, long[] deltasMinorUnits) {
+            for (int i = 0; i < accountIds.length; i++) {
+                posted(accountIds[i], deltasMinorUnits[i]);
+            }
+        }
+
+        /**
+         * Replication only: every record before the mark had been durable on the leader for that
+         * long when the mark was sent, by the leader's clock.
+         */
+        default void marked(long ageMillis) {
+        }
+    }
+}
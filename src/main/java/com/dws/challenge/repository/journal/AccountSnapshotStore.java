@@ -0,0 +1,172 @@
+package com.dws.challenge.repository.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshots of replayed account state, each covering every journal segment up
+ * to and including the segment number in its name. Layout: magic, version, covered segment,
+ * entry count, entries (created flag, id length, UTF-8 id, balance), CRC32 of all of it.
+ *
+ * <p>A snapshot is read back in full before anything it supersedes is deleted, and the one it
+ * was built from is kept until the next, so a snapshot found unreadable at startup can be passed
+ * over for the one before it.
+ */
+@Slf4j
+class AccountSnapshotStore {
+
+    private static final AccountJournal.Handler DISCARD = new AccountJournal.Handler() {
+        @Override
+        public void accountCreated(String accountId, long balanceMinorUnits) {
+        }
+
+        @Override
+        public void posted(String accountId, long deltaMinorUnits) {
+        }
+    };
+
+    private static final int MAGIC = 0x41534e50;
+    private static final int VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+
+    AccountSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Replays the newest readable snapshot into the handler, checking it in full first so that a
+     * damaged one replays nothing.
+     *
+     * @return the last journal segment the snapshot covers, or 0 when none is readable
+     */
+    long loadLatest(AccountJournal.Handler handler) throws IOException {
+        List<Path> snapshots = list();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            try {
+                read(snapshot, DISCARD);
+            } catch (IOException e) {
+                log.warn("Passing over unreadable snapshot {}: {}", snapshot.getFileName(), e.getMessage());
+                continue;
+            }
+            return read(snapshot, handler);
+        }
+        return 0;
+    }
+
+    private static long read(Path snapshot, AccountJournal.Handler handler) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(snapshot))) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognised snapshot format in " + snapshot);
+            }
+            long coveredSegment = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                boolean created = in.readBoolean();
+                byte[] id = new byte[in.readInt()];
+                in.readFully(id);
+                long balance = in.readLong();
+                String accountId = new String(id, StandardCharsets.UTF_8);
+                if (created) {
+                    handler.accountCreated(accountId, balance);
+                } else {
+                    handler.posted(accountId, balance);
+                }
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(file).readInt() != (int) expected) {
+                throw new IOException("Checksum mismatch in " + snapshot);
+            }
+            return coveredSegment;
+        }
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, syncs it, moves it into place and reads it back.
+     *
+     * @return the size of the snapshot in bytes
+     * @throws IOException if it could not be written or read back, in which case it is removed
+     */
+    long write(long coveredSegment, ReplayedAccounts accounts) throws IOException {
+        Path target = directory.resolve(name(coveredSegment));
+        Path temporary = directory.resolve(name(coveredSegment) + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(coveredSegment);
+            out.writeInt(accounts.size());
+            accounts.forEach((accountId, created, balanceMinorUnits) -> {
+                byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+                out.writeBoolean(created);
+                out.writeInt(id.length);
+                out.write(id);
+                out.writeLong(balanceMinorUnits);
+            });
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        try {
+            if (read(target, DISCARD) != coveredSegment) {
+                throw new IOException("Snapshot " + target + " reads back with the wrong covered segment");
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return Files.size(target);
+    }
+
+    void deleteOlderThan(long coveredSegment) throws IOException {
+        for (Path snapshot : list()) {
+            if (number(snapshot) < coveredSegment) {
+                Files.delete(snapshot);
+            }
+        }
+    }
+
+    private List<Path> list() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static String name(long coveredSegment) {
+        return String.format("%s%020d%s", PREFIX, coveredSegment, SUFFIX);
+    }
+
+    private static long number(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,431 @@
+package com.dws.challenge.repository.journal;
+
+import com.dws.challenge.domain.SnapshotMetrics;
+import com.dws.challenge.exception.JournalUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Journal written through a {@link FileChannel} with group commit: appenders copy their record
+ * into an in-memory buffer and a single flusher thread writes and syncs everything appended
+ * since its previous sync. Every start opens a new segment file, so a torn tail left by a
+ * crash is never appended to.
+ *
+ * <p>Snapshots are built by replaying closed segments on top of the previous snapshot, not by
+ * reading live accounts, so they are consistent with the journal without pausing transfers.
+ * Startup loads the newest readable snapshot and replays only the segments after it. The
+ * snapshot a new one was built from, and the segments between the two, are kept until the next
+ * snapshot, so startup can fall back to them if the newest snapshot is damaged.
+ *
+ * <p>Subscribers receive the bytes of every flush once they are durable, which is what
+ * replication ships to followers.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "accounts.journal.enabled", havingValue = "true")
+public class FileAccountJournal implements AccountJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int INITIAL_BUFFER_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final AccountSnapshotStore snapshots;
+    private final List<Path> recoverySegments;
+    private final Thread flusher;
+    private FileChannel channel;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private ByteBuffer active = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES);
+    private ByteBuffer flushing = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES);
+    private long appendedSequence;
+    private long durableSequence;
+    private long currentSegment;
+    // Bytes of the current segment already handed to subscribers.
+    private long publishedBytes;
+    private List<Consumer<ByteBuffer>> subscribers = List.of();
+    private boolean rollRequested;
+    private IOException failure;
+    private boolean running = true;
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private long snapshotsTaken;
+    private SnapshotMetrics lastSnapshot = new SnapshotMetrics(0, 0, 0, 0, 0, 0, 0);
+    private long startupSnapshotLoadMillis;
+    private long startupReplayMillis;
+
+    @Autowired
+    public FileAccountJournal(@Value("${accounts.journal.directory:data/journal}") Path directory)
+            throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.snapshots = new AccountSnapshotStore(directory);
+        this.recoverySegments = listSegments(directory);
+        this.currentSegment = recoverySegments.isEmpty()
+                ? 1 : segmentNumber(recoverySegments.get(recoverySegments.size() - 1)) + 1;
+        this.channel = openSegment(currentSegment);
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public long appendAccountCreated(String accountId, long balanceMinorUnits) {
+        return append(JournalCodec.accountCreated(accountId, balanceMinorUnits));
+    }
+
+    @Override
+    public long appendTransfer(String fromId, String toId, long amountMinorUnits) {
+        return append(JournalCodec.postings(new String[] {fromId, toId}, new long[] {-amountMinorUnits, amountMinorUnits}));
+    }
+
+    @Override
+    public long appendPostings(Map<String, Long> deltasByAccountId) {
+        String[] accountIds = new String[deltasByAccountId.size()];
+        long[] deltas = new long[accountIds.length];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : deltasByAccountId.entrySet()) {
+            accountIds[i] = entry.getKey();
+            deltas[i++] = entry.getValue();
+        }
+        return append(JournalCodec.postings(accountIds, deltas));
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (durableSequence < sequence) {
+                throw new JournalUnavailableException("Journal write failed", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void replay(Handler handler) {
+        long started = System.nanoTime();
+        long coveredSegment;
+        try {
+            coveredSegment = snapshots.loadLatest(handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load journal snapshot", e);
+        }
+        long loaded = System.nanoTime();
+        long expected = coveredSegment + 1;
+        for (Path segment : recoverySegments) {
+            long number = segmentNumber(segment);
+            if (number > coveredSegment) {
+                if (number != expected) {
+                    throw new IllegalStateException("Journal segments " + expected + " to " + (number - 1)
+                            + " are missing after snapshot " + coveredSegment);
+                }
+                replaySegment(segment, handler);
+                expected++;
+            }
+        }
+        snapshotLock.lock();
+        try {
+            startupSnapshotLoadMillis = (loaded - started) / 1_000_000;
+            startupReplayMillis = (System.nanoTime() - loaded) / 1_000_000;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Replays everything flushed so far into the handler and subscribes the subscriber to every
+     * later flush, with nothing missed or seen twice in between. The subscriber is called on the
+     * flusher thread with a buffer it must copy before returning, and must not block.
+     */
+    public void replayAndSubscribe(Handler handler, Consumer<ByteBuffer> subscriber) {
+        snapshotLock.lock();
+        try {
+            long segment;
+            long bytes;
+            lock.lock();
+            try {
+                segment = currentSegment;
+                bytes = publishedBytes;
+                List<Consumer<ByteBuffer>> added = new ArrayList<>(subscribers);
+                added.add(subscriber);
+                subscribers = List.copyOf(added);
+            } finally {
+                lock.unlock();
+            }
+            // Holding the snapshot lock keeps these files from being folded and deleted meanwhile.
+            long coveredSegment = snapshots.loadLatest(handler);
+            for (Path path : listSegments(directory)) {
+                long number = segmentNumber(path);
+                if (number > coveredSegment && number < segment) {
+                    replaySegment(path, handler);
+                }
+            }
+            replaySegment(directory.resolve(segmentName(segment)), bytes, handler);
+        } catch (IOException e) {
+            unsubscribe(subscriber);
+            throw new UncheckedIOException("Cannot replay journal for a subscriber", e);
+        } catch (RuntimeException e) {
+            unsubscribe(subscriber);
+            throw e;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    public void unsubscribe(Consumer<ByteBuffer> subscriber) {
+        lock.lock();
+        try {
+            List<Consumer<ByteBuffer>> remaining = new ArrayList<>(subscribers);
+            remaining.remove(subscriber);
+            subscribers = List.copyOf(remaining);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and folds every closed segment into a new snapshot. Once it has
+     * been read back, the snapshots and segments older than the one it was built from are deleted.
+     */
+    public SnapshotMetrics snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            return takeSnapshot();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private SnapshotMetrics takeSnapshot() throws IOException {
+        long started = System.nanoTime();
+        long coveredSegment = rollSegment();
+        ReplayedAccounts accounts = new ReplayedAccounts();
+        long previousSegment = snapshots.loadLatest(accounts);
+        List<Path> segments = listSegments(directory);
+        for (Path segment : segments) {
+            long number = segmentNumber(segment);
+            if (number > previousSegment && number <= coveredSegment) {
+                replaySegment(segment, accounts);
+            }
+        }
+        long bytes = snapshots.write(coveredSegment, accounts);
+        for (Path segment : segments) {
+            if (segmentNumber(segment) <= previousSegment) {
+                Files.delete(segment);
+            }
+        }
+        snapshots.deleteOlderThan(previousSegment);
+
+        snapshotsTaken++;
+        lastSnapshot = new SnapshotMetrics(snapshotsTaken, coveredSegment, accounts.size(), bytes,
+                (System.nanoTime() - started) / 1_000_000, startupSnapshotLoadMillis, startupReplayMillis);
+        log.info("Snapshot of {} accounts through segment {} written: {} bytes in {} ms", accounts.size(),
+                coveredSegment, bytes, lastSnapshot.getLastDurationMillis());
+        return lastSnapshot;
+    }
+
+    public SnapshotMetrics snapshotMetrics() {
+        snapshotLock.lock();
+        try {
+            return new SnapshotMetrics(snapshotsTaken, lastSnapshot.getLastCoveredSegment(),
+                    lastSnapshot.getLastAccounts(), lastSnapshot.getLastBytes(), lastSnapshot.getLastDurationMillis(),
+                    startupSnapshotLoadMillis, startupReplayMillis);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Makes the flusher close the current segment after flushing everything appended so far.
+     *
+     * @return the number of the closed segment
+     */
+    long rollSegment() {
+        lock.lock();
+        try {
+            long segment = currentSegment;
+            rollRequested = true;
+            flushNeeded.signal();
+            while (currentSegment == segment && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (currentSegment == segment) {
+                throw new JournalUnavailableException("Journal write failed", failure);
+            }
+            return segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+        channel.close();
+    }
+
+    private long append(ByteBuffer record) {
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new JournalUnavailableException("Journal write failed", failure);
+            }
+            if (active.remaining() < record.remaining()) {
+                ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(active.capacity() * 2,
+                        active.position() + record.remaining()));
+                grown.put(active.flip());
+                active = grown;
+            }
+            active.put(record);
+            flushNeeded.signal();
+            return ++appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            boolean roll;
+            lock.lock();
+            try {
+                while (active.position() == 0 && !rollRequested && running) {
+                    flushNeeded.awaitUninterruptibly();
+                }
+                if (active.position() == 0 && !rollRequested) {
+                    return;
+                }
+                ByteBuffer swapped = active;
+                active = flushing;
+                flushing = swapped;
+                target = appendedSequence;
+                roll = rollRequested;
+                rollRequested = false;
+            } finally {
+                lock.unlock();
+            }
+
+            FileChannel next = null;
+            try {
+                flushing.flip();
+                while (flushing.hasRemaining()) {
+                    channel.write(flushing);
+                }
+                channel.force(false);
+                if (roll) {
+                    next = openSegment(currentSegment + 1);
+                    channel.close();
+                }
+            } catch (IOException e) {
+                log.error("Journal write failed; rejecting further appends", e);
+                lock.lock();
+                try {
+                    failure = e;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            List<Consumer<ByteBuffer>> recipients;
+            lock.lock();
+            try {
+                durableSequence = target;
+                publishedBytes += flushing.limit();
+                recipients = subscribers;
+                if (next != null) {
+                    channel = next;
+                    currentSegment++;
+                    publishedBytes = 0;
+                }
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            // Subscribers added after the update above have this flush in their replay instead.
+            if (flushing.limit() > 0) {
+                for (Consumer<ByteBuffer> subscriber : recipients) {
+                    subscriber.accept(flushing.duplicate().rewind().asReadOnlyBuffer());
+                }
+            }
+            flushing.clear();
+        }
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(directory.resolve(segmentName(segment)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static void replaySegment(Path segment, Handler handler) {
+        replaySegment(segment, Long.MAX_VALUE, handler);
+    }
+
+    private static void replaySegment(Path segment, long maxBytes, Handler handler) {
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = Math.min(in.size(), maxBytes);
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int valid = JournalCodec.decode(buffer, handler);
+            if (valid < size) {
+                log.warn("Ignoring {} bytes of torn or corrupt records at the end of {}",
+                        size - valid, segment.getFileName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay journal segment " + segment, e);
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static String segmentName(long segment) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,131 @@
+package com.dws.challenge.repository.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Binary journal record layout: payload length (int), CRC32 of the payload (int), payload.
+ * The payload starts with a type byte; strings are an int byte count followed by UTF-8.
+ * Replication streams the same records, interleaved with marks that never reach segment files.
+ */
+public final class JournalCodec {
+
+    static final byte ACCOUNT_CREATED = 1;
+    static final byte POSTINGS = 2;
+    static final byte MARK = 3;
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private JournalCodec() {
+    }
+
+    public static ByteBuffer accountCreated(String accountId, long balanceMinorUnits) {
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = start(1 + Integer.BYTES + id.length + Long.BYTES, ACCOUNT_CREATED);
+        record.putInt(id.length).put(id).putLong(balanceMinorUnits);
+        return finish(record);
+    }
+
+    public static ByteBuffer postings(String[] accountIds, long[] deltasMinorUnits) {
+        byte[][] ids = new byte[accountIds.length][];
+        int size = 1 + Integer.BYTES;
+        for (int i = 0; i < accountIds.length; i++) {
+            ids[i] = accountIds[i].getBytes(StandardCharsets.UTF_8);
+            size += Integer.BYTES + ids[i].length + Long.BYTES;
+        }
+        ByteBuffer record = start(size, POSTINGS);
+        record.putInt(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            record.putInt(ids[i].length).put(ids[i]).putLong(deltasMinorUnits[i]);
+        }
+        return finish(record);
+    }
+
+    /**
+     * Replication only: tells the follower how long ago, by the leader's clock when the mark was
+     * sent, the records before it became durable.
+     */
+    public static ByteBuffer mark(long ageMillis) {
+        ByteBuffer record = start(1 + Long.BYTES, MARK);
+        record.putLong(ageMillis);
+        return finish(record);
+    }
+
+    /**
+     * Whether the bytes from the buffer's position are the beginning of a record whose rest has
+     * not arrived yet, rather than a corrupt record.
+     */
+    public static boolean isIncomplete(ByteBuffer buffer) {
+        return buffer.remaining() < HEADER_BYTES || buffer.getInt(buffer.position()) > buffer.remaining() - HEADER_BYTES;
+    }
+
+    /**
+     * Decodes records from the buffer's position until its limit, or until the first torn or
+     * corrupt record.
+     *
+     * @return the number of bytes taken by the complete, valid records
+     */
+    public static int decode(ByteBuffer buffer, AccountJournal.Handler handler) {
+        int start = buffer.position();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int recordStart = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(recordStart);
+                break;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(recordStart);
+                break;
+            }
+            apply(payload, handler);
+            buffer.position(buffer.position() + length);
+        }
+        return buffer.position() - start;
+    }
+
+    private static void apply(ByteBuffer payload, AccountJournal.Handler handler) {
+        byte type = payload.get();
+        if (type == ACCOUNT_CREATED) {
+            handler.accountCreated(readString(payload), payload.getLong());
+        } else if (type == POSTINGS) {
+            int count = payload.getInt();
+            String[] accountIds = new String[count];
+            long[] deltasMinorUnits = new long[count];
+            for (int i = 0; i < count; i++) {
+                accountIds[i] = readString(payload);
+                deltasMinorUnits[i] = payload.getLong();
+            }
+            handler.postings(accountIds, deltasMinorUnits);
+        } else if (type == MARK) {
+            handler.marked(payload.getLong());
+        } else {
+            throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer start(int payloadBytes, byte type) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadBytes);
+        record.putInt(payloadBytes).putInt(0).put(type);
+        return record;
+    }
+
+    private static ByteBuffer finish(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, record.capacity() - HEADER_BYTES);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        return record.flip();
+    }
+}
@@ -0,0 +1,41 @@
+package com.dws.challenge.repository.journal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "accounts.journal.enabled", havingValue = "true")
+public class JournalSnapshotScheduler {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-snapshotter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public JournalSnapshotScheduler(FileAccountJournal journal,
+                                    @Value("${accounts.journal.snapshot-interval-seconds:300}") long intervalSeconds) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                journal.snapshot();
+            } catch (Exception e) {
+                log.error("Journal snapshot failed", e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
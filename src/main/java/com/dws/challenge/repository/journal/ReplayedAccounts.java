@@ -0,0 +1,71 @@
+package com.dws.challenge.repository.journal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Account balances accumulated from journal records. Postings may be replayed before the
+ * creation record of their account, so accounts not yet seen as created are kept as well.
+ */
+public class ReplayedAccounts implements AccountJournal.Handler {
+
+    private static final class Entry {
+        boolean created;
+        long balanceMinorUnits;
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    @Override
+    public void accountCreated(String accountId, long balanceMinorUnits) {
+        Entry entry = entries.computeIfAbsent(accountId, id -> new Entry());
+        entry.created = true;
+        entry.balanceMinorUnits += balanceMinorUnits;
+    }
+
+    @Override
+    public void posted(String accountId, long deltaMinorUnits) {
+        entries.computeIfAbsent(accountId, id -> new Entry()).balanceMinorUnits += deltaMinorUnits;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Replays the accumulated state into another handler as one record per account.
+     */
+    public void replayInto(AccountJournal.Handler handler) {
+        forEach((accountId, created, balanceMinorUnits) -> {
+            if (created) {
+                handler.accountCreated(accountId, balanceMinorUnits);
+            } else {
+                handler.posted(accountId, balanceMinorUnits);
+            }
+        });
+    }
+
+    public void forEachCreated(CreatedAccountConsumer consumer) {
+        forEach((accountId, created, balanceMinorUnits) -> {
+            if (created) {
+                consumer.accept(accountId, balanceMinorUnits);
+            }
+        });
+    }
+
+    public <E extends Exception> void forEach(EntryVisitor<E> visitor) throws E {
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            visitor.visit(entry.getKey(), entry.getValue().created, entry.getValue().balanceMinorUnits);
+        }
+    }
+
+    @FunctionalInterface
+    public interface CreatedAccountConsumer {
+        void accept(String accountId, long balanceMinorUnits);
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor<E extends Exception> {
+        void visit(String accountId, boolean created, long balanceMinorUnits) throws E;
+    }
+}
@@ -0,0 +1,66 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed table of locks that accounts map onto by handle. Handles are dense, so consecutive
+ * accounts land on different stripes; an account no repository has given a handle is striped by
+ * a hash of its id instead. Locks are always taken in ascending stripe order, which
+ * is deadlock-free even when several accounts share a stripe.
+ *
+ * <p>Each stripe also carries a sequence number, odd while a writer holds the stripe, so readers
+ * can check without locking that no write touched their accounts while they read them.
+ */
+public class AccountLockTable {
+
+  // One sequence per cache line, so writers on neighbouring stripes do not false-share.
+  private static final int SEQUENCE_STRIDE = 8;
+
+  private final ReentrantLock[] stripes;
+  private final AtomicLongArray sequences;
+  private final int mask;
+
+  public AccountLockTable(int stripes) {
+    int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+    this.stripes = new ReentrantLock[size];
+    for (int i = 0; i < size; i++) {
+      this.stripes[i] = new ReentrantLock();
+    }
+    this.sequences = new AtomicLongArray(size * SEQUENCE_STRIDE);
+    this.mask = size - 1;
+  }
+
+  public int stripeOf(Account account) {
+    int handle = account.getHandle();
+    if (handle == Account.NO_HANDLE) {
+      int hash = account.getAccountId().hashCode();
+      return (hash ^ (hash >>> 16)) & mask;
+    }
+    return handle & mask;
+  }
+
+  /**
+   * Locks the stripe for writing; must not be called again by a thread already holding it.
+   */
+  public void acquire(int stripe) {
+    stripes[stripe].lock();
+    int index = stripe * SEQUENCE_STRIDE;
+    sequences.set(index, sequences.get(index) + 1);
+  }
+
+  public void release(int stripe) {
+    int index = stripe * SEQUENCE_STRIDE;
+    sequences.set(index, sequences.get(index) + 1);
+    stripes[stripe].unlock();
+  }
+
+  /**
+   * @return the stripe's write sequence, odd while a writer holds it
+   */
+  public long sequence(int stripe) {
+    return sequences.get(stripe * SEQUENCE_STRIDE);
+  }
+}
@@ -0,0 +1,168 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountImportError;
+import com.dws.challenge.domain.AccountImportFailure;
+import com.dws.challenge.domain.AccountImportResult;
+import com.dws.challenge.domain.Money;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InvalidImportException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams accounts in and out as newline-delimited JSON, one account object per line, holding
+ * only the current line in memory.
+ */
+@Service
+public class AccountsBulkService {
+
+  static final int MAX_REPORTED_ERRORS = 1000;
+
+  private final AccountsService accountsService;
+  private final HoldService holdService;
+  private final ObjectReader accountReader;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final int maxLineLength;
+
+  @Autowired
+  public AccountsBulkService(AccountsService accountsService, HoldService holdService, ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${accounts.import.max-line-length:4096}") int maxLineLength) {
+    this.accountsService = accountsService;
+    this.holdService = holdService;
+    this.accountReader = objectMapper.readerFor(Account.class);
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.maxLineLength = maxLineLength;
+  }
+
+  /**
+   * Creates an account per non-blank line. Duplicate and invalid lines are counted and reported
+   * without stopping the load; everything imported is durable once this returns.
+   *
+   * @throws InvalidImportException at the first line longer than the configured limit, which is
+   *                                never buffered beyond it; the lines before it stay imported
+   */
+  public AccountImportResult importAccounts(InputStream body) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    StringBuilder line = new StringBuilder();
+    List<AccountImportError> errors = new ArrayList<>();
+    long imported = 0;
+    long duplicates = 0;
+    long invalid = 0;
+    long lastSequence = 0;
+    long lineNumber = 0;
+
+    while (readLine(reader, line)) {
+      lineNumber++;
+      if (line.length() > maxLineLength) {
+        accountsService.awaitDurable(lastSequence);
+        throw new InvalidImportException("Line " + lineNumber + " is longer than " + maxLineLength
+          + " characters; the " + imported + " accounts before it were imported.");
+      }
+      String text = line.toString();
+      if (text.isBlank()) {
+        continue;
+      }
+      AccountImportFailure failure = null;
+      String message = null;
+      try {
+        Account account = accountReader.readValue(text);
+        Set<ConstraintViolation<Account>> violations = validator.validate(account);
+        if (violations.isEmpty()) {
+          lastSequence = accountsService.createAccountDeferred(account);
+          imported++;
+        } else {
+          failure = AccountImportFailure.INVALID;
+          message = violations.stream()
+            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+        }
+      } catch (DuplicateAccountIdException e) {
+        failure = AccountImportFailure.DUPLICATE;
+        message = e.getMessage();
+      } catch (JsonProcessingException e) {
+        failure = AccountImportFailure.INVALID;
+        message = e.getOriginalMessage();
+      }
+
+      if (failure == AccountImportFailure.DUPLICATE) {
+        duplicates++;
+      } else if (failure == AccountImportFailure.INVALID) {
+        invalid++;
+      }
+      if (failure != null && errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add(new AccountImportError(lineNumber, failure, message));
+      }
+    }
+
+    accountsService.awaitDurable(lastSequence);
+    return new AccountImportResult(imported, duplicates, invalid, errors);
+  }
+
+  /**
+   * Reads the next line into the builder without its terminator, stopping one character past the
+   * length limit.
+   *
+   * @return false at the end of the input
+   */
+  private boolean readLine(Reader reader, StringBuilder line) throws IOException {
+    line.setLength(0);
+    int c = reader.read();
+    if (c == -1) {
+      return false;
+    }
+    while (c != -1 && c != '\n') {
+      line.append((char) c);
+      if (line.length() > maxLineLength) {
+        return true;
+      }
+      c = reader.read();
+    }
+    return true;
+  }
+
+  /**
+   * Writes every account with its funds under open holds added back to its balance, as holds do
+   * not carry over to wherever the accounts are imported.
+   */
+  public void exportAccounts(OutputStream out) throws IOException {
+    try (SequenceWriter writer = objectMapper.writerFor(Account.class).withRootValueSeparator("\n")
+      .writeValues(out)) {
+      accountsService.getAccountsRepository().forEachAccount(account -> {
+        long reserved = holdService.reservedMinorUnits(account.getAccountId());
+        try {
+          writer.write(reserved == 0 ? account : new Account(account.getAccountId(),
+            Money.toDecimal(account.getBalanceMinorUnits() + reserved)));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
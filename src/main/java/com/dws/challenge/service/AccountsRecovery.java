@@ -0,0 +1,46 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.repository.journal.AccountJournal;
+import com.dws.challenge.repository.journal.ReplayedAccounts;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Rebuilds the accounts repository from the journal before the application serves requests.
+ */
+@Slf4j
+@Component
+public class AccountsRecovery {
+
+  private final AccountsService accountsService;
+  private final AccountJournal accountJournal;
+
+  @Autowired
+  public AccountsRecovery(AccountsService accountsService, AccountJournal accountJournal) {
+    this.accountsService = accountsService;
+    this.accountJournal = accountJournal;
+  }
+
+  @PostConstruct
+  public void recover() {
+    long started = System.nanoTime();
+    ReplayedAccounts replayed = new ReplayedAccounts();
+    accountJournal.replay(replayed);
+
+    int[] recovered = new int[1];
+    replayed.forEachCreated((accountId, balanceMinorUnits) -> {
+      Account account = new Account(accountId);
+      account.setBalanceMinorUnits(balanceMinorUnits);
+      accountsService.restoreAccount(account);
+      recovered[0]++;
+    });
+    if (recovered[0] > 0) {
+      log.info("Recovered {} accounts from the journal in {} ms", recovered[0],
+        (System.nanoTime() - started) / 1_000_000);
+    }
+  }
+}
@@ -1,75 +1,576 @@
 package com.dws.challenge.service;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResult;
+import com.dws.challenge.domain.Money;
+import com.dws.challenge.domain.TransferHistoryPage;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferLegResult;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.domain.TransferStatus;
+import com.dws.challenge.exception.AccountNotFoundException;
 import com.dws.challenge.exception.InsufficientBalanceException;
 import com.dws.challenge.exception.InvalidTransferRequestException;
+import com.dws.challenge.exception.UnsupportedByTransferEngineException;
+import com.dws.challenge.metrics.TransferMetrics;
 import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.audit.AuditRecord;
+import com.dws.challenge.repository.audit.DisabledTransferAuditLog;
+import com.dws.challenge.repository.audit.TransferAuditLog;
+import com.dws.challenge.repository.history.DisabledTransferHistory;
+import com.dws.challenge.repository.history.TransferHistory;
+import com.dws.challenge.repository.journal.AccountJournal;
+import com.dws.challenge.repository.journal.DisabledAccountJournal;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class AccountsService {
 
   @Getter
   private final AccountsRepository accountsRepository;
-  private final NotificationService notificationService;
+  private final NotificationDispatcher notificationDispatcher;
+  @Getter
+  private final TransferEngine transferEngine;
+  private final AccountJournal accountJournal;
+  private final TransferMetrics transferMetrics;
+  private final Set<String> hotAccountIds;
+  private final TransferHistory transferHistory;
+  private final TransferAuditLog transferAuditLog;
+
+  public AccountsService(AccountsRepository accountsRepository, NotificationDispatcher notificationDispatcher,
+                         TransferEngine transferEngine) {
+    this(accountsRepository, notificationDispatcher, transferEngine, new DisabledAccountJournal(),
+            new TransferMetrics(), Set.of(), new DisabledTransferHistory());
+  }
+
+  public AccountsService(AccountsRepository accountsRepository, NotificationDispatcher notificationDispatcher,
+                         TransferEngine transferEngine, AccountJournal accountJournal,
+                         TransferMetrics transferMetrics, Set<String> hotAccountIds,
+                         TransferHistory transferHistory) {
+    this(accountsRepository, notificationDispatcher, transferEngine, accountJournal, transferMetrics, hotAccountIds,
+            transferHistory, new DisabledTransferAuditLog());
+  }
 
   @Autowired
-  public AccountsService(AccountsRepository accountsRepository, NotificationService notificationService) {
+  public AccountsService(AccountsRepository accountsRepository, NotificationDispatcher notificationDispatcher,
+                         TransferEngine transferEngine, AccountJournal accountJournal,
+                         TransferMetrics transferMetrics,
+                         @Value("${accounts.hot-account-ids:}") Set<String> hotAccountIds,
+                         TransferHistory transferHistory, TransferAuditLog transferAuditLog) {
     this.accountsRepository = accountsRepository;
-    this.notificationService = notificationService;
+    this.notificationDispatcher = notificationDispatcher;
+    this.transferEngine = transferEngine;
+    this.accountJournal = accountJournal;
+    this.transferMetrics = transferMetrics;
+    this.hotAccountIds = Set.copyOf(hotAccountIds);
+    this.transferHistory = transferHistory;
+    this.transferAuditLog = transferAuditLog;
   }
 
   public void createAccount(Account account) {
-    this.accountsRepository.createAccount(account);
+    accountJournal.awaitDurable(createAccountDeferred(account));
+  }
+
+  /**
+   * Creates the account without waiting for its journal record to become durable, so that a bulk
+   * load shares flushes. The record is appended before the account becomes visible, so no
+   * transfer to it can be journaled ahead of it.
+   *
+   * @return the journal sequence to pass to {@link #awaitDurable}
+   */
+  public long createAccountDeferred(Account account) {
+    long[] journalSequence = new long[1];
+    register(account, () -> journalSequence[0] =
+            accountJournal.appendAccountCreated(account.getAccountId(), account.getBalanceMinorUnits()));
+    return journalSequence[0];
+  }
+
+  public void awaitDurable(long journalSequence) {
+    accountJournal.awaitDurable(journalSequence);
+  }
+
+  /**
+   * Registers an account rebuilt from persisted state, without journaling it again.
+   */
+  public void restoreAccount(Account account) {
+    register(account, () -> { });
+  }
+
+  private void register(Account account, Runnable beforeVisible) {
+    if (hotAccountIds.contains(account.getAccountId())) {
+      account.enableStripedCredits();
+    }
+    this.accountsRepository.createAccount(account, beforeVisible);
   }
 
   public Account getAccount(String accountId) {
     return this.accountsRepository.getAccount(accountId);
   }
 
+  /**
+   * Reads the balances of the given accounts as of one instant, without blocking transfers.
+   */
+  public BalanceSnapshot balanceSnapshot(List<String> accountIds) {
+    List<Account> accounts = new ArrayList<>(accountIds.size());
+    List<String> unknownAccountIds = new ArrayList<>();
+    Set<String> seen = new HashSet<>();
+    for (String accountId : accountIds) {
+      if (seen.add(accountId)) {
+        Account account = getAccount(accountId);
+        if (account == null) {
+          unknownAccountIds.add(accountId);
+        } else {
+          accounts.add(account);
+        }
+      }
+    }
+
+    long[] balances = transferEngine.snapshotBalances(accounts);
+    Map<String, BigDecimal> snapshot = new LinkedHashMap<>();
+    for (int i = 0; i < balances.length; i++) {
+      snapshot.put(accounts.get(i).getAccountId(), Money.toDecimal(balances[i]));
+    }
+    return new BalanceSnapshot(snapshot, unknownAccountIds);
+  }
+
+  /**
+   * Completed transfers of the account, newest first, within {@code [fromMillis, toMillis)}.
+   */
+  public TransferHistoryPage transferHistory(String accountId, long fromMillis, long toMillis, Long cursor,
+                                             int limit) {
+    if (getAccount(accountId) == null) {
+      throw new AccountNotFoundException("Account " + accountId + " does not exist.");
+    }
+    return transferHistory.page(accountId, fromMillis, toMillis, cursor, limit);
+  }
+
+  /**
+   * @throws InsufficientBalanceException if the source balance is lower than the amount
+   * @throws InvalidTransferRequestException for any other rejection
+   */
   public void transfer(String fromId, String toId, BigDecimal amount) {
-    if (Objects.equals(fromId, toId)) {
-      throw new InvalidTransferRequestException("Cannot transfer to the same account.");
+    TransferResult result = tryTransfer(fromId, toId, amount);
+    if (result == TransferResult.INSUFFICIENT_BALANCE) {
+      throw new InsufficientBalanceException(result.describe(fromId, toId));
+    }
+    if (!result.isCompleted()) {
+      throw new InvalidTransferRequestException(result.describe(fromId, toId));
     }
+  }
 
-    if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-      throw new InvalidTransferRequestException("Transfer amount must be greater than zero.");
+  /**
+   * Like {@link #transfer}, but reports rejections as a result rather than an exception, so a
+   * rejected transfer costs no more than an accepted one.
+   */
+  public TransferResult tryTransfer(String fromId, String toId, BigDecimal amount) {
+    long started = System.nanoTime();
+    TransferOutcome outcome = TransferOutcome.INVALID;
+    try {
+      TransferResult result = check(fromId, toId, amount);
+      if (result.isCompleted()) {
+        result = transferChecked(fromId, toId, amount);
+      }
+      outcome = result.getOutcome();
+      return result;
+    } finally {
+      transferMetrics.recordTransfer(outcome, System.nanoTime() - started);
     }
+  }
 
+  private TransferResult transferChecked(String fromId, String toId, BigDecimal amount) {
     Account fromAccount = getAccount(fromId);
     Account toAccount = getAccount(toId);
-
     if (fromAccount == null || toAccount == null) {
-      throw new InvalidTransferRequestException("Source or destination account does not exist.");
+      return TransferResult.ACCOUNT_NOT_FOUND;
+    }
+
+    long amountMinorUnits = Money.toMinorUnits(amount);
+    AuditRecord audit = prepareAudit(fromAccount, toAccount, amountMinorUnits);
+    JournalAppender journal = journalAppender();
+    TransferResult result = transferEngine.tryTransfer(fromAccount, toAccount, amountMinorUnits, journal);
+    if (result.isCompleted()) {
+      completeTransfer(fromAccount, toAccount, amount, journal, audit);
+    }
+    return result;
+  }
+
+  /**
+   * Encodes the audit record of a transfer before it is attempted, outside the account locks.
+   */
+  AuditRecord prepareAudit(Account fromAccount, Account toAccount, long amountMinorUnits) {
+    return transferAuditLog.prepare(fromAccount.getAccountId(), toAccount.getAccountId(), amountMinorUnits);
+  }
+
+  /**
+   * Waits for the journal record of a transfer the engine has applied, then for its audit record,
+   * and notifies it.
+   */
+  void completeTransfer(Account fromAccount, Account toAccount, BigDecimal amount, JournalAppender journal,
+                        AuditRecord audit) {
+    accountJournal.awaitDurable(journal.sequence);
+    transferAuditLog.append(List.of(audit));
+    notificationDispatcher.transferCompleted(fromAccount, toAccount, amount);
+  }
+
+  JournalAppender journalAppender() {
+    return new JournalAppender();
+  }
+
+  /**
+   * Counts a transfer made outside this service, such as a hold capture, with the others.
+   */
+  void recordTransfer(TransferOutcome outcome, long nanos) {
+    transferMetrics.recordTransfer(outcome, nanos);
+  }
+
+  /**
+   * Journals each transfer at the point the engine commits to it, and records it in the history
+   * once journaled, remembering the last journal sequence.
+   */
+  final class JournalAppender implements TransferEngine.CommitListener {
+
+    private long sequence;
+
+    @Override
+    public void committing(Account fromAccount, Account toAccount, long amountMinorUnits) {
+      String fromId = fromAccount.getAccountId();
+      String toId = toAccount.getAccountId();
+      sequence = accountJournal.appendTransfer(fromId, toId, amountMinorUnits);
+      transferHistory.record(fromId, toId, amountMinorUnits);
     }
+  }
 
-    Account firstLock = fromId.compareTo(toId) < 0 ? fromAccount : toAccount;
-    Account secondLock = fromId.compareTo(toId) < 0 ? toAccount : fromAccount;
+  /**
+   * Applies many transfers under a single acquisition of all involved account locks.
+   * Legs are applied in request order, so a leg may spend funds credited by an earlier one.
+   * Engines without multi-account locking apply best-effort batches leg by leg and reject
+   * all-or-nothing ones.
+   */
+  public BatchTransferResult transferBatch(List<TransferRequest> legs, BatchTransferMode mode) {
+    TransferLegResult[] results = new TransferLegResult[legs.size()];
+    long[] amounts = new long[legs.size()];
+    Account[][] resolved = new Account[legs.size()][];
+    Map<String, Account> involved = new HashMap<>();
 
-    synchronized (firstLock) {
-      synchronized (secondLock) {
-        if (fromAccount.getBalance().compareTo(amount) < 0) {
-          throw new InsufficientBalanceException("Account " + fromId + " has insufficient balance.");
+    if (mode == BatchTransferMode.ALL_OR_NOTHING && !transferEngine.supportsAccountLocking()) {
+      throw new UnsupportedByTransferEngineException("All-or-nothing batches require the locking transfer engine.");
+    }
+
+    for (int i = 0; i < legs.size(); i++) {
+      TransferRequest leg = legs.get(i);
+      try {
+        amounts[i] = validate(leg.getAccountFromId(), leg.getAccountToId(), leg.getAmount());
+        Account fromAccount = getAccount(leg.getAccountFromId());
+        Account toAccount = getAccount(leg.getAccountToId());
+        if (fromAccount == null || toAccount == null) {
+          throw new InvalidTransferRequestException("Source or destination account does not exist.");
         }
+        resolved[i] = new Account[] {fromAccount, toAccount};
+        involved.put(fromAccount.getAccountId(), fromAccount);
+        involved.put(toAccount.getAccountId(), toAccount);
+      } catch (InvalidTransferRequestException e) {
+        results[i] = new TransferLegResult(i, TransferStatus.REJECTED, e.getMessage());
+        if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+          return abortBatch(mode, results);
+        }
+      }
+    }
 
-        fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
-        toAccount.setBalance(toAccount.getBalance().add(amount));
+    AuditRecord[] audits = new AuditRecord[legs.size()];
+    for (int i = 0; i < legs.size(); i++) {
+      if (resolved[i] != null) {
+        audits[i] = prepareAudit(resolved[i][0], resolved[i][1], amounts[i]);
       }
     }
 
-    notify(fromId, toId, amount, fromAccount, toAccount);
+    if (!transferEngine.supportsAccountLocking()) {
+      JournalAppender journal = journalAppender();
+      for (int i = 0; i < legs.size(); i++) {
+        if (resolved[i] != null) {
+          TransferResult result = transferEngine.tryTransfer(resolved[i][0], resolved[i][1], amounts[i], journal);
+          if (!result.isCompleted()) {
+            results[i] = new TransferLegResult(i, TransferStatus.REJECTED,
+                    result.describe(resolved[i][0].getAccountId(), resolved[i][1].getAccountId()));
+          }
+        }
+      }
+      accountJournal.awaitDurable(journal.sequence);
+      return completeBatch(legs, mode, results, resolved, audits);
+    }
+
+    long[] journalSequence = new long[1];
+
+    boolean committed = transferEngine.withAccountsLocked(involved.values(), () -> {
+      // per account: {working balance, net change}
+      Map<Account, long[]> balances = new IdentityHashMap<>();
+      for (int i = 0; i < legs.size(); i++) {
+        if (resolved[i] == null) {
+          continue;
+        }
+        long amount = amounts[i];
+        Account fromAccount = resolved[i][0];
+        Account toAccount = resolved[i][1];
+        long[] fromBalance = balances.computeIfAbsent(fromAccount, a -> new long[] {a.getBalanceMinorUnits(), 0});
+        long[] toBalance = balances.computeIfAbsent(toAccount, a -> new long[] {a.getBalanceMinorUnits(), 0});
+        TransferResult result = fromBalance[0] < amount ? TransferResult.INSUFFICIENT_BALANCE
+                : toBalance[0] > Long.MAX_VALUE - amount ? TransferResult.BALANCE_OVERFLOW
+                : TransferResult.COMPLETED;
+        if (!result.isCompleted()) {
+          results[i] = new TransferLegResult(i, TransferStatus.REJECTED,
+                  result.describe(fromAccount.getAccountId(), toAccount.getAccountId()));
+          if (mode == BatchTransferMode.ALL_OR_NOTHING) {
+            return false;
+          }
+          continue;
+        }
+        toBalance[0] += amount;
+        toBalance[1] += amount;
+        fromBalance[0] -= amount;
+        fromBalance[1] -= amount;
+      }
+      Map<String, Long> postings = new HashMap<>();
+      balances.forEach((account, balance) -> {
+        if (balance[1] != 0) {
+          postings.put(account.getAccountId(), balance[1]);
+        }
+      });
+      if (!postings.isEmpty()) {
+        journalSequence[0] = accountJournal.appendPostings(postings);
+      }
+      for (int i = 0; i < legs.size(); i++) {
+        if (resolved[i] != null && results[i] == null) {
+          transferHistory.record(resolved[i][0].getAccountId(), resolved[i][1].getAccountId(), amounts[i]);
+        }
+      }
+      // Net changes rather than absolute balances, so lock-free striped credits are not overwritten.
+      balances.forEach((account, balance) -> {
+        if (balance[1] < 0) {
+          account.tryDebitMinorUnits(-balance[1]);
+        } else if (balance[1] > 0) {
+          account.creditMinorUnits(balance[1]);
+        }
+      });
+      return true;
+    });
+
+    if (!committed) {
+      return abortBatch(mode, results);
+    }
+    accountJournal.awaitDurable(journalSequence[0]);
+    return completeBatch(legs, mode, results, resolved, audits);
+  }
+
+  /**
+   * Applies every debit and credit or none of them, holding the lock-table stripes of all
+   * involved accounts, taken in ascending stripe order, while balances are checked and changed.
+   * Each account is changed once, by its net amount.
+   */
+  public void transferMultiLeg(List<TransferLeg> debits, List<TransferLeg> credits) {
+    long started = System.nanoTime();
+    TransferOutcome outcome = TransferOutcome.INVALID;
+    try {
+      if (!transferEngine.supportsAccountLocking()) {
+        throw new UnsupportedByTransferEngineException("Multi-leg transfers require the locking transfer engine.");
+      }
+      long[] debitAmounts = validateLegs(debits);
+      long[] creditAmounts = validateLegs(credits);
+      Map<String, Long> postings = new LinkedHashMap<>();
+      long debitTotal = addPostings(postings, debits, debitAmounts, -1);
+      int debitedAccounts = postings.size();
+      long creditTotal = addPostings(postings, credits, creditAmounts, 1);
+      if (credits.stream().map(TransferLeg::getAccountId).distinct().count() != postings.size() - debitedAccounts) {
+        throw new InvalidTransferRequestException("Cannot transfer to the same account.");
+      }
+      if (debitTotal != creditTotal) {
+        throw new InvalidTransferRequestException("Debits and credits must add up to the same amount.");
+      }
+
+      Map<String, Account> accounts = new LinkedHashMap<>();
+      for (String accountId : postings.keySet()) {
+        Account account = getAccount(accountId);
+        if (account == null) {
+          outcome = TransferOutcome.ACCOUNT_NOT_FOUND;
+          throw new InvalidTransferRequestException("Account " + accountId + " does not exist.");
+        }
+        accounts.put(accountId, account);
+      }
+
+      List<AuditRecord> audits = new ArrayList<>();
+      forEachSettlingPair(accounts, debits, debitAmounts, credits, creditAmounts,
+        (fromAccount, toAccount, amountMinorUnits) -> audits.add(prepareAudit(fromAccount, toAccount,
+          amountMinorUnits)));
+      long journalSequence;
+      try {
+        journalSequence = transferEngine.withAccountsLocked(accounts.values(), () -> {
+          postings.forEach((accountId, delta) -> {
+            Account account = accounts.get(accountId);
+            if (delta < 0 && account.getBalanceMinorUnits() < -delta) {
+              throw TransferEngine.insufficientBalance(account);
+            }
+            if (delta > 0) {
+              TransferEngine.addToBalance(account, account.getBalanceMinorUnits(), delta);
+            }
+          });
+          long sequence = accountJournal.appendPostings(postings);
+          forEachSettlingPair(accounts, debits, debitAmounts, credits, creditAmounts,
+            (fromAccount, toAccount, amountMinorUnits) -> transferHistory.record(fromAccount.getAccountId(),
+              toAccount.getAccountId(), amountMinorUnits));
+          // Debits first: under the locks they cannot fail once checked.
+          postings.forEach((accountId, delta) -> {
+            if (delta < 0) {
+              accounts.get(accountId).tryDebitMinorUnits(-delta);
+            }
+          });
+          postings.forEach((accountId, delta) -> {
+            if (delta > 0) {
+              accounts.get(accountId).creditMinorUnits(delta);
+            }
+          });
+          return sequence;
+        });
+      } catch (InsufficientBalanceException e) {
+        outcome = TransferOutcome.INSUFFICIENT_BALANCE;
+        throw e;
+      }
+      accountJournal.awaitDurable(journalSequence);
+      transferAuditLog.append(audits);
+      outcome = TransferOutcome.COMPLETED;
+
+      forEachSettlingPair(accounts, debits, debitAmounts, credits, creditAmounts,
+        (fromAccount, toAccount, amountMinorUnits) -> notificationDispatcher.transferCompleted(fromAccount,
+          toAccount, Money.toDecimal(amountMinorUnits)));
+    } finally {
+      transferMetrics.recordTransfer(outcome, System.nanoTime() - started);
+    }
   }
 
-  private void notify(String fromId, String toId, BigDecimal amount, Account fromAccount, Account toAccount) {
-    String fromMessage = String.format("Transferred %s to account %s", amount, toId);
-    String toMessage = String.format("Received %s from account %s", amount, fromId);
+  private static long[] validateLegs(List<TransferLeg> legs) {
+    long[] amounts = new long[legs.size()];
+    for (int i = 0; i < amounts.length; i++) {
+      amounts[i] = validate(legs.get(i).getAmount());
+    }
+    return amounts;
+  }
 
-    notificationService.notifyAboutTransfer(fromAccount, fromMessage);
-    notificationService.notifyAboutTransfer(toAccount, toMessage);
+  private static long addPostings(Map<String, Long> postings, List<TransferLeg> legs, long[] amounts, int sign) {
+    long total = 0;
+    try {
+      for (int i = 0; i < amounts.length; i++) {
+        total = Math.addExact(total, amounts[i]);
+        postings.merge(legs.get(i).getAccountId(), sign * amounts[i], Math::addExact);
+      }
+    } catch (ArithmeticException e) {
+      throw new InvalidTransferRequestException("Transfer amounts must add up to a value within the balance range.");
+    }
+    return total;
   }
-}
 
+  @FunctionalInterface
+  private interface PairAction {
+    void accept(Account fromAccount, Account toAccount, long amountMinorUnits);
+  }
+
+  /**
+   * Walks the multi-leg transfer as the pairwise transfers that settle it, which is how it is
+   * recorded and notified: debits are matched to credits in request order, each pair moving as
+   * much as both have left.
+   */
+  private static void forEachSettlingPair(Map<String, Account> accounts, List<TransferLeg> debits,
+                                          long[] debitAmounts, List<TransferLeg> credits, long[] creditAmounts,
+                                          PairAction action) {
+    long[] remaining = creditAmounts.clone();
+    int credit = 0;
+    for (int debit = 0; debit < debitAmounts.length; debit++) {
+      long left = debitAmounts[debit];
+      while (left > 0) {
+        long paired = Math.min(left, remaining[credit]);
+        action.accept(accounts.get(debits.get(debit).getAccountId()),
+          accounts.get(credits.get(credit).getAccountId()), paired);
+        left -= paired;
+        remaining[credit] -= paired;
+        if (remaining[credit] == 0) {
+          credit++;
+        }
+      }
+    }
+  }
+
+  private BatchTransferResult completeBatch(List<TransferRequest> legs, BatchTransferMode mode,
+                                            TransferLegResult[] results, Account[][] resolved,
+                                            AuditRecord[] audits) {
+    List<AuditRecord> committed = new ArrayList<>();
+    for (int i = 0; i < legs.size(); i++) {
+      if (results[i] == null) {
+        committed.add(audits[i]);
+      }
+    }
+    transferAuditLog.append(committed);
+    int completed = 0;
+    for (int i = 0; i < legs.size(); i++) {
+      if (results[i] == null) {
+        notificationDispatcher.transferCompleted(resolved[i][0], resolved[i][1], legs.get(i).getAmount());
+        results[i] = new TransferLegResult(i, TransferStatus.COMPLETED, null);
+        completed++;
+      }
+    }
+    return new BatchTransferResult(mode, completed, legs.size() - completed, List.of(results));
+  }
+
+  /**
+   * The rejection of a malformed request, or {@link TransferResult#COMPLETED} if it may go ahead.
+   */
+  private static TransferResult check(String fromId, String toId, BigDecimal amount) {
+    if (Objects.equals(fromId, toId)) {
+      return TransferResult.SAME_ACCOUNT;
+    }
+    if (amount == null || amount.signum() <= 0) {
+      return TransferResult.NON_POSITIVE_AMOUNT;
+    }
+    return Money.isRepresentable(amount) ? TransferResult.COMPLETED : TransferResult.UNREPRESENTABLE_AMOUNT;
+  }
+
+  private static long validate(String fromId, String toId, BigDecimal amount) {
+    if (Objects.equals(fromId, toId)) {
+      throw new InvalidTransferRequestException("Cannot transfer to the same account.");
+    }
+    return validate(amount);
+  }
+
+  private static long validate(BigDecimal amount) {
+    if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+      throw new InvalidTransferRequestException("Transfer amount must be greater than zero.");
+    }
+
+    try {
+      return Money.toMinorUnits(amount);
+    } catch (ArithmeticException e) {
+      throw new InvalidTransferRequestException(
+              "Transfer amount must have at most " + Money.SCALE + " decimal places and fit the balance range.");
+    }
+  }
+
+  private static BatchTransferResult abortBatch(BatchTransferMode mode, TransferLegResult[] results) {
+    List<TransferLegResult> aborted = new ArrayList<>(results.length);
+    for (int i = 0; i < results.length; i++) {
+      aborted.add(results[i] != null ? results[i] : new TransferLegResult(i, TransferStatus.ABORTED, null));
+    }
+    return new BatchTransferResult(mode, 0, results.length, aborted);
+  }
+}
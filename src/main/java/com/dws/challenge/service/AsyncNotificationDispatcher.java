@@ -0,0 +1,137 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.NotificationDispatchMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queues completed transfers on a bounded queue drained by a single dispatcher thread, which
+ * builds the messages and coalesces everything pending for one account into one notification.
+ * A full queue blocks the caller for at most {@code notifications.offer-timeout-ms}, after
+ * which the notification is dropped and counted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.dispatch", havingValue = "async", matchIfMissing = true)
+public class AsyncNotificationDispatcher implements NotificationDispatcher {
+
+  private record PendingTransfer(Account fromAccount, Account toAccount, BigDecimal amount) {
+  }
+
+  private final NotificationService notificationService;
+  private final BlockingQueue<PendingTransfer> queue;
+  private final int capacity;
+  private final int maxBatchSize;
+  private final long offerTimeoutMillis;
+  private final Thread worker;
+  private volatile boolean running = true;
+
+  private final LongAdder enqueued = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder batches = new LongAdder();
+
+  @Autowired
+  public AsyncNotificationDispatcher(NotificationService notificationService,
+                                     @Value("${notifications.queue-capacity:10000}") int capacity,
+                                     @Value("${notifications.max-batch-size:256}") int maxBatchSize,
+                                     @Value("${notifications.offer-timeout-ms:5}") long offerTimeoutMillis) {
+    this.notificationService = notificationService;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.capacity = capacity;
+    this.maxBatchSize = maxBatchSize;
+    this.offerTimeoutMillis = offerTimeoutMillis;
+    this.worker = new Thread(this::run, "notification-dispatcher");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  @Override
+  public void transferCompleted(Account fromAccount, Account toAccount, BigDecimal amount) {
+    PendingTransfer pending = new PendingTransfer(fromAccount, toAccount, amount);
+    try {
+      if (queue.offer(pending) || queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        enqueued.increment();
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    dropped.increment();
+  }
+
+  @Override
+  public NotificationDispatchMetrics metrics() {
+    return new NotificationDispatchMetrics(queue.size(), capacity, enqueued.sum(), dropped.sum(),
+      delivered.sum(), batches.sum());
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    running = false;
+    worker.interrupt();
+    worker.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  private void run() {
+    List<PendingTransfer> batch = new ArrayList<>(maxBatchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingTransfer first = running ? queue.take() : queue.poll();
+        if (first == null) {
+          break;
+        }
+        batch.add(first);
+      } catch (InterruptedException e) {
+        continue;
+      }
+      queue.drainTo(batch, maxBatchSize - 1);
+      try {
+        dispatch(batch);
+      } catch (RuntimeException e) {
+        log.error("Failed to dispatch {} transfer notifications", batch.size(), e);
+      }
+      batch.clear();
+    }
+  }
+
+  private void dispatch(List<PendingTransfer> batch) {
+    Map<Account, StringBuilder> messages = new IdentityHashMap<>();
+    for (PendingTransfer pending : batch) {
+      append(messages, pending.fromAccount(),
+        NotificationDispatcher.debitMessage(pending.amount(), pending.toAccount().getAccountId()));
+      append(messages, pending.toAccount(),
+        NotificationDispatcher.creditMessage(pending.amount(), pending.fromAccount().getAccountId()));
+    }
+    // One per notification sent, however many transfers were coalesced into it.
+    messages.forEach((account, message) -> {
+      notificationService.notifyAboutTransfer(account, message.toString());
+      delivered.increment();
+    });
+    batches.increment();
+  }
+
+  private static void append(Map<Account, StringBuilder> messages, Account account, String message) {
+    StringBuilder existing = messages.get(account);
+    if (existing == null) {
+      messages.put(account, new StringBuilder(message));
+    } else {
+      existing.append('\n').append(message);
+    }
+  }
+}
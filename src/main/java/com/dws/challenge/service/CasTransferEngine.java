@@ -0,0 +1,111 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.UnsupportedByTransferEngineException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free engine: the debit is a compare-and-set retry loop on the source balance and the
+ * credit an overflow-checked atomic add, so no thread ever parks on a hot account. The two
+ * steps are not one atomic unit: between them the amount has left the source but not yet
+ * reached the destination. That is where the commit listener runs, so a transfer spending the
+ * credit is always told after the transfer that made it.
+ */
+@Component
+@ConditionalOnProperty(name = "accounts.transfer.engine", havingValue = "cas")
+public class CasTransferEngine implements TransferEngine {
+
+  private static final long UNSETTLED_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Override
+  public TransferResult tryTransfer(Account fromAccount, Account toAccount, long amountMinorUnits,
+                                    CommitListener listener) {
+    if (!fromAccount.tryDebitMinorUnits(amountMinorUnits)) {
+      return TransferResult.INSUFFICIENT_BALANCE;
+    }
+    try {
+      listener.committing(fromAccount, toAccount, amountMinorUnits);
+    } catch (RuntimeException e) {
+      fromAccount.creditMinorUnits(amountMinorUnits);
+      throw e;
+    }
+    if (!TransferEngine.tryCredit(toAccount, amountMinorUnits)) {
+      refund(fromAccount, toAccount, amountMinorUnits, listener);
+      return TransferResult.BALANCE_OVERFLOW;
+    }
+    return TransferResult.COMPLETED;
+  }
+
+  /**
+   * Hands a committed debit back, telling the listener before the source can spend it again.
+   */
+  static void refund(Account fromAccount, Account toAccount, long amountMinorUnits, CommitListener listener) {
+    try {
+      listener.committing(toAccount, fromAccount, amountMinorUnits);
+    } finally {
+      fromAccount.creditMinorUnits(amountMinorUnits);
+    }
+  }
+
+  @Override
+  public TransferResult tryReserve(Account account, long amountMinorUnits) {
+    return account.tryDebitMinorUnits(amountMinorUnits) ? TransferResult.COMPLETED
+      : TransferResult.INSUFFICIENT_BALANCE;
+  }
+
+  /**
+   * Pays the captured part first, the way {@link #tryTransfer} does, so that a failed credit
+   * there leaves the reservation untouched. If the rest then cannot go back to the source, the
+   * capture is taken back only if the destination still has it; if it has already been spent,
+   * this waits until one of the two can be done, so the result never leaves half a settlement.
+   */
+  @Override
+  public TransferResult settleReserved(Account source, long heldMinorUnits, Account destination,
+                                       long capturedMinorUnits, CommitListener listener) {
+    long returnedMinorUnits = heldMinorUnits - capturedMinorUnits;
+    if (capturedMinorUnits > 0) {
+      listener.committing(source, destination, capturedMinorUnits);
+      if (!TransferEngine.tryCredit(destination, capturedMinorUnits)) {
+        listener.committing(destination, source, capturedMinorUnits);
+        return TransferResult.BALANCE_OVERFLOW;
+      }
+    }
+    if (returnedMinorUnits == 0) {
+      return TransferResult.COMPLETED;
+    }
+    while (!TransferEngine.tryCredit(source, returnedMinorUnits)) {
+      if (capturedMinorUnits == 0) {
+        return TransferResult.BALANCE_OVERFLOW;
+      }
+      if (destination.tryDebitMinorUnits(capturedMinorUnits)) {
+        listener.committing(destination, source, capturedMinorUnits);
+        return TransferResult.BALANCE_OVERFLOW;
+      }
+      LockSupport.parkNanos(UNSETTLED_RETRY_NANOS);
+    }
+    return TransferResult.COMPLETED;
+  }
+
+  @Override
+  public boolean supportsAccountLocking() {
+    return false;
+  }
+
+  @Override
+  public <T> T withAccountsLocked(Collection<Account> accounts, Supplier<T> action) {
+    throw new UnsupportedByTransferEngineException("Multi-account atomic operations require the locking transfer engine.");
+  }
+
+  @Override
+  public long[] snapshotBalances(List<Account> accounts) {
+    throw new UnsupportedByTransferEngineException("Consistent balance snapshots require the locking transfer engine.");
+  }
+}
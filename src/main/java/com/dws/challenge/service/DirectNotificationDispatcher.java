@@ -0,0 +1,39 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.NotificationDispatchMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Notifies both account holders on the calling thread.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.dispatch", havingValue = "direct")
+public class DirectNotificationDispatcher implements NotificationDispatcher {
+
+  private final NotificationService notificationService;
+  private final LongAdder delivered = new LongAdder();
+
+  public DirectNotificationDispatcher(NotificationService notificationService) {
+    this.notificationService = notificationService;
+  }
+
+  @Override
+  public void transferCompleted(Account fromAccount, Account toAccount, BigDecimal amount) {
+    notificationService.notifyAboutTransfer(fromAccount,
+      NotificationDispatcher.debitMessage(amount, toAccount.getAccountId()));
+    notificationService.notifyAboutTransfer(toAccount,
+      NotificationDispatcher.creditMessage(amount, fromAccount.getAccountId()));
+    delivered.add(2);
+  }
+
+  @Override
+  public NotificationDispatchMetrics metrics() {
+    long count = delivered.sum();
+    return new NotificationDispatchMetrics(0, 0, count, 0, count, 0);
+  }
+}
@@ -0,0 +1,324 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountFunds;
+import com.dws.challenge.domain.BalanceHold;
+import com.dws.challenge.domain.HoldRequest;
+import com.dws.challenge.domain.Money;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.AccountNotFoundException;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.InvalidTransferRequestException;
+import com.dws.challenge.repository.audit.AuditRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds reserve funds for a later capture or release. Placing a hold takes the amount out of the
+ * account's balance through the transfer engine, under the same locks as a transfer, so
+ * transfers keep checking the balance alone; the account's reserved total is kept here.
+ * Capturing pays the held amount out to another account, recorded as a transfer, and returns
+ * any remainder. Holds wait for their expiry in a {@link TimerWheel}, so expired holds are
+ * released without scanning accounts.
+ *
+ * <p>Holds are held in memory only and are not journaled: after a restart, replaying the journal
+ * restores the balances as if every open hold had been released.
+ */
+@Slf4j
+@Service
+public class HoldService {
+
+  private static final class Hold extends TimerWheel.Timer {
+    final long id;
+    final Account account;
+    final long amountMinorUnits;
+    final long expiresAtMillis;
+    // Set by whichever of capture, release and expiry is settling the hold; one that fails puts
+    // the hold back on the wheel before clearing it, as expiry may have taken it off meanwhile.
+    final AtomicBoolean settling = new AtomicBoolean();
+
+    Hold(long id, Account account, long amountMinorUnits, long expiresAtMillis) {
+      this.id = id;
+      this.account = account;
+      this.amountMinorUnits = amountMinorUnits;
+      this.expiresAtMillis = expiresAtMillis;
+    }
+  }
+
+  private final AccountsService accountsService;
+  private final TransferEngine transferEngine;
+  private final long defaultExpirySeconds;
+  private final long maxExpirySeconds;
+  private final long tickMillis;
+  private final Clock clock;
+  private final long originMillis;
+
+  private final ReentrantLock wheelLock = new ReentrantLock();
+  private final TimerWheel wheel = new TimerWheel(0);
+  private final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> reservedByAccount = new ConcurrentHashMap<>();
+  private final AtomicLong ids = new AtomicLong();
+
+  private final ScheduledExecutorService expiry = Executors.newSingleThreadScheduledExecutor(task -> {
+    Thread thread = new Thread(task, "hold-expiry");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public HoldService(AccountsService accountsService,
+                     @Value("${holds.default-expiry-seconds:604800}") long defaultExpirySeconds,
+                     @Value("${holds.max-expiry-seconds:2592000}") long maxExpirySeconds,
+                     @Value("${holds.expiry-tick-millis:1000}") long tickMillis) {
+    this(accountsService, defaultExpirySeconds, maxExpirySeconds, tickMillis, Clock.systemUTC());
+  }
+
+  public HoldService(AccountsService accountsService, long defaultExpirySeconds, long maxExpirySeconds,
+                     long tickMillis, Clock clock) {
+    this.accountsService = accountsService;
+    this.transferEngine = accountsService.getTransferEngine();
+    this.defaultExpirySeconds = defaultExpirySeconds;
+    this.maxExpirySeconds = maxExpirySeconds;
+    this.tickMillis = tickMillis;
+    this.clock = clock;
+    this.originMillis = clock.millis();
+  }
+
+  @PostConstruct
+  public void start() {
+    expiry.scheduleAtFixedRate(() -> {
+      try {
+        releaseExpired();
+      } catch (RuntimeException e) {
+        log.error("Releasing expired holds failed", e);
+      }
+    }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @throws AccountNotFoundException if the account does not exist
+   * @throws InsufficientBalanceException if the balance is lower than the amount
+   * @throws InvalidTransferRequestException if the amount or expiry is not acceptable
+   */
+  public BalanceHold placeHold(HoldRequest request) {
+    BigDecimal amount = request.getAmount();
+    if (amount == null || amount.signum() <= 0) {
+      throw new InvalidTransferRequestException("Hold amount must be greater than zero.");
+    }
+    if (!Money.isRepresentable(amount)) {
+      throw new InvalidTransferRequestException(TransferResult.UNREPRESENTABLE_AMOUNT.describe(null, null));
+    }
+    long expiresInSeconds = request.getExpiresInSeconds() != null ? request.getExpiresInSeconds()
+            : defaultExpirySeconds;
+    if (expiresInSeconds > maxExpirySeconds) {
+      throw new InvalidTransferRequestException("Holds may last at most " + maxExpirySeconds + " seconds.");
+    }
+    Account account = accountsService.getAccount(request.getAccountId());
+    if (account == null) {
+      throw new AccountNotFoundException("Account " + request.getAccountId() + " does not exist.");
+    }
+
+    long amountMinorUnits = Money.toMinorUnits(amount);
+    if (transferEngine.tryReserve(account, amountMinorUnits) != TransferResult.COMPLETED) {
+      throw new InsufficientBalanceException(
+              TransferResult.INSUFFICIENT_BALANCE.describe(account.getAccountId(), null));
+    }
+    reservedByAccount.computeIfAbsent(account.getAccountId(), id -> new AtomicLong()).addAndGet(amountMinorUnits);
+
+    long expiresAtMillis = clock.millis() + TimeUnit.SECONDS.toMillis(expiresInSeconds);
+    Hold hold = new Hold(ids.incrementAndGet(), account, amountMinorUnits, expiresAtMillis);
+    holds.put(hold.id, hold);
+    wheelLock.lock();
+    try {
+      wheel.schedule(hold, expiryTick(hold));
+    } finally {
+      wheelLock.unlock();
+    }
+    return view(hold);
+  }
+
+  /**
+   * @return the hold, or null if there is no such hold or it has been settled
+   */
+  public BalanceHold getHold(long id) {
+    Hold hold = holds.get(id);
+    return hold == null ? null : view(hold);
+  }
+
+  /**
+   * Pays the amount, or the whole hold if it is null, to the destination and returns the rest of
+   * the hold to its account. A rejected capture leaves the hold open. Captures are counted in
+   * the transfer metrics.
+   */
+  public TransferResult capture(long id, String toId, BigDecimal amount) {
+    long started = System.nanoTime();
+    TransferOutcome outcome = TransferOutcome.INVALID;
+    try {
+      TransferResult result = captureUntimed(id, toId, amount);
+      outcome = result.getOutcome();
+      return result;
+    } finally {
+      accountsService.recordTransfer(outcome, System.nanoTime() - started);
+    }
+  }
+
+  private TransferResult captureUntimed(long id, String toId, BigDecimal amount) {
+    Hold hold = holds.get(id);
+    if (hold == null) {
+      return TransferResult.HOLD_NOT_FOUND;
+    }
+    if (amount != null && !Money.isRepresentable(amount)) {
+      return TransferResult.UNREPRESENTABLE_AMOUNT;
+    }
+    long capturedMinorUnits = amount == null ? hold.amountMinorUnits : Money.toMinorUnits(amount);
+    if (capturedMinorUnits <= 0) {
+      return TransferResult.NON_POSITIVE_AMOUNT;
+    }
+    if (capturedMinorUnits > hold.amountMinorUnits) {
+      return TransferResult.CAPTURE_EXCEEDS_HOLD;
+    }
+    if (hold.account.getAccountId().equals(toId)) {
+      return TransferResult.SAME_ACCOUNT;
+    }
+    Account destination = accountsService.getAccount(toId);
+    if (destination == null) {
+      return TransferResult.ACCOUNT_NOT_FOUND;
+    }
+
+    AuditRecord audit = accountsService.prepareAudit(hold.account, destination, capturedMinorUnits);
+    if (!hold.settling.compareAndSet(false, true)) {
+      return TransferResult.HOLD_NOT_FOUND;
+    }
+    AccountsService.JournalAppender journal = accountsService.journalAppender();
+    TransferResult result = transferEngine.settleReserved(hold.account, hold.amountMinorUnits, destination,
+            capturedMinorUnits, journal);
+    if (!result.isCompleted()) {
+      reopen(hold);
+      return result;
+    }
+    settled(hold);
+    accountsService.completeTransfer(hold.account, destination,
+            amount != null ? amount : Money.toDecimal(capturedMinorUnits), journal, audit);
+    return result;
+  }
+
+  /**
+   * Returns the whole hold to its account.
+   */
+  public TransferResult release(long id) {
+    Hold hold = holds.get(id);
+    return hold == null ? TransferResult.HOLD_NOT_FOUND : release(hold);
+  }
+
+  public AccountFunds funds(String accountId) {
+    Account account = accountsService.getAccount(accountId);
+    if (account == null) {
+      throw new AccountNotFoundException("Account " + accountId + " does not exist.");
+    }
+    return new AccountFunds(accountId, account.getBalance(), Money.toDecimal(reservedMinorUnits(accountId)));
+  }
+
+  /**
+   * The total of the account's open holds, which its balance no longer includes.
+   */
+  public long reservedMinorUnits(String accountId) {
+    AtomicLong reserved = reservedByAccount.get(accountId);
+    return reserved == null ? 0 : reserved.get();
+  }
+
+  /**
+   * Releases every hold whose expiry time has passed.
+   */
+  public void releaseExpired() {
+    List<Hold> expired = new ArrayList<>();
+    wheelLock.lock();
+    try {
+      wheel.advance(Math.floorDiv(clock.millis() - originMillis, tickMillis), timer -> expired.add((Hold) timer));
+    } finally {
+      wheelLock.unlock();
+    }
+    for (Hold hold : expired) {
+      // A hold being captured meanwhile is put back on the wheel if the capture fails.
+      if (release(hold) == TransferResult.BALANCE_OVERFLOW) {
+        log.error("Expired hold {} on account {} could not be released; retrying", hold.id,
+                hold.account.getAccountId());
+      }
+    }
+  }
+
+  private TransferResult release(Hold hold) {
+    if (!hold.settling.compareAndSet(false, true)) {
+      return TransferResult.HOLD_NOT_FOUND;
+    }
+    TransferResult result = transferEngine.settleReserved(hold.account, hold.amountMinorUnits, null, 0);
+    if (!result.isCompleted()) {
+      reopen(hold);
+      return result;
+    }
+    settled(hold);
+    return result;
+  }
+
+  /**
+   * Leaves a hold whose settling failed open again, back on the wheel if expiry took it off.
+   * An expired hold is retried on the next tick.
+   */
+  private void reopen(Hold hold) {
+    wheelLock.lock();
+    try {
+      if (!hold.isScheduled()) {
+        wheel.schedule(hold, expiryTick(hold));
+      }
+    } finally {
+      wheelLock.unlock();
+    }
+    hold.settling.set(false);
+  }
+
+  /**
+   * Never before the expiry time: rounded up to the next tick.
+   */
+  private long expiryTick(Hold hold) {
+    return Math.floorDiv(hold.expiresAtMillis - originMillis + tickMillis - 1, tickMillis);
+  }
+
+  private void settled(Hold hold) {
+    holds.remove(hold.id);
+    reservedByAccount.get(hold.account.getAccountId()).addAndGet(-hold.amountMinorUnits);
+    wheelLock.lock();
+    try {
+      wheel.cancel(hold);
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+
+  private static BalanceHold view(Hold hold) {
+    return new BalanceHold(hold.id, hold.account.getAccountId(), Money.toDecimal(hold.amountMinorUnits),
+            Instant.ofEpochMilli(hold.expiresAtMillis));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    expiry.shutdown();
+  }
+}
@@ -0,0 +1,131 @@
+package com.dws.challenge.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Bounded map of recently seen keys whose entries expire a fixed time after insertion. Keys are
+ * spread over independently locked segments, each kept in insertion order so that expired and
+ * overflowing entries are always at its head. An entry whose value is not yet evictable, such as
+ * a request still in flight, is skipped by the size bound, so eviction scans at most past those.
+ */
+public class IdempotencyCache<V> {
+
+  private static final class Entry<V> {
+    final V value;
+    final long expiresAtNanos;
+
+    Entry(V value, long expiresAtNanos) {
+      this.value = value;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+
+  private static final class Segment<V> {
+    final ReentrantLock lock = new ReentrantLock();
+    final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>();
+  }
+
+  private final Segment<V>[] segments;
+  private final int mask;
+  private final int maxEntriesPerSegment;
+  private final long ttlNanos;
+  private final Predicate<V> evictable;
+  private final LongSupplier nanoClock;
+
+  public IdempotencyCache(int segments, int maxEntries, long ttlNanos, Predicate<V> evictable) {
+    this(segments, maxEntries, ttlNanos, evictable, System::nanoTime);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  IdempotencyCache(int segments, int maxEntries, long ttlNanos, Predicate<V> evictable, LongSupplier nanoClock) {
+    int size = Integer.highestOneBit(Math.max(1, segments - 1)) << 1;
+    this.segments = new Segment[size];
+    for (int i = 0; i < size; i++) {
+      this.segments[i] = new Segment<>();
+    }
+    this.mask = size - 1;
+    this.maxEntriesPerSegment = Math.max(1, maxEntries / size);
+    this.ttlNanos = ttlNanos;
+    this.evictable = evictable;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * @return the live value already stored for the key, or null after storing the given one
+   */
+  public V putIfAbsent(String key, V value) {
+    Segment<V> segment = segmentFor(key);
+    long now = nanoClock.getAsLong();
+    segment.lock.lock();
+    try {
+      evictExpired(segment, now);
+      Entry<V> existing = segment.entries.get(key);
+      if (existing != null) {
+        return existing.value;
+      }
+      if (segment.entries.size() >= maxEntriesPerSegment) {
+        evictEldest(segment);
+      }
+      segment.entries.put(key, new Entry<>(value, now + ttlNanos));
+      return null;
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  /**
+   * @return the live value stored for the key, or null
+   */
+  public V get(String key) {
+    Segment<V> segment = segmentFor(key);
+    long now = nanoClock.getAsLong();
+    segment.lock.lock();
+    try {
+      evictExpired(segment, now);
+      Entry<V> existing = segment.entries.get(key);
+      return existing == null ? null : existing.value;
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public void remove(String key, V value) {
+    Segment<V> segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+      Entry<V> existing = segment.entries.get(key);
+      if (existing != null && existing.value == value) {
+        segment.entries.remove(key);
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  private void evictEldest(Segment<V> segment) {
+    Iterator<Entry<V>> iterator = segment.entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (evictable.test(iterator.next().value)) {
+        iterator.remove();
+        return;
+      }
+    }
+  }
+
+  private void evictExpired(Segment<V> segment, long now) {
+    Iterator<Map.Entry<String, Entry<V>>> iterator = segment.entries.entrySet().iterator();
+    while (iterator.hasNext() && iterator.next().getValue().expiresAtNanos - now <= 0) {
+      iterator.remove();
+    }
+  }
+
+  private Segment<V> segmentFor(String key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & mask];
+  }
+}
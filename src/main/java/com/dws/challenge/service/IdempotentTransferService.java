@@ -0,0 +1,112 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.InvalidTransferRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs transfers carrying an idempotency key at most once while the key is remembered. A retry
+ * gets the outcome of the first attempt, waiting for it if that attempt is still running,
+ * without touching the accounts again. An attempt that fails unexpectedly changes nothing and is
+ * forgotten, so a retry waiting on it runs the transfer itself. Keys belong to the caller that
+ * sent them: the same key from another caller is another transfer.
+ */
+@Service
+public class IdempotentTransferService {
+
+  private record CompletedTransfer(String fromId, String toId, BigDecimal amount, TransferResult result) {
+  }
+
+  private final AccountsService accountsService;
+  private final IdempotencyCache<CompletableFuture<CompletedTransfer>> completed;
+
+  @Autowired
+  public IdempotentTransferService(AccountsService accountsService,
+                                   @Value("${transfers.idempotency.segments:64}") int segments,
+                                   @Value("${transfers.idempotency.max-keys:1000000}") int maxKeys,
+                                   @Value("${transfers.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+    this.accountsService = accountsService;
+    this.completed = new IdempotencyCache<>(segments, maxKeys, TimeUnit.SECONDS.toNanos(ttlSeconds),
+      CompletableFuture::isDone);
+  }
+
+  /**
+   * Looks the key up without claiming it, so that a retry of a transfer already made can be
+   * answered before it is admitted.
+   *
+   * @return the outcome of the earlier attempt with this key, once it has finished, or null if
+   *         there is none to replay
+   * @throws InvalidTransferRequestException if the key was already used for a different transfer
+   */
+  public TransferResult replay(String callerId, String idempotencyKey, String fromId, String toId,
+                               BigDecimal amount) {
+    if (idempotencyKey == null) {
+      return null;
+    }
+    CompletableFuture<CompletedTransfer> earlier = completed.get(cacheKey(callerId, idempotencyKey));
+    if (earlier == null) {
+      return null;
+    }
+    try {
+      return replay(earlier.join(), fromId, toId, amount);
+    } catch (CompletionException e) {
+      // The earlier attempt failed without effect; this one runs the transfer itself.
+      return null;
+    }
+  }
+
+  /**
+   * @throws InvalidTransferRequestException if the key was already used for a different transfer
+   */
+  public TransferResult transfer(String callerId, String idempotencyKey, String fromId, String toId,
+                                 BigDecimal amount) {
+    if (idempotencyKey == null) {
+      return accountsService.tryTransfer(fromId, toId, amount);
+    }
+    String key = cacheKey(callerId, idempotencyKey);
+
+    CompletableFuture<CompletedTransfer> attempt = new CompletableFuture<>();
+    CompletableFuture<CompletedTransfer> earlier;
+    while ((earlier = completed.putIfAbsent(key, attempt)) != null) {
+      try {
+        return replay(earlier.join(), fromId, toId, amount);
+      } catch (CompletionException e) {
+        // The earlier attempt failed without effect and has already forgotten the key.
+      }
+    }
+
+    try {
+      TransferResult result = accountsService.tryTransfer(fromId, toId, amount);
+      attempt.complete(new CompletedTransfer(fromId, toId, amount, result));
+      return result;
+    } catch (RuntimeException e) {
+      // Unexpected failures are not remembered, so the client may retry them.
+      completed.remove(key, attempt);
+      attempt.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Prefixed with the caller id's length, so no caller can make its keys collide with another's.
+   */
+  private static String cacheKey(String callerId, String idempotencyKey) {
+    return callerId.length() + ":" + callerId + idempotencyKey;
+  }
+
+  private static TransferResult replay(CompletedTransfer earlier, String fromId, String toId, BigDecimal amount) {
+    if (!Objects.equals(earlier.fromId(), fromId) || !Objects.equals(earlier.toId(), toId)
+      || earlier.amount().compareTo(amount) != 0) {
+      throw new InvalidTransferRequestException("Idempotency key was already used for a different transfer.");
+    }
+    return earlier.result();
+  }
+}
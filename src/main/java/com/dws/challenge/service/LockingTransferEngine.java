@@ -0,0 +1,222 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.SnapshotUnavailableException;
+import com.dws.challenge.metrics.TransferMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Takes the lock-table stripes of both accounts in ascending stripe order to avoid deadlocks,
+ * one stripe if both accounts share it. A destination with striped credits is credited lock-free,
+ * so only the source stripe is taken. The commit listener runs with the stripes held, after the
+ * checks and before either balance changes.
+ */
+@Component
+@ConditionalOnProperty(name = "accounts.transfer.engine", havingValue = "locking", matchIfMissing = true)
+public class LockingTransferEngine implements TransferEngine {
+
+  static final int DEFAULT_LOCK_STRIPES = 4096;
+  private static final int SNAPSHOT_ATTEMPTS = 20;
+  private static final int SPINNING_SNAPSHOT_ATTEMPTS = 4;
+  private static final long MAX_SNAPSHOT_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private final TransferMetrics transferMetrics;
+  private final AccountLockTable locks;
+
+  public LockingTransferEngine() {
+    this(new TransferMetrics(), DEFAULT_LOCK_STRIPES);
+  }
+
+  public LockingTransferEngine(TransferMetrics transferMetrics) {
+    this(transferMetrics, DEFAULT_LOCK_STRIPES);
+  }
+
+  @Autowired
+  public LockingTransferEngine(TransferMetrics transferMetrics,
+                               @Value("${accounts.lock-stripes:" + DEFAULT_LOCK_STRIPES + "}") int lockStripes) {
+    this.transferMetrics = transferMetrics;
+    this.locks = new AccountLockTable(lockStripes);
+  }
+
+  @Override
+  public TransferResult tryTransfer(Account fromAccount, Account toAccount, long amountMinorUnits,
+                                    CommitListener listener) {
+    long requested = System.nanoTime();
+    int fromStripe = locks.stripeOf(fromAccount);
+    int toStripe = locks.stripeOf(toAccount);
+    if (toAccount.hasStripedCredits() || fromStripe == toStripe) {
+      locks.acquire(fromStripe);
+      long acquired = System.nanoTime();
+      try {
+        return move(fromAccount, toAccount, amountMinorUnits, listener);
+      } finally {
+        transferMetrics.recordLock(fromAccount, acquired - requested, System.nanoTime() - acquired);
+        locks.release(fromStripe);
+      }
+    }
+
+    boolean fromFirst = fromStripe < toStripe;
+    Account firstAccount = fromFirst ? fromAccount : toAccount;
+    Account secondAccount = fromFirst ? toAccount : fromAccount;
+    int firstStripe = Math.min(fromStripe, toStripe);
+    int secondStripe = Math.max(fromStripe, toStripe);
+
+    locks.acquire(firstStripe);
+    try {
+      long firstAcquired = System.nanoTime();
+      locks.acquire(secondStripe);
+      long acquired = System.nanoTime();
+      try {
+        return move(fromAccount, toAccount, amountMinorUnits, listener);
+      } finally {
+        transferMetrics.recordLocks(firstAccount, firstAcquired - requested, secondAccount,
+          acquired - firstAcquired, System.nanoTime() - acquired);
+        locks.release(secondStripe);
+      }
+    } finally {
+      locks.release(firstStripe);
+    }
+  }
+
+  @Override
+  public TransferResult tryReserve(Account account, long amountMinorUnits) {
+    int stripe = locks.stripeOf(account);
+    locks.acquire(stripe);
+    try {
+      if (account.getBalanceMinorUnits() < amountMinorUnits) {
+        return TransferResult.INSUFFICIENT_BALANCE;
+      }
+      account.tryDebitMinorUnits(amountMinorUnits);
+      return TransferResult.COMPLETED;
+    } finally {
+      locks.release(stripe);
+    }
+  }
+
+  @Override
+  public TransferResult settleReserved(Account source, long heldMinorUnits, Account destination,
+                                       long capturedMinorUnits, CommitListener listener) {
+    int sourceStripe = locks.stripeOf(source);
+    int destinationStripe = destination == null ? sourceStripe : locks.stripeOf(destination);
+    int firstStripe = Math.min(sourceStripe, destinationStripe);
+    int secondStripe = Math.max(sourceStripe, destinationStripe);
+    locks.acquire(firstStripe);
+    try {
+      if (secondStripe == firstStripe) {
+        return TransferEngine.settle(source, heldMinorUnits, destination, capturedMinorUnits, listener);
+      }
+      locks.acquire(secondStripe);
+      try {
+        return TransferEngine.settle(source, heldMinorUnits, destination, capturedMinorUnits, listener);
+      } finally {
+        locks.release(secondStripe);
+      }
+    } finally {
+      locks.release(firstStripe);
+    }
+  }
+
+  @Override
+  public boolean supportsAccountLocking() {
+    return true;
+  }
+
+  @Override
+  public <T> T withAccountsLocked(Collection<Account> accounts, Supplier<T> action) {
+    int[] stripes = stripesOf(accounts);
+    int locked = 0;
+    try {
+      for (; locked < stripes.length; locked++) {
+        locks.acquire(stripes[locked]);
+      }
+      return action.get();
+    } finally {
+      while (locked > 0) {
+        locks.release(stripes[--locked]);
+      }
+    }
+  }
+
+  /**
+   * Reads the balances optimistically, seqlock style: the read is kept only if no stripe of the
+   * accounts was written during it, so readers never block transfers. Failed attempts are retried
+   * after a growing pause, a few tens of milliseconds in all, and the stripes are never locked.
+   *
+   * @throws SnapshotUnavailableException if the accounts were written during every attempt
+   */
+  @Override
+  public long[] snapshotBalances(List<Account> accounts) {
+    int[] stripes = stripesOf(accounts);
+    long[] sequences = new long[stripes.length];
+    long[] balances = new long[accounts.size()];
+    long backoffNanos = TimeUnit.MICROSECONDS.toNanos(1);
+    for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+      if (readSequences(stripes, sequences)) {
+        for (int i = 0; i < balances.length; i++) {
+          balances[i] = accounts.get(i).getBalanceMinorUnits();
+        }
+        if (sequencesUnchanged(stripes, sequences)) {
+          return balances;
+        }
+      }
+      if (attempt < SPINNING_SNAPSHOT_ATTEMPTS) {
+        Thread.onSpinWait();
+      } else {
+        LockSupport.parkNanos(backoffNanos);
+        backoffNanos = Math.min(backoffNanos * 2, MAX_SNAPSHOT_BACKOFF_NANOS);
+      }
+    }
+    throw new SnapshotUnavailableException("The accounts kept changing while they were read; retry the snapshot.");
+  }
+
+  private int[] stripesOf(Collection<Account> accounts) {
+    return accounts.stream().mapToInt(locks::stripeOf).sorted().distinct().toArray();
+  }
+
+  private boolean readSequences(int[] stripes, long[] sequences) {
+    for (int i = 0; i < stripes.length; i++) {
+      sequences[i] = locks.sequence(stripes[i]);
+      if ((sequences[i] & 1) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean sequencesUnchanged(int[] stripes, long[] sequences) {
+    for (int i = 0; i < stripes.length; i++) {
+      if (locks.sequence(stripes[i]) != sequences[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static TransferResult move(Account fromAccount, Account toAccount, long amountMinorUnits,
+                                     CommitListener listener) {
+    if (fromAccount.getBalanceMinorUnits() < amountMinorUnits) {
+      return TransferResult.INSUFFICIENT_BALANCE;
+    }
+    if (TransferEngine.wouldOverflow(toAccount, amountMinorUnits)) {
+      return TransferResult.BALANCE_OVERFLOW;
+    }
+    listener.committing(fromAccount, toAccount, amountMinorUnits);
+    // Can only fail for a destination with striped credits, which other transfers credit unlocked.
+    if (!TransferEngine.tryCredit(toAccount, amountMinorUnits)) {
+      listener.committing(toAccount, fromAccount, amountMinorUnits);
+      return TransferResult.BALANCE_OVERFLOW;
+    }
+    fromAccount.tryDebitMinorUnits(amountMinorUnits);
+    return TransferResult.COMPLETED;
+  }
+}
@@ -0,0 +1,42 @@
+package com.dws.challenge.service;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets at most a fixed number of log lines a second through and counts the rest, so the next
+ * line let through can say how many were dropped. Checking is one compare-and-set.
+ */
+public class LogRateCap {
+
+  private static final String KEY = "log";
+
+  private final RateLimiterTable limiter;
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * @param maxPerSecond zero or less lets every line through
+   */
+  public LogRateCap(int maxPerSecond, LongSupplier nanoClock) {
+    this.limiter = new RateLimiterTable(1, maxPerSecond, maxPerSecond, nanoClock);
+  }
+
+  /**
+   * @return -1 if the line is to be dropped, otherwise how many were dropped since the last one
+   *         let through
+   */
+  public long tryLog() {
+    if (!limiter.tryAcquire(KEY)) {
+      dropped.increment();
+      return -1;
+    }
+    return dropped.sumThenReset();
+  }
+
+  /**
+   * Lines dropped since the last one let through.
+   */
+  public long dropped() {
+    return dropped.sum();
+  }
+}
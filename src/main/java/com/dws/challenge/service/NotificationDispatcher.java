@@ -0,0 +1,25 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.NotificationDispatchMetrics;
+
+import java.math.BigDecimal;
+
+/**
+ * Hands completed transfers to the {@link NotificationService}. Selected with
+ * {@code notifications.dispatch}.
+ */
+public interface NotificationDispatcher {
+
+  void transferCompleted(Account fromAccount, Account toAccount, BigDecimal amount);
+
+  NotificationDispatchMetrics metrics();
+
+  static String debitMessage(BigDecimal amount, String toId) {
+    return "Transferred " + amount + " to account " + toId;
+  }
+
+  static String creditMessage(BigDecimal amount, String fromId) {
+    return "Received " + amount + " from account " + fromId;
+  }
+}
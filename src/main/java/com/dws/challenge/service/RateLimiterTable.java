@@ -0,0 +1,82 @@
+package com.dws.challenge.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed table of token buckets that keys map onto by hash, so memory stays bounded however many
+ * keys are seen. Each bucket is a single theoretical arrival time (the generic cell rate
+ * algorithm): a request is admitted if, after adding one emission interval, that time is no
+ * more than a burst ahead of now. Admission is one compare-and-set and allocates nothing. Keys
+ * sharing a slot share a bucket.
+ */
+public class RateLimiterTable {
+
+  // One bucket per cache line, so hot buckets in neighbouring slots do not false-share.
+  private static final int SLOT_STRIDE = 8;
+
+  private final AtomicLongArray arrivals;
+  private final int mask;
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final LongSupplier nanoClock;
+  private final long origin;
+
+  /**
+   * @param ratePerSecond sustained rate; zero or less admits everything
+   */
+  public RateLimiterTable(int slots, double ratePerSecond, int burst, LongSupplier nanoClock) {
+    int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+    this.arrivals = new AtomicLongArray(size * SLOT_STRIDE);
+    this.mask = size - 1;
+    this.intervalNanos = ratePerSecond > 0 ? Math.max(1, (long) (1e9 / ratePerSecond)) : 0;
+    this.burstNanos = intervalNanos * Math.max(1, burst);
+    this.nanoClock = nanoClock;
+    // Times are kept relative to construction, so a zeroed slot is a full bucket.
+    this.origin = nanoClock.getAsLong();
+  }
+
+  /**
+   * @return how long until {@link #tryAcquire} would admit the key, 0 if it would now
+   */
+  public long waitNanos(String key) {
+    if (intervalNanos == 0) {
+      return 0;
+    }
+    long now = nanoClock.getAsLong() - origin;
+    long next = Math.max(arrivals.get(slotOf(key) * SLOT_STRIDE), now) + intervalNanos;
+    return Math.max(0, next - now - burstNanos);
+  }
+
+  public boolean tryAcquire(String key) {
+    if (intervalNanos == 0) {
+      return true;
+    }
+    int index = slotOf(key) * SLOT_STRIDE;
+    long now = nanoClock.getAsLong() - origin;
+    while (true) {
+      long arrival = arrivals.get(index);
+      long next = Math.max(arrival, now) + intervalNanos;
+      if (next - now > burstNanos) {
+        return false;
+      }
+      if (arrivals.compareAndSet(index, arrival, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gives back a token taken by {@link #tryAcquire} for a request that was not admitted after all.
+   */
+  public void refund(String key) {
+    if (intervalNanos != 0) {
+      arrivals.addAndGet(slotOf(key) * SLOT_STRIDE, -intervalNanos);
+    }
+  }
+
+  private int slotOf(String key) {
+    int hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+}
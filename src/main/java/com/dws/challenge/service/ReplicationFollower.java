@@ -0,0 +1,234 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.ReplicationMetrics;
+import com.dws.challenge.repository.journal.AccountJournal;
+import com.dws.challenge.repository.journal.JournalCodec;
+import com.dws.challenge.repository.journal.ReplayedAccounts;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot standby: applies the journal shipped by a {@link ReplicationLeader} to the local accounts
+ * repository, which then serves balance reads while writes are refused. Every connection starts
+ * with the leader's whole state, which is gathered aside and only then swapped in, so accounts
+ * stay readable, at their last applied balances, while the follower reconnects.
+ *
+ * <p>The postings of each record, like the swap, are applied with their accounts locked in the
+ * transfer engine, so balance snapshots never see one leg of a transfer without the other.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "accounts.replication.role", havingValue = "follower")
+public class ReplicationFollower implements AccountJournal.Handler {
+
+  private static final int INITIAL_BUFFER_BYTES = 1 << 16;
+
+  private final AccountsService accountsService;
+  private final InetSocketAddress leader;
+  private final long reconnectMillis;
+
+  private final Thread receiver = new Thread(this::receiveLoop, "replication-follower");
+  // Postings for accounts whose creation record is still to come; receiver thread only.
+  private final Map<String, Long> pendingDeltas = new HashMap<>();
+  // The leader's state until the mark that ends it; receiver thread only.
+  private ReplayedAccounts bootstrapping;
+  private final LongAdder bootstraps = new LongAdder();
+  private final LongAdder appliedBytes = new LongAdder();
+  private volatile boolean connected;
+  private volatile boolean marked;
+  // When, by this host's clock, the last applied records became durable on the leader.
+  private volatile long durableNanos;
+  private volatile boolean running = true;
+  private SocketChannel channel;
+
+  @Autowired
+  public ReplicationFollower(AccountsService accountsService,
+                             @Value("${accounts.replication.leader-host:localhost}") String leaderHost,
+                             @Value("${accounts.replication.leader-port:18091}") int leaderPort,
+                             @Value("${accounts.replication.reconnect-millis:1000}") long reconnectMillis) {
+    this(accountsService, InetSocketAddress.createUnresolved(leaderHost, leaderPort), reconnectMillis);
+  }
+
+  public ReplicationFollower(AccountsService accountsService, InetSocketAddress leader, long reconnectMillis) {
+    this.accountsService = accountsService;
+    this.leader = leader;
+    this.reconnectMillis = reconnectMillis;
+    this.receiver.setDaemon(true);
+  }
+
+  @PostConstruct
+  public void start() {
+    receiver.start();
+  }
+
+  public ReplicationMetrics metrics() {
+    return new ReplicationMetrics("follower", connected ? 1 : 0, bootstraps.sum(), appliedBytes.sum(),
+      marked ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - durableNanos) : -1);
+  }
+
+  @Override
+  public void accountCreated(String accountId, long balanceMinorUnits) {
+    if (bootstrapping != null) {
+      bootstrapping.accountCreated(accountId, balanceMinorUnits);
+      return;
+    }
+    Long pending = pendingDeltas.remove(accountId);
+    Account account = new Account(accountId);
+    account.setBalanceMinorUnits(pending == null ? balanceMinorUnits : balanceMinorUnits + pending);
+    accountsService.restoreAccount(account);
+  }
+
+  @Override
+  public void posted(String accountId, long deltaMinorUnits) {
+    postings(new String[] {accountId}, new long[] {deltaMinorUnits});
+  }
+
+  @Override
+  public void postings(String[] accountIds, long[] deltasMinorUnits) {
+    if (bootstrapping != null) {
+      bootstrapping.postings(accountIds, deltasMinorUnits);
+      return;
+    }
+    Account[] accounts = new Account[accountIds.length];
+    List<Account> present = new ArrayList<>(accountIds.length);
+    for (int i = 0; i < accountIds.length; i++) {
+      accounts[i] = accountsService.getAccount(accountIds[i]);
+      if (accounts[i] == null) {
+        pendingDeltas.merge(accountIds[i], deltasMinorUnits[i], Long::sum);
+      } else {
+        present.add(accounts[i]);
+      }
+    }
+    // The only writer, so the leader's checks need not be repeated.
+    withLocked(present, () -> {
+      for (int i = 0; i < accounts.length; i++) {
+        if (accounts[i] != null) {
+          accounts[i].creditMinorUnits(deltasMinorUnits[i]);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void marked(long ageMillis) {
+    if (bootstrapping != null) {
+      swapIn(bootstrapping);
+      bootstrapping = null;
+      bootstraps.increment();
+    }
+    durableNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ageMillis);
+    marked = true;
+  }
+
+  @PreDestroy
+  public void close() throws IOException, InterruptedException {
+    running = false;
+    SocketChannel current = channel;
+    if (current != null) {
+      current.close();
+    }
+    receiver.join(reconnectMillis);
+  }
+
+  private void receiveLoop() {
+    while (running) {
+      try (SocketChannel opened = SocketChannel.open(new InetSocketAddress(leader.getHostString(), leader.getPort()))) {
+        channel = opened;
+        bootstrapping = new ReplayedAccounts();
+        connected = true;
+        log.info("Following leader {}:{}", leader.getHostString(), leader.getPort());
+        receive(opened);
+      } catch (IOException e) {
+        if (running) {
+          log.warn("Lost the leader {}:{}: {}", leader.getHostString(), leader.getPort(), e.getMessage());
+        }
+      } finally {
+        connected = false;
+        bootstrapping = null;
+      }
+      try {
+        Thread.sleep(reconnectMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private void receive(SocketChannel opened) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+    while (running) {
+      if (opened.read(buffer) < 0) {
+        throw new EOFException("Leader closed the connection");
+      }
+      buffer.flip();
+      appliedBytes.add(JournalCodec.decode(buffer, this));
+      if (buffer.hasRemaining() && !JournalCodec.isIncomplete(buffer)) {
+        throw new IOException("Corrupt record in the replication stream");
+      }
+      buffer.compact();
+      if (!buffer.hasRemaining()) {
+        ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+        grown.put(buffer.flip());
+        buffer = grown;
+      }
+    }
+  }
+
+  /**
+   * Replaces the balances of accounts the follower already has with the leader's, all at once, and
+   * adds the accounts it lacks. Accounts the leader does not know are left as they are.
+   */
+  private void swapIn(ReplayedAccounts leaderState) {
+    Map<Account, Long> known = new IdentityHashMap<>();
+    List<Account> added = new ArrayList<>();
+    pendingDeltas.clear();
+    leaderState.forEach((accountId, created, balanceMinorUnits) -> {
+      if (!created) {
+        pendingDeltas.put(accountId, balanceMinorUnits);
+        return;
+      }
+      Account account = accountsService.getAccount(accountId);
+      if (account != null) {
+        known.put(account, balanceMinorUnits);
+      } else {
+        account = new Account(accountId);
+        account.setBalanceMinorUnits(balanceMinorUnits);
+        added.add(account);
+      }
+    });
+    withLocked(known.keySet(), () -> known.forEach(Account::setBalanceMinorUnits));
+    added.forEach(accountsService::restoreAccount);
+  }
+
+  private void withLocked(Collection<Account> accounts, Runnable change) {
+    TransferEngine transferEngine = accountsService.getTransferEngine();
+    if (accounts.isEmpty() || !transferEngine.supportsAccountLocking()) {
+      change.run();
+      return;
+    }
+    transferEngine.withAccountsLocked(accounts, () -> {
+      change.run();
+      return null;
+    });
+  }
+}
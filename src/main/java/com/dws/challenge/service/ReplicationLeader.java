@@ -0,0 +1,248 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.ReplicationMetrics;
+import com.dws.challenge.repository.journal.AccountJournal;
+import com.dws.challenge.repository.journal.FileAccountJournal;
+import com.dws.challenge.repository.journal.JournalCodec;
+import com.dws.challenge.repository.journal.ReplayedAccounts;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Ships the journal to hot-standby followers over TCP. A follower that connects is first sent the
+ * journal as it stands, folded into one record per account, then every later flush as raw journal
+ * records, each followed by a mark carrying how long it has been durable; idle connections get a
+ * mark every heartbeat. Ages are measured on the leader alone, so followers need no synchronised
+ * clock. Only durable records are shipped, so a follower never runs ahead of what
+ * the leader would recover after a crash.
+ *
+ * <p>Each follower has its own sender thread and queue; one that falls too far behind is
+ * disconnected rather than allowed to hold the leader's memory, and starts over when it reconnects.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "accounts.replication.role", havingValue = "leader")
+public class ReplicationLeader {
+
+  private static final int SEND_BUFFER_BYTES = 1 << 16;
+
+  private final FileAccountJournal journal;
+  private final int port;
+  private final long heartbeatMillis;
+  private final long maxQueuedBytes;
+
+  private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+  private final LongAdder bootstraps = new LongAdder();
+  private final LongAdder shippedBytes = new LongAdder();
+  private ServerSocketChannel server;
+  private volatile boolean running = true;
+
+  @Autowired
+  public ReplicationLeader(AccountJournal accountJournal,
+                           @Value("${accounts.replication.port:18091}") int port,
+                           @Value("${accounts.replication.heartbeat-millis:100}") long heartbeatMillis,
+                           @Value("${accounts.replication.max-queued-bytes:67108864}") long maxQueuedBytes) {
+    if (!(accountJournal instanceof FileAccountJournal fileJournal)) {
+      throw new IllegalStateException("A replication leader needs accounts.journal.enabled=true");
+    }
+    this.journal = fileJournal;
+    this.port = port;
+    this.heartbeatMillis = heartbeatMillis;
+    this.maxQueuedBytes = maxQueuedBytes;
+  }
+
+  @PostConstruct
+  public void start() throws IOException {
+    server = ServerSocketChannel.open().bind(new InetSocketAddress(port));
+    Thread acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    log.info("Shipping the journal to followers on port {}", getPort());
+  }
+
+  /**
+   * The port followers connect to, which is the bound one when configured as 0.
+   */
+  public int getPort() {
+    return server.socket().getLocalPort();
+  }
+
+  public ReplicationMetrics metrics() {
+    return new ReplicationMetrics("leader", sessions.size(), bootstraps.sum(), shippedBytes.sum(), 0);
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    running = false;
+    server.close();
+    sessions.forEach(Session::close);
+  }
+
+  private void acceptLoop() {
+    while (running) {
+      try {
+        SocketChannel channel = server.accept();
+        Session session = new Session(channel);
+        sessions.add(session);
+        Thread sender = new Thread(session, "replication-sender-" + channel.getRemoteAddress());
+        sender.setDaemon(true);
+        sender.start();
+      } catch (IOException e) {
+        if (running) {
+          log.error("Accepting a follower failed", e);
+        }
+      }
+    }
+  }
+
+  private final class Session implements Runnable, Consumer<ByteBuffer> {
+
+    private record Chunk(byte[] records, long durableNanos) {
+    }
+
+    private final SocketChannel channel;
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(SEND_BUFFER_BYTES);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queued = lock.newCondition();
+    private final ArrayDeque<Chunk> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean overflowed;
+
+    Session(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    /**
+     * Called by the journal flusher; copies the records and returns at once.
+     */
+    @Override
+    public void accept(ByteBuffer records) {
+      byte[] copy = new byte[records.remaining()];
+      records.get(copy);
+      long durableNanos = System.nanoTime();
+      lock.lock();
+      try {
+        if (queuedBytes + copy.length > maxQueuedBytes) {
+          overflowed = true;
+        } else {
+          queue.add(new Chunk(copy, durableNanos));
+          queuedBytes += copy.length;
+        }
+        queued.signal();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        ReplayedAccounts accounts = new ReplayedAccounts();
+        journal.replayAndSubscribe(accounts, this);
+        long replayedNanos = System.nanoTime();
+        accounts.forEach((accountId, created, balanceMinorUnits) -> send(created
+                ? JournalCodec.accountCreated(accountId, balanceMinorUnits)
+                : JournalCodec.postings(new String[] {accountId}, new long[] {balanceMinorUnits})));
+        send(JournalCodec.mark(ageMillis(replayedNanos)));
+        flush();
+        bootstraps.increment();
+        log.info("Follower {} bootstrapped with {} accounts", channel.getRemoteAddress(), accounts.size());
+
+        while (running) {
+          Chunk last = null;
+          lock.lock();
+          try {
+            if (queue.isEmpty() && !overflowed) {
+              queued.await(heartbeatMillis, TimeUnit.MILLISECONDS);
+            }
+            if (overflowed) {
+              throw new IOException("Follower fell more than " + maxQueuedBytes + " bytes behind");
+            }
+          } finally {
+            lock.unlock();
+          }
+          for (Chunk chunk; (chunk = poll()) != null; last = chunk) {
+            send(ByteBuffer.wrap(chunk.records()));
+          }
+          send(JournalCodec.mark(last != null ? ageMillis(last.durableNanos()) : 0));
+          flush();
+        }
+      } catch (IOException e) {
+        log.warn("Stopped shipping to a follower: {}", e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException e) {
+        log.error("Shipping to a follower failed", e);
+      } finally {
+        journal.unsubscribe(this);
+        sessions.remove(this);
+        close();
+      }
+    }
+
+    void close() {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.debug("Closing a follower connection failed", e);
+      }
+    }
+
+    private static long ageMillis(long sinceNanos) {
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sinceNanos);
+    }
+
+    private Chunk poll() {
+      lock.lock();
+      try {
+        Chunk chunk = queue.poll();
+        if (chunk != null) {
+          queuedBytes -= chunk.records().length;
+        }
+        return chunk;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void send(ByteBuffer records) throws IOException {
+      while (records.hasRemaining()) {
+        if (!sendBuffer.hasRemaining()) {
+          flush();
+        }
+        int take = Math.min(records.remaining(), sendBuffer.remaining());
+        sendBuffer.put(records.slice(records.position(), take));
+        records.position(records.position() + take);
+      }
+    }
+
+    private void flush() throws IOException {
+      sendBuffer.flip();
+      shippedBytes.add(sendBuffer.remaining());
+      while (sendBuffer.hasRemaining()) {
+        channel.write(sendBuffer);
+      }
+      sendBuffer.clear();
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.UnsupportedByTransferEngineException;
+import com.dws.challenge.repository.ShardedAccountsRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Gives every shard of the {@link ShardedAccountsRepository} one owner thread, the only thread
+ * that changes the balances of that shard's accounts, so no account lock is ever taken. A
+ * transfer within a shard runs as one task on its owner. A transfer across shards runs in two
+ * phases: the source owner withdraws the amount and hands the deposit to the destination owner,
+ * which hands a refund back if the credit would overflow. Between the phases the amount is in
+ * neither account, as with the CAS engine.
+ *
+ * <p>Owners still change balances through the atomic operations on {@link Account}, which on the
+ * owner never contend and so succeed first time. Some writes cannot wait for an owner, such as
+ * a refund after an owner has stopped or replicated postings on a follower, and a hot account
+ * keeps part of its balance in striped credits that a plain field could not hold.
+ */
+@Component
+@ConditionalOnProperty(name = "accounts.transfer.engine", havingValue = "sharded")
+public class ShardedTransferEngine implements TransferEngine {
+
+  private static final long UNSETTLED_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final ShardedAccountsRepository accountsRepository;
+  private final ExecutorService[] owners;
+
+  public ShardedTransferEngine(ShardedAccountsRepository accountsRepository) {
+    this.accountsRepository = accountsRepository;
+    this.owners = new ExecutorService[accountsRepository.shardCount()];
+    for (int i = 0; i < owners.length; i++) {
+      String name = "shard-owner-" + i;
+      owners[i] = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  @Override
+  public TransferResult tryTransfer(Account fromAccount, Account toAccount, long amountMinorUnits,
+                                    CommitListener listener) {
+    ExecutorService source = owners[accountsRepository.shardOf(fromAccount.getAccountId())];
+    ExecutorService destination = owners[accountsRepository.shardOf(toAccount.getAccountId())];
+    CompletableFuture<TransferResult> done = new CompletableFuture<>();
+
+    if (source == destination) {
+      source.execute(() -> {
+        try {
+          if (fromAccount.getBalanceMinorUnits() < amountMinorUnits) {
+            done.complete(TransferResult.INSUFFICIENT_BALANCE);
+          } else if (TransferEngine.wouldOverflow(toAccount, amountMinorUnits)) {
+            done.complete(TransferResult.BALANCE_OVERFLOW);
+          } else {
+            listener.committing(fromAccount, toAccount, amountMinorUnits);
+            toAccount.creditMinorUnits(amountMinorUnits);
+            fromAccount.tryDebitMinorUnits(amountMinorUnits);
+            done.complete(TransferResult.COMPLETED);
+          }
+        } catch (RuntimeException e) {
+          done.completeExceptionally(e);
+        }
+      });
+    } else {
+      // Committed on the source owner, before the destination owner can let the credit be spent.
+      source.execute(() -> {
+        if (!fromAccount.tryDebitMinorUnits(amountMinorUnits)) {
+          done.complete(TransferResult.INSUFFICIENT_BALANCE);
+          return;
+        }
+        try {
+          listener.committing(fromAccount, toAccount, amountMinorUnits);
+        } catch (RuntimeException e) {
+          fromAccount.creditMinorUnits(amountMinorUnits);
+          done.completeExceptionally(e);
+          return;
+        }
+        try {
+          destination.execute(() -> {
+            if (TransferEngine.tryCredit(toAccount, amountMinorUnits)) {
+              done.complete(TransferResult.COMPLETED);
+              return;
+            }
+            Runnable refund = () -> {
+              try {
+                CasTransferEngine.refund(fromAccount, toAccount, amountMinorUnits, listener);
+                done.complete(TransferResult.BALANCE_OVERFLOW);
+              } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+              }
+            };
+            try {
+              source.execute(refund);
+            } catch (RejectedExecutionException e) {
+              // The source owner has stopped taking work; balances are updated atomically, so
+              // the refund can still be made from here.
+              refund.run();
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          try {
+            CasTransferEngine.refund(fromAccount, toAccount, amountMinorUnits, listener);
+          } catch (RuntimeException refundFailure) {
+            e.addSuppressed(refundFailure);
+          }
+          done.completeExceptionally(e);
+        }
+      });
+    }
+
+    return join(done);
+  }
+
+  @Override
+  public TransferResult tryReserve(Account account, long amountMinorUnits) {
+    return onOwner(account, () -> account.tryDebitMinorUnits(amountMinorUnits) ? TransferResult.COMPLETED
+      : TransferResult.INSUFFICIENT_BALANCE);
+  }
+
+  /**
+   * Within a shard in one task on its owner; across shards the destination owner commits and
+   * credits the captured part first, then the source owner takes back the rest.
+   */
+  @Override
+  public TransferResult settleReserved(Account source, long heldMinorUnits, Account destination,
+                                       long capturedMinorUnits, CommitListener listener) {
+    if (destination == null || accountsRepository.shardOf(source.getAccountId())
+      == accountsRepository.shardOf(destination.getAccountId())) {
+      return onOwner(source, () -> TransferEngine.settle(source, heldMinorUnits, destination, capturedMinorUnits,
+        listener));
+    }
+    TransferResult credited = onOwner(destination, () -> {
+      if (TransferEngine.wouldOverflow(destination, capturedMinorUnits)) {
+        return TransferResult.BALANCE_OVERFLOW;
+      }
+      listener.committing(source, destination, capturedMinorUnits);
+      destination.creditMinorUnits(capturedMinorUnits);
+      return TransferResult.COMPLETED;
+    });
+    if (!credited.isCompleted() || heldMinorUnits == capturedMinorUnits) {
+      return credited;
+    }
+    long returnedMinorUnits = heldMinorUnits - capturedMinorUnits;
+    // As in the CAS engine: the capture is taken back only if the destination still has it;
+    // otherwise this waits until the rest fits in the source.
+    while (!onOwner(source, () -> TransferEngine.tryCredit(source, returnedMinorUnits)
+      ? TransferResult.COMPLETED : TransferResult.BALANCE_OVERFLOW).isCompleted()) {
+      TransferResult uncaptured = onOwner(destination, () -> {
+        if (!destination.tryDebitMinorUnits(capturedMinorUnits)) {
+          return TransferResult.COMPLETED;
+        }
+        listener.committing(destination, source, capturedMinorUnits);
+        return TransferResult.BALANCE_OVERFLOW;
+      });
+      if (!uncaptured.isCompleted()) {
+        return uncaptured;
+      }
+      LockSupport.parkNanos(UNSETTLED_RETRY_NANOS);
+    }
+    return TransferResult.COMPLETED;
+  }
+
+  private TransferResult onOwner(Account account, Supplier<TransferResult> task) {
+    return join(CompletableFuture.supplyAsync(task, owners[accountsRepository.shardOf(account.getAccountId())]));
+  }
+
+  private static TransferResult join(CompletableFuture<TransferResult> done) {
+    try {
+      return done.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean supportsAccountLocking() {
+    return false;
+  }
+
+  @Override
+  public <T> T withAccountsLocked(Collection<Account> accounts, Supplier<T> action) {
+    throw new UnsupportedByTransferEngineException("Multi-account atomic operations require the locking transfer engine.");
+  }
+
+  @Override
+  public long[] snapshotBalances(List<Account> accounts) {
+    throw new UnsupportedByTransferEngineException("Consistent balance snapshots require the locking transfer engine.");
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    for (ExecutorService owner : owners) {
+      owner.shutdown();
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResult;
+import com.dws.challenge.domain.Money;
+import com.dws.challenge.domain.StandingOrder;
+import com.dws.challenge.domain.StandingOrderMetrics;
+import com.dws.challenge.domain.StandingOrderRequest;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferStatus;
+import com.dws.challenge.exception.AccountNotFoundException;
+import com.dws.challenge.exception.InvalidTransferRequestException;
+import com.dws.challenge.metrics.LatencyHistogram;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs future and recurring transfers in-process. Orders wait in a {@link TimerWheel} advanced
+ * by a single ticker thread; whatever falls due in a tick is executed through
+ * {@link AccountsService#transferBatch} in best-effort batches, and recurring orders are put
+ * back one interval after their due time. A rejected occurrence does not stop a recurring order.
+ *
+ * <p>Orders are held in memory only.
+ */
+@Slf4j
+@Service
+public class StandingOrderScheduler {
+
+  private static final class Order extends TimerWheel.Timer {
+    final long id;
+    final String fromId;
+    final String toId;
+    final BigDecimal amount;
+    final long intervalMillis;
+    long dueMillis;
+    boolean cancelled;
+
+    Order(long id, String fromId, String toId, BigDecimal amount, long intervalMillis, long dueMillis) {
+      this.id = id;
+      this.fromId = fromId;
+      this.toId = toId;
+      this.amount = amount;
+      this.intervalMillis = intervalMillis;
+      this.dueMillis = dueMillis;
+    }
+  }
+
+  private final AccountsService accountsService;
+  private final long tickMillis;
+  private final int batchSize;
+  private final Clock clock;
+  private final long originMillis;
+
+  private final ReentrantLock wheelLock = new ReentrantLock();
+  private final TimerWheel wheel;
+  private final Map<Long, Order> orders = new ConcurrentHashMap<>();
+  private final AtomicLong ids = new AtomicLong();
+
+  private final LatencyHistogram lag = new LatencyHistogram();
+  private final LongAdder executed = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+    Thread thread = new Thread(task, "standing-orders");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  @Autowired
+  public StandingOrderScheduler(AccountsService accountsService,
+                                @Value("${transfers.scheduler.tick-millis:100}") long tickMillis,
+                                @Value("${transfers.scheduler.batch-size:256}") int batchSize) {
+    this(accountsService, tickMillis, batchSize, Clock.systemUTC());
+  }
+
+  public StandingOrderScheduler(AccountsService accountsService, long tickMillis, int batchSize, Clock clock) {
+    if (tickMillis <= 0 || batchSize <= 0) {
+      throw new IllegalArgumentException("Standing order tick and batch size must be positive.");
+    }
+    this.accountsService = accountsService;
+    this.tickMillis = tickMillis;
+    this.batchSize = batchSize;
+    this.clock = clock;
+    this.originMillis = clock.millis();
+    this.wheel = new TimerWheel(0);
+  }
+
+  @PostConstruct
+  public void start() {
+    ticker.scheduleAtFixedRate(() -> {
+      try {
+        runDue();
+      } catch (RuntimeException e) {
+        log.error("Standing order tick failed", e);
+      }
+    }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @throws InvalidTransferRequestException if the transfer could never be valid
+   * @throws AccountNotFoundException if either account does not exist
+   */
+  public StandingOrder schedule(StandingOrderRequest request) {
+    if (Objects.equals(request.getAccountFromId(), request.getAccountToId())) {
+      throw new InvalidTransferRequestException("Cannot transfer to the same account.");
+    }
+    if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+      throw new InvalidTransferRequestException("Transfer amount must be greater than zero.");
+    }
+    if (!Money.isRepresentable(request.getAmount())) {
+      throw new InvalidTransferRequestException(
+              "Transfer amount must have at most " + Money.SCALE + " decimal places and fit the balance range.");
+    }
+    for (String accountId : List.of(request.getAccountFromId(), request.getAccountToId())) {
+      if (accountsService.getAccount(accountId) == null) {
+        throw new AccountNotFoundException("Account " + accountId + " does not exist.");
+      }
+    }
+
+    long dueMillis = request.getFirstDueAt() != null ? request.getFirstDueAt().toEpochMilli() : clock.millis();
+    long intervalMillis = request.getIntervalSeconds() != null
+            ? TimeUnit.SECONDS.toMillis(request.getIntervalSeconds()) : 0;
+    Order order = new Order(ids.incrementAndGet(), request.getAccountFromId(), request.getAccountToId(),
+            request.getAmount(), intervalMillis, dueMillis);
+    orders.put(order.id, order);
+    wheelLock.lock();
+    try {
+      wheel.schedule(order, tickOf(dueMillis));
+    } finally {
+      wheelLock.unlock();
+    }
+    return view(order);
+  }
+
+  /**
+   * @return the order, or null if there is no such order or it has run its course
+   */
+  public StandingOrder getOrder(long id) {
+    Order order = orders.get(id);
+    if (order == null) {
+      return null;
+    }
+    wheelLock.lock();
+    try {
+      return view(order);
+    } finally {
+      wheelLock.unlock();
+    }
+  }
+
+  /**
+   * Stops the order; an occurrence already being executed still completes.
+   *
+   * @return false if there was no such order
+   */
+  public boolean cancel(long id) {
+    Order order = orders.remove(id);
+    if (order == null) {
+      return false;
+    }
+    wheelLock.lock();
+    try {
+      order.cancelled = true;
+      wheel.cancel(order);
+    } finally {
+      wheelLock.unlock();
+    }
+    return true;
+  }
+
+  public StandingOrderMetrics metrics() {
+    return new StandingOrderMetrics(orders.size(), executed.sum(), completed.sum(), rejected.sum(), lag.summary());
+  }
+
+  /**
+   * Advances the wheel to the current time and executes everything that fell due.
+   */
+  public void runDue() {
+    List<Order> due = new ArrayList<>();
+    wheelLock.lock();
+    try {
+      wheel.advance(Math.floorDiv(clock.millis() - originMillis, tickMillis), timer -> due.add((Order) timer));
+    } finally {
+      wheelLock.unlock();
+    }
+    for (int from = 0; from < due.size(); from += batchSize) {
+      execute(due.subList(from, Math.min(due.size(), from + batchSize)));
+    }
+  }
+
+  private void execute(List<Order> batch) {
+    List<TransferRequest> legs = new ArrayList<>(batch.size());
+    for (Order order : batch) {
+      TransferRequest leg = new TransferRequest();
+      leg.setAccountFromId(order.fromId);
+      leg.setAccountToId(order.toId);
+      leg.setAmount(order.amount);
+      legs.add(leg);
+    }
+    BatchTransferResult result = null;
+    try {
+      result = accountsService.transferBatch(legs, BatchTransferMode.BEST_EFFORT);
+    } catch (RuntimeException e) {
+      log.error("Standing order batch of {} transfers failed", batch.size(), e);
+    }
+
+    long executedMillis = clock.millis();
+    wheelLock.lock();
+    try {
+      for (int i = 0; i < batch.size(); i++) {
+        Order order = batch.get(i);
+        lag.record(TimeUnit.MILLISECONDS.toNanos(executedMillis - order.dueMillis));
+        if (result != null && result.getResults().get(i).getStatus() == TransferStatus.COMPLETED) {
+          completed.increment();
+        } else {
+          rejected.increment();
+        }
+        if (order.intervalMillis > 0 && !order.cancelled) {
+          order.dueMillis += order.intervalMillis;
+          wheel.schedule(order, tickOf(order.dueMillis));
+        } else {
+          orders.remove(order.id, order);
+        }
+      }
+    } finally {
+      wheelLock.unlock();
+    }
+    executed.add(batch.size());
+  }
+
+  /**
+   * The first tick at or after the time, so nothing runs early.
+   */
+  private long tickOf(long millis) {
+    return Math.floorDiv(millis - originMillis + tickMillis - 1, tickMillis);
+  }
+
+  private StandingOrder view(Order order) {
+    return new StandingOrder(order.id, order.fromId, order.toId, order.amount, Instant.ofEpochMilli(order.dueMillis),
+            order.intervalMillis > 0 ? TimeUnit.MILLISECONDS.toSeconds(order.intervalMillis) : null);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    ticker.shutdown();
+  }
+}
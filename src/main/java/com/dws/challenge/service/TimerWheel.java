@@ -0,0 +1,152 @@
+package com.dws.challenge.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel over integer ticks: 256 slots of one tick, then four levels of 64
+ * slots each covering 64 times the span of the level below. A timer goes into the coarsest
+ * slot its distance allows and is moved one level down whenever the finer level wraps around,
+ * so scheduling, cancelling and expiring are all O(1) whatever the number of pending timers.
+ * Timers further out than the top level are parked in it and moved again until they fit.
+ *
+ * <p>Not thread-safe.
+ */
+public class TimerWheel {
+
+  /**
+   * A node of the slot lists; subclass it to carry the payload.
+   */
+  public static class Timer {
+    private long deadline;
+    private Timer previous;
+    private Timer next;
+
+    public long getDeadline() {
+      return deadline;
+    }
+
+    public boolean isScheduled() {
+      return next != null;
+    }
+  }
+
+  private static final int FIRST_LEVEL_BITS = 8;
+  private static final int LEVEL_BITS = 6;
+  private static final int LEVELS = 5;
+
+  private final Timer[][] slots = new Timer[LEVELS][];
+  private long currentTick;
+  private int size;
+
+  /**
+   * @param currentTick the tick considered already processed
+   */
+  public TimerWheel(long currentTick) {
+    this.currentTick = currentTick;
+    for (int level = 0; level < LEVELS; level++) {
+      slots[level] = new Timer[1 << (level == 0 ? FIRST_LEVEL_BITS : LEVEL_BITS)];
+      for (int i = 0; i < slots[level].length; i++) {
+        Timer head = new Timer();
+        head.previous = head;
+        head.next = head;
+        slots[level][i] = head;
+      }
+    }
+  }
+
+  public long currentTick() {
+    return currentTick;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Schedules the timer, which must not already be scheduled. A deadline that has passed
+   * expires on the next tick.
+   */
+  public void schedule(Timer timer, long deadline) {
+    timer.deadline = Math.max(deadline, currentTick + 1);
+    add(timer);
+    size++;
+  }
+
+  public void cancel(Timer timer) {
+    if (timer.isScheduled()) {
+      unlink(timer);
+      size--;
+    }
+  }
+
+  /**
+   * Processes every tick up to and including {@code tick}, handing each expired timer, already
+   * unscheduled, to {@code expired} in deadline order.
+   */
+  public void advance(long tick, Consumer<Timer> expired) {
+    while (currentTick < tick) {
+      currentTick++;
+      if ((currentTick & mask(0)) == 0) {
+        cascade();
+      }
+      Timer head = slots[0][(int) (currentTick & mask(0))];
+      while (head.next != head) {
+        Timer timer = head.next;
+        unlink(timer);
+        size--;
+        expired.accept(timer);
+      }
+    }
+  }
+
+  /**
+   * Moves the timers of the slot each wrapped level has just reached down into finer levels.
+   */
+  private void cascade() {
+    for (int level = 1; level < LEVELS; level++) {
+      int index = (int) ((currentTick >>> shift(level)) & mask(level));
+      Timer head = slots[level][index];
+      // Detach the whole list first: timers parked at the top level may land in this slot again.
+      Timer timer = head.next != head ? head.next : null;
+      head.previous.next = null;
+      head.previous = head;
+      head.next = head;
+      while (timer != null) {
+        Timer following = timer.next;
+        add(timer);
+        timer = following;
+      }
+      if (index != 0) {
+        return;
+      }
+    }
+  }
+
+  private void add(Timer timer) {
+    long delta = timer.deadline - currentTick;
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= 1L << shift(level + 1)) {
+      level++;
+    }
+    Timer head = slots[level][(int) ((timer.deadline >>> shift(level)) & mask(level))];
+    timer.previous = head.previous;
+    timer.next = head;
+    head.previous.next = timer;
+    head.previous = timer;
+  }
+
+  private static void unlink(Timer timer) {
+    timer.previous.next = timer.next;
+    timer.next.previous = timer.previous;
+    timer.previous = null;
+    timer.next = null;
+  }
+
+  private static int shift(int level) {
+    return level == 0 ? 0 : FIRST_LEVEL_BITS + (level - 1) * LEVEL_BITS;
+  }
+
+  private static long mask(int level) {
+    return (1L << (level == 0 ? FIRST_LEVEL_BITS : LEVEL_BITS)) - 1;
+  }
+}
@@ -0,0 +1,133 @@
+package com.dws.challenge.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control in front of single transfers: token buckets per client and per source
+ * account, and a bound on how many admitted transfers may be in flight on any one account, so a
+ * flood against one account is turned away instead of parking request threads on its lock.
+ * All state lives in fixed hashed tables updated by compare-and-set. Every check is passed before
+ * any token is taken, so a rejected request costs its client and account nothing.
+ */
+@Service
+public class TransferAdmission {
+
+  public enum Decision {
+    ADMITTED("Admitted."),
+    CLIENT_RATE_EXCEEDED("Too many transfer requests from this client."),
+    ACCOUNT_RATE_EXCEEDED("Too many transfer requests against the source account."),
+    ACCOUNT_BUSY("Too many transfers in progress on the source or destination account.");
+
+    private final String message;
+
+    Decision(String message) {
+      this.message = message;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+  }
+
+  // One counter per cache line.
+  private static final int IN_FLIGHT_STRIDE = 16;
+
+  private final RateLimiterTable clientLimits;
+  private final RateLimiterTable accountLimits;
+  private final AtomicIntegerArray inFlight;
+  private final int inFlightMask;
+  private final int maxInFlightPerAccount;
+
+  @Autowired
+  public TransferAdmission(@Value("${transfers.admission.slots:16384}") int slots,
+                           @Value("${transfers.admission.client-rate-per-second:0}") double clientRate,
+                           @Value("${transfers.admission.client-burst:1}") int clientBurst,
+                           @Value("${transfers.admission.account-rate-per-second:0}") double accountRate,
+                           @Value("${transfers.admission.account-burst:1}") int accountBurst,
+                           @Value("${transfers.admission.max-in-flight-per-account:0}") int maxInFlightPerAccount) {
+    this(slots, clientRate, clientBurst, accountRate, accountBurst, maxInFlightPerAccount, System::nanoTime);
+  }
+
+  public TransferAdmission(int slots, double clientRate, int clientBurst, double accountRate, int accountBurst,
+                           int maxInFlightPerAccount, LongSupplier nanoClock) {
+    this.clientLimits = new RateLimiterTable(slots, clientRate, clientBurst, nanoClock);
+    this.accountLimits = new RateLimiterTable(slots, accountRate, accountBurst, nanoClock);
+    int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+    this.inFlight = new AtomicIntegerArray(maxInFlightPerAccount > 0 ? size * IN_FLIGHT_STRIDE : 0);
+    this.inFlightMask = size - 1;
+    this.maxInFlightPerAccount = maxInFlightPerAccount;
+  }
+
+  /**
+   * Decides without blocking. An admitted transfer must be followed by {@link #release} with the
+   * same accounts once it is done.
+   */
+  public Decision admit(String clientId, String fromId, String toId) {
+    if (clientLimits.waitNanos(clientId) > 0) {
+      return Decision.CLIENT_RATE_EXCEEDED;
+    }
+    if (accountLimits.waitNanos(fromId) > 0) {
+      return Decision.ACCOUNT_RATE_EXCEEDED;
+    }
+    if (maxInFlightPerAccount > 0) {
+      int fromSlot = slotOf(fromId);
+      int toSlot = slotOf(toId);
+      if (!enter(fromSlot)) {
+        return Decision.ACCOUNT_BUSY;
+      }
+      if (toSlot != fromSlot && !enter(toSlot)) {
+        inFlight.decrementAndGet(fromSlot);
+        return Decision.ACCOUNT_BUSY;
+      }
+    }
+    // A concurrent request may have taken a token since the checks; then this one gives its own back.
+    Decision decision = Decision.ADMITTED;
+    if (!clientLimits.tryAcquire(clientId)) {
+      decision = Decision.CLIENT_RATE_EXCEEDED;
+    } else if (!accountLimits.tryAcquire(fromId)) {
+      clientLimits.refund(clientId);
+      decision = Decision.ACCOUNT_RATE_EXCEEDED;
+    }
+    if (decision != Decision.ADMITTED) {
+      release(fromId, toId);
+    }
+    return decision;
+  }
+
+  /**
+   * @return how long until the client's and the source account's rate limits would both admit a
+   * transfer, 0 if they would now
+   */
+  public long retryAfterNanos(String clientId, String fromId) {
+    return Math.max(clientLimits.waitNanos(clientId), accountLimits.waitNanos(fromId));
+  }
+
+  public void release(String fromId, String toId) {
+    if (maxInFlightPerAccount > 0) {
+      int fromSlot = slotOf(fromId);
+      int toSlot = slotOf(toId);
+      if (toSlot != fromSlot) {
+        inFlight.decrementAndGet(toSlot);
+      }
+      inFlight.decrementAndGet(fromSlot);
+    }
+  }
+
+  private boolean enter(int slot) {
+    if (inFlight.incrementAndGet(slot) > maxInFlightPerAccount) {
+      inFlight.decrementAndGet(slot);
+      return false;
+    }
+    return true;
+  }
+
+  private int slotOf(String accountId) {
+    int hash = accountId.hashCode();
+    return ((hash ^ (hash >>> 16)) & inFlightMask) * IN_FLIGHT_STRIDE;
+  }
+}
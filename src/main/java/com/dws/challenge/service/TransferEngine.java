@@ -0,0 +1,162 @@
+package com.dws.challenge.service;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.InvalidTransferRequestException;
+import com.dws.challenge.exception.SnapshotUnavailableException;
+import com.dws.challenge.exception.UnsupportedByTransferEngineException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Moves funds between two accounts. Selected with {@code accounts.transfer.engine}.
+ */
+public interface TransferEngine {
+
+  /**
+   * Told about each balance change at the point an engine commits to it: once the change will
+   * not be rejected, and before its credit can be spent by any other transfer. Journal records
+   * appended from here are therefore in an order that every transfer's funds respect, so any
+   * prefix of the journal, which is what a crash leaves, replays without a negative balance.
+   *
+   * <p>Throwing aborts the change. A change that still fails after it was committed, because a
+   * concurrent credit overflowed the destination first, is reported again in reverse.
+   */
+  @FunctionalInterface
+  interface CommitListener {
+
+    CommitListener NONE = (fromAccount, toAccount, amountMinorUnits) -> { };
+
+    void committing(Account fromAccount, Account toAccount, long amountMinorUnits);
+  }
+
+  /**
+   * Moves the amount, or changes nothing and returns {@link TransferResult#INSUFFICIENT_BALANCE} or
+   * {@link TransferResult#BALANCE_OVERFLOW}. Rejections are reported without exceptions.
+   */
+  TransferResult tryTransfer(Account fromAccount, Account toAccount, long amountMinorUnits, CommitListener listener);
+
+  default TransferResult tryTransfer(Account fromAccount, Account toAccount, long amountMinorUnits) {
+    return tryTransfer(fromAccount, toAccount, amountMinorUnits, CommitListener.NONE);
+  }
+
+  /**
+   * @throws InsufficientBalanceException if the source balance is lower than the amount
+   * @throws InvalidTransferRequestException if the credit would overflow the destination balance
+   */
+  default void transfer(Account fromAccount, Account toAccount, long amountMinorUnits) {
+    switch (tryTransfer(fromAccount, toAccount, amountMinorUnits)) {
+      case INSUFFICIENT_BALANCE -> throw insufficientBalance(fromAccount);
+      case BALANCE_OVERFLOW -> throw overflow(toAccount);
+      default -> {
+      }
+    }
+  }
+
+  /**
+   * Takes the amount out of the account's balance to back a hold, or changes nothing and returns
+   * {@link TransferResult#INSUFFICIENT_BALANCE}.
+   */
+  TransferResult tryReserve(Account account, long amountMinorUnits);
+
+  /**
+   * Pays out an amount taken by {@link #tryReserve}: the captured part to the destination, which
+   * may be null if nothing is captured, and the rest back to the source. Returns
+   * {@link TransferResult#BALANCE_OVERFLOW}, changing nothing, if a credit would overflow. Only
+   * the captured part is a transfer the listener is told about.
+   */
+  TransferResult settleReserved(Account source, long heldMinorUnits, Account destination, long capturedMinorUnits,
+                                CommitListener listener);
+
+  default TransferResult settleReserved(Account source, long heldMinorUnits, Account destination,
+                                        long capturedMinorUnits) {
+    return settleReserved(source, heldMinorUnits, destination, capturedMinorUnits, CommitListener.NONE);
+  }
+
+  /**
+   * Whether {@link #withAccountsLocked} can give exclusive access to several accounts at once.
+   */
+  boolean supportsAccountLocking();
+
+  /**
+   * Runs the action while no transfer can touch any of the given accounts.
+   *
+   * @throws UnsupportedByTransferEngineException unless {@link #supportsAccountLocking}
+   */
+  <T> T withAccountsLocked(Collection<Account> accounts, Supplier<T> action);
+
+  /**
+   * Reads the balances of the accounts, in minor units and list order, as they all were at one
+   * instant.
+   *
+   * @throws UnsupportedByTransferEngineException if the engine leaves transfers half-applied between steps
+   * @throws SnapshotUnavailableException if no consistent reading could be taken without blocking transfers
+   */
+  long[] snapshotBalances(List<Account> accounts);
+
+  /**
+   * Credits the account unless its balance would overflow.
+   */
+  static boolean tryCredit(Account account, long amountMinorUnits) {
+    try {
+      account.creditMinorUnits(amountMinorUnits);
+      return true;
+    } catch (ArithmeticException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Whether crediting the amount would overflow the balance as it is now.
+   */
+  static boolean wouldOverflow(Account account, long amountMinorUnits) {
+    return account.getBalanceMinorUnits() > Long.MAX_VALUE - amountMinorUnits;
+  }
+
+  /**
+   * {@link #settleReserved} for engines that already have exclusive access to both accounts.
+   */
+  static TransferResult settle(Account source, long heldMinorUnits, Account destination, long capturedMinorUnits,
+                               CommitListener listener) {
+    long returnedMinorUnits = heldMinorUnits - capturedMinorUnits;
+    if ((capturedMinorUnits > 0 && wouldOverflow(destination, capturedMinorUnits))
+      || (returnedMinorUnits > 0 && wouldOverflow(source, returnedMinorUnits))) {
+      return TransferResult.BALANCE_OVERFLOW;
+    }
+    if (capturedMinorUnits > 0) {
+      listener.committing(source, destination, capturedMinorUnits);
+      if (!tryCredit(destination, capturedMinorUnits)) {
+        listener.committing(destination, source, capturedMinorUnits);
+        return TransferResult.BALANCE_OVERFLOW;
+      }
+    }
+    if (returnedMinorUnits > 0 && !tryCredit(source, returnedMinorUnits)) {
+      if (capturedMinorUnits > 0) {
+        listener.committing(destination, source, capturedMinorUnits);
+        destination.tryDebitMinorUnits(capturedMinorUnits);
+      }
+      return TransferResult.BALANCE_OVERFLOW;
+    }
+    return TransferResult.COMPLETED;
+  }
+
+  static long addToBalance(Account account, long balance, long amountMinorUnits) {
+    try {
+      return Math.addExact(balance, amountMinorUnits);
+    } catch (ArithmeticException e) {
+      throw overflow(account);
+    }
+  }
+
+  static InvalidTransferRequestException overflow(Account account) {
+    return new InvalidTransferRequestException("Transfer would overflow the balance of account "
+      + account.getAccountId() + ".");
+  }
+
+  static InsufficientBalanceException insufficientBalance(Account account) {
+    return new InsufficientBalanceException("Account " + account.getAccountId() + " has insufficient balance.");
+  }
+}
@@ -1,12 +1,33 @@
 package com.dws.challenge.web;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountFunds;
+import com.dws.challenge.domain.AccountImportResult;
+import com.dws.challenge.domain.BalanceSnapshot;
+import com.dws.challenge.domain.BalanceSnapshotRequest;
+import com.dws.challenge.domain.BatchTransferRequest;
+import com.dws.challenge.domain.BatchTransferResult;
+import com.dws.challenge.domain.MultiLegTransferRequest;
+import com.dws.challenge.domain.TransferHistoryPage;
 import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
 import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.service.AccountsBulkService;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.HoldService;
+import com.dws.challenge.service.IdempotentTransferService;
+import com.dws.challenge.service.LogRateCap;
+import com.dws.challenge.service.TransferAdmission;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -15,8 +36,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
 @RestController
 @RequestMapping("/v1/accounts")
 @Slf4j
@@ -24,14 +50,34 @@ public class AccountsController {
 
   private final AccountsService accountsService;
 
+  private final IdempotentTransferService idempotentTransferService;
+
+  private final AccountsBulkService accountsBulkService;
+
+  private final TransferAdmission transferAdmission;
+
+  private final HoldService holdService;
+
+  // Transfer requests are logged up to a rate; the rest are only counted. The audit record of a
+  // transfer is its entry in the transfer audit log, not this log.
+  private final LogRateCap transferLogCap;
+
   @Autowired
-  public AccountsController(AccountsService accountsService) {
+  public AccountsController(AccountsService accountsService, IdempotentTransferService idempotentTransferService,
+                            AccountsBulkService accountsBulkService, TransferAdmission transferAdmission,
+                            HoldService holdService,
+                            @Value("${transfers.logging.max-per-second:100}") int transferLogsPerSecond) {
     this.accountsService = accountsService;
+    this.idempotentTransferService = idempotentTransferService;
+    this.accountsBulkService = accountsBulkService;
+    this.transferAdmission = transferAdmission;
+    this.holdService = holdService;
+    this.transferLogCap = new LogRateCap(transferLogsPerSecond, System::nanoTime);
   }
 
   @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
   public ResponseEntity<Object> createAccount(@RequestBody @Valid Account account) {
-    log.info("Creating account {}", account);
+    log.info("Creating account {}", account.getAccountId());
 
     try {
     this.accountsService.createAccount(account);
@@ -42,24 +88,124 @@ public class AccountsController {
     return new ResponseEntity<>(HttpStatus.CREATED);
   }
 
+  @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<AccountImportResult> importAccounts(HttpServletRequest request) throws IOException {
+    AccountImportResult result = accountsBulkService.importAccounts(request.getInputStream());
+    log.info("Imported {} accounts, {} duplicates, {} invalid", result.getImported(), result.getDuplicates(),
+      result.getInvalid());
+    HttpStatus status = result.getImported() == 0 && !result.getErrors().isEmpty()
+      ? HttpStatus.BAD_REQUEST : HttpStatus.OK;
+    return new ResponseEntity<>(result, status);
+  }
+
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public void exportAccounts(HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    accountsBulkService.exportAccounts(response.getOutputStream());
+  }
+
+  @PostMapping(path = "/balances", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public BalanceSnapshot balanceSnapshot(@RequestBody @Valid BalanceSnapshotRequest request) {
+    return accountsService.balanceSnapshot(request.getAccountIds());
+  }
+
   @GetMapping(path = "/{accountId}")
   public Account getAccount(@PathVariable String accountId) {
-    log.info("Retrieving account for id {}", accountId);
+    log.debug("Retrieving account for id {}", accountId);
     return this.accountsService.getAccount(accountId);
   }
 
+  @GetMapping(path = "/{accountId}/funds")
+  public AccountFunds getFunds(@PathVariable String accountId) {
+    return holdService.funds(accountId);
+  }
+
+  @GetMapping(path = "/{accountId}/transfers")
+  public TransferHistoryPage transferHistory(
+          @PathVariable String accountId,
+          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+          @RequestParam(required = false) Long cursor,
+          @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+    return accountsService.transferHistory(accountId, from == null ? Long.MIN_VALUE : from.toEpochMilli(),
+      to == null ? Long.MAX_VALUE : to.toEpochMilli(), cursor, limit);
+  }
+
   @PostMapping(path = "/transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
-  public ResponseEntity<Void> transfer(@RequestBody @Valid TransferRequest request) {
-    log.info("Received transfer request: {}", request);
-    accountsService.transfer(
+  public ResponseEntity<String> transfer(@RequestBody @Valid TransferRequest request,
+                                         HttpServletRequest httpRequest) {
+    logTransfer(request);
+    // Only what the client cannot choose for itself tells clients apart.
+    String clientId = httpRequest.getUserPrincipal() != null
+            ? httpRequest.getUserPrincipal().getName() : httpRequest.getRemoteAddr();
+    // A retry of a transfer already made gets its outcome without being admitted again.
+    TransferResult result = idempotentTransferService.replay(
+            clientId,
+            request.getIdempotencyKey(),
             request.getAccountFromId(),
             request.getAccountToId(),
             request.getAmount()
     );
-    String responseMessage = String.format("Transfer of %s from %s to %s completed successfully.",
-            request.getAmount(), request.getAccountFromId(), request.getAccountToId());
+    if (result == null) {
+      TransferAdmission.Decision admission = transferAdmission.admit(clientId, request.getAccountFromId(),
+              request.getAccountToId());
+      if (admission != TransferAdmission.Decision.ADMITTED) {
+        long retryAfterNanos = transferAdmission.retryAfterNanos(clientId, request.getAccountFromId());
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                / TimeUnit.SECONDS.toNanos(1));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(admission.getMessage());
+      }
+
+      try {
+        result = idempotentTransferService.transfer(
+                clientId,
+                request.getIdempotencyKey(),
+                request.getAccountFromId(),
+                request.getAccountToId(),
+                request.getAmount()
+        );
+      } finally {
+        transferAdmission.release(request.getAccountFromId(), request.getAccountToId());
+      }
+    }
+    if (!result.isCompleted()) {
+      return new ResponseEntity<>(result.describe(request.getAccountFromId(), request.getAccountToId()),
+              HttpStatus.BAD_REQUEST);
+    }
+    return new ResponseEntity<>(HttpStatus.OK);
+  }
+
+  @PostMapping(path = "/transfers/multi-leg", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Void> transferMultiLeg(@RequestBody @Valid MultiLegTransferRequest request) {
+    log.info("Received multi-leg transfer with {} debits and {} credits", request.getDebits().size(),
+      request.getCredits().size());
+    accountsService.transferMultiLeg(request.getDebits(), request.getCredits());
     return new ResponseEntity<>(HttpStatus.OK);
   }
 
+  @PostMapping(path = "/transfers/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<BatchTransferResult> transferBatch(@RequestBody @Valid BatchTransferRequest request) {
+    log.info("Received {} batch of {} transfers", request.getMode(), request.getTransfers().size());
+    BatchTransferResult result = accountsService.transferBatch(request.getTransfers(), request.getMode());
+    HttpStatus status = result.getCompleted() == 0 && result.getFailed() > 0 ? HttpStatus.BAD_REQUEST : HttpStatus.OK;
+    return new ResponseEntity<>(result, status);
+  }
+
+  private void logTransfer(TransferRequest request) {
+    if (!log.isInfoEnabled()) {
+      return;
+    }
+    long unlogged = transferLogCap.tryLog();
+    if (unlogged < 0) {
+      return;
+    }
+    if (unlogged > 0) {
+      log.info("{} transfer requests were not logged: over transfers.logging.max-per-second", unlogged);
+    }
+    log.info("Received transfer of {} from {} to {}", request.getAmount(), request.getAccountFromId(),
+      request.getAccountToId());
+  }
 
 }
@@ -0,0 +1,106 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.TransferResult;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames of the binary transfer endpoint. Every frame is an int byte count of the rest of the
+ * frame and a long correlation id, chosen by the client and echoed in the response, followed by:
+ *
+ * <ul>
+ *   <li>in a request, an opcode byte and its arguments: strings are an unsigned short byte count
+ *       and UTF-8, amounts are long minor units;
+ *   <li>in a response, a status byte, the ordinal of a {@link TransferResult} or one of the
+ *       negative codes below, and for a completed {@link #BALANCE} the long balance in minor units.
+ * </ul>
+ *
+ * <p>A connection answers its requests in order, so clients may pipeline as many as they like.
+ */
+public final class BinaryTransferProtocol {
+
+  /**
+   * Arguments: source account id, destination account id, amount.
+   */
+  public static final byte TRANSFER = 1;
+
+  /**
+   * Arguments: account id. Answered with {@link TransferResult#ACCOUNT_NOT_FOUND} if it does not exist.
+   */
+  public static final byte BALANCE = 2;
+
+  public static final byte MALFORMED = -1;
+  public static final byte INTERNAL_ERROR = -2;
+
+  /**
+   * A {@link #TRANSFER} sent to a replication follower, which only answers {@link #BALANCE}.
+   */
+  public static final byte READ_ONLY = -3;
+
+  public static final int LENGTH_BYTES = Integer.BYTES;
+
+  private BinaryTransferProtocol() {
+  }
+
+  public static void writeTransfer(ByteBuffer out, long correlationId, String fromId, String toId,
+                                   long amountMinorUnits) {
+    byte[] from = fromId.getBytes(StandardCharsets.UTF_8);
+    byte[] to = toId.getBytes(StandardCharsets.UTF_8);
+    out.putInt(Long.BYTES + 1 + 2 * Short.BYTES + from.length + to.length + Long.BYTES)
+        .putLong(correlationId).put(TRANSFER);
+    putString(out, from);
+    putString(out, to);
+    out.putLong(amountMinorUnits);
+  }
+
+  public static void writeBalance(ByteBuffer out, long correlationId, String accountId) {
+    byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+    out.putInt(Long.BYTES + 1 + Short.BYTES + id.length).putLong(correlationId).put(BALANCE);
+    putString(out, id);
+  }
+
+  public static void writeResponse(ByteBuffer out, long correlationId, byte status) {
+    out.putInt(Long.BYTES + 1).putLong(correlationId).put(status);
+  }
+
+  public static void writeBalanceResponse(ByteBuffer out, long correlationId, long balanceMinorUnits) {
+    out.putInt(Long.BYTES + 1 + Long.BYTES).putLong(correlationId)
+        .put((byte) TransferResult.COMPLETED.ordinal()).putLong(balanceMinorUnits);
+  }
+
+  public static byte status(TransferResult result) {
+    return (byte) result.ordinal();
+  }
+
+  /**
+   * @return the result the status stands for, or null for {@link #MALFORMED}, {@link #INTERNAL_ERROR}
+   *         and {@link #READ_ONLY}
+   */
+  public static TransferResult result(byte status) {
+    return status < 0 ? null : TransferResult.values()[status];
+  }
+
+  /**
+   * Reads a string at the buffer's position, which must be a heap buffer.
+   *
+   * @throws BufferUnderflowException if the string runs past the buffer's limit
+   */
+  public static String readString(ByteBuffer in) {
+    int length = Short.toUnsignedInt(in.getShort());
+    if (length > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+    in.position(in.position() + length);
+    return value;
+  }
+
+  private static void putString(ByteBuffer out, byte[] value) {
+    if (value.length > 0xFFFF) {
+      throw new IllegalArgumentException("Account id longer than 65535 bytes");
+    }
+    out.putShort((short) value.length).put(value);
+  }
+}
@@ -0,0 +1,248 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.Money;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.service.AccountsService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * TCP endpoint speaking {@link BinaryTransferProtocol}, for internal callers to whom JSON and
+ * HTTP cost more than the transfer. Connections are spread over a few selector event loops;
+ * every complete frame a read brings in is executed through {@link AccountsService} on the loop
+ * thread, in order, and the responses go out in one write. A connection is not read again until
+ * its responses have been written, so a client that stops reading is held back by TCP.
+ *
+ * <p>A transfer that waits, for a lock or a journal sync, holds up the other connections of its
+ * loop; run more loops than cores when the journal is enabled. Admission control and idempotency
+ * keys apply to the REST endpoint only. On a replication follower transfers are answered with
+ * {@link BinaryTransferProtocol#READ_ONLY}, as the REST endpoint refuses them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "transfers.binary.enabled", havingValue = "true")
+public class BinaryTransferServer {
+
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  private final AccountsService accountsService;
+  private final int port;
+  private final int maxFrameBytes;
+  private final boolean readOnly;
+  private final EventLoop[] loops;
+
+  private ServerSocketChannel server;
+  private volatile boolean running = true;
+
+  @Autowired
+  public BinaryTransferServer(AccountsService accountsService,
+                              @Value("${transfers.binary.port:18082}") int port,
+                              @Value("${transfers.binary.event-loops:0}") int eventLoops,
+                              @Value("${transfers.binary.max-frame-bytes:4096}") int maxFrameBytes,
+                              @Value("${accounts.replication.role:none}") String replicationRole) {
+    this(accountsService, port, eventLoops, maxFrameBytes, "follower".equals(replicationRole));
+  }
+
+  public BinaryTransferServer(AccountsService accountsService, int port, int eventLoops, int maxFrameBytes,
+                              boolean readOnly) {
+    this.accountsService = accountsService;
+    this.port = port;
+    this.maxFrameBytes = maxFrameBytes;
+    this.readOnly = readOnly;
+    this.loops = new EventLoop[eventLoops > 0 ? eventLoops : Runtime.getRuntime().availableProcessors()];
+  }
+
+  @PostConstruct
+  public void start() throws IOException {
+    server = ServerSocketChannel.open().bind(new InetSocketAddress(port));
+    for (int i = 0; i < loops.length; i++) {
+      loops[i] = new EventLoop();
+      Thread thread = new Thread(loops[i], "binary-transfers-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    Thread acceptor = new Thread(this::acceptLoop, "binary-transfers-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    log.info("Binary transfer endpoint listening on port {}", getPort());
+  }
+
+  /**
+   * The bound port, which differs from the configured one when that is 0.
+   */
+  public int getPort() {
+    return server.socket().getLocalPort();
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    running = false;
+    server.close();
+    for (EventLoop loop : loops) {
+      loop.selector.wakeup();
+    }
+  }
+
+  private void acceptLoop() {
+    int next = 0;
+    while (running) {
+      try {
+        SocketChannel channel = server.accept();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        loops[next].add(channel);
+        next = (next + 1) % loops.length;
+      } catch (IOException e) {
+        if (running) {
+          log.error("Accepting a binary transfer connection failed", e);
+        }
+      }
+    }
+  }
+
+  private final class EventLoop implements Runnable {
+
+    private final Selector selector;
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+
+    EventLoop() throws IOException {
+      this.selector = Selector.open();
+    }
+
+    void add(SocketChannel channel) {
+      accepted.add(channel);
+      selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+      try (selector) {
+        while (running) {
+          selector.select();
+          for (SocketChannel channel; (channel = accepted.poll()) != null; ) {
+            channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+          }
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Connection connection = (Connection) key.attachment();
+            try {
+              if (key.isReadable()) {
+                connection.read(key);
+              } else if (key.isWritable()) {
+                connection.write(key);
+              }
+            } catch (IOException e) {
+              log.debug("Closing binary transfer connection: {}", e.getMessage());
+              key.cancel();
+              connection.channel.close();
+            }
+          }
+        }
+        for (SelectionKey key : selector.keys()) {
+          key.channel().close();
+        }
+      } catch (IOException e) {
+        log.error("Binary transfer event loop failed", e);
+      }
+    }
+  }
+
+  private final class Connection {
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(Math.max(BUFFER_BYTES,
+            BinaryTransferProtocol.LENGTH_BYTES + maxFrameBytes));
+    private ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+
+    Connection(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    void read(SelectionKey key) throws IOException {
+      if (channel.read(in) < 0) {
+        throw new IOException("Closed by the client");
+      }
+      in.flip();
+      while (in.remaining() >= BinaryTransferProtocol.LENGTH_BYTES) {
+        int length = in.getInt(in.position());
+        if (length < Long.BYTES || length > maxFrameBytes) {
+          throw new IOException("Frame length " + length + " out of range");
+        }
+        if (in.remaining() < BinaryTransferProtocol.LENGTH_BYTES + length) {
+          break;
+        }
+        int end = in.position() + BinaryTransferProtocol.LENGTH_BYTES + length;
+        in.position(in.position() + BinaryTransferProtocol.LENGTH_BYTES);
+        long correlationId = in.getLong();
+        execute(in.slice(in.position(), end - in.position()), correlationId);
+        in.position(end);
+      }
+      in.compact();
+      write(key);
+    }
+
+    void write(SelectionKey key) throws IOException {
+      out.flip();
+      channel.write(out);
+      boolean drained = !out.hasRemaining();
+      out.compact();
+      key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+    }
+
+    private void execute(ByteBuffer request, long correlationId) {
+      // The largest response: header, status and a balance.
+      if (out.remaining() < BinaryTransferProtocol.LENGTH_BYTES + 2 * Long.BYTES + 1) {
+        ByteBuffer grown = ByteBuffer.allocate(out.capacity() * 2);
+        grown.put(out.flip());
+        out = grown;
+      }
+      try {
+        byte opcode = request.get();
+        if (opcode == BinaryTransferProtocol.TRANSFER && readOnly) {
+          BinaryTransferProtocol.writeResponse(out, correlationId, BinaryTransferProtocol.READ_ONLY);
+        } else if (opcode == BinaryTransferProtocol.TRANSFER) {
+          String fromId = BinaryTransferProtocol.readString(request);
+          String toId = BinaryTransferProtocol.readString(request);
+          TransferResult result = accountsService.tryTransfer(fromId, toId, Money.toDecimal(request.getLong()));
+          BinaryTransferProtocol.writeResponse(out, correlationId, BinaryTransferProtocol.status(result));
+        } else if (opcode == BinaryTransferProtocol.BALANCE) {
+          Account account = accountsService.getAccount(BinaryTransferProtocol.readString(request));
+          if (account == null) {
+            BinaryTransferProtocol.writeResponse(out, correlationId,
+                    BinaryTransferProtocol.status(TransferResult.ACCOUNT_NOT_FOUND));
+          } else {
+            BinaryTransferProtocol.writeBalanceResponse(out, correlationId, account.getBalanceMinorUnits());
+          }
+        } else {
+          BinaryTransferProtocol.writeResponse(out, correlationId, BinaryTransferProtocol.MALFORMED);
+        }
+      } catch (BufferUnderflowException e) {
+        BinaryTransferProtocol.writeResponse(out, correlationId, BinaryTransferProtocol.MALFORMED);
+      } catch (RuntimeException e) {
+        log.error("Binary transfer request {} failed", correlationId, e);
+        BinaryTransferProtocol.writeResponse(out, correlationId, BinaryTransferProtocol.INTERNAL_ERROR);
+      }
+    }
+  }
+}
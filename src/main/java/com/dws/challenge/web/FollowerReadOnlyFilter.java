@@ -0,0 +1,41 @@
+package com.dws.challenge.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Refuses every request that could change state on a replication follower, whose accounts are
+ * written by the leader's journal alone.
+ */
+@Component
+@ConditionalOnProperty(name = "accounts.replication.role", havingValue = "follower")
+public class FollowerReadOnlyFilter extends OncePerRequestFilter {
+
+  // Reads that take their arguments in a request body.
+  private static final Set<String> READ_ONLY_POSTS = Set.of("/v1/accounts/balances");
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+          throws ServletException, IOException {
+    String method = request.getMethod();
+    if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method)
+            || (HttpMethod.POST.matches(method) && READ_ONLY_POSTS.contains(request.getRequestURI()))) {
+      chain.doFilter(request, response);
+      return;
+    }
+    response.setStatus(HttpStatus.FORBIDDEN.value());
+    response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+    response.getWriter().write("This node is a read-only replication follower; send writes to the leader.");
+  }
+}
@@ -0,0 +1,66 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.BalanceHold;
+import com.dws.challenge.domain.CaptureRequest;
+import com.dws.challenge.domain.HoldRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.service.HoldService;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/v1/holds")
+@Slf4j
+public class HoldsController {
+
+  private final HoldService holdService;
+
+  @Autowired
+  public HoldsController(HoldService holdService) {
+    this.holdService = holdService;
+  }
+
+  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<BalanceHold> placeHold(@RequestBody @Valid HoldRequest request) {
+    log.info("Placing hold {}", request);
+    return new ResponseEntity<>(holdService.placeHold(request), HttpStatus.CREATED);
+  }
+
+  @GetMapping(path = "/{id}")
+  public ResponseEntity<BalanceHold> getHold(@PathVariable long id) {
+    BalanceHold hold = holdService.getHold(id);
+    return hold == null ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : new ResponseEntity<>(hold, HttpStatus.OK);
+  }
+
+  @PostMapping(path = "/{id}/capture", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<String> capture(@PathVariable long id, @RequestBody @Valid CaptureRequest request) {
+    log.info("Capturing hold {}: {}", id, request);
+    return respond(holdService.capture(id, request.getAccountToId(), request.getAmount()), null,
+      request.getAccountToId());
+  }
+
+  @PostMapping(path = "/{id}/release")
+  public ResponseEntity<String> release(@PathVariable long id) {
+    log.info("Releasing hold {}", id);
+    return respond(holdService.release(id), null, null);
+  }
+
+  private static ResponseEntity<String> respond(TransferResult result, String fromId, String toId) {
+    return switch (result) {
+      case COMPLETED -> new ResponseEntity<>(HttpStatus.OK);
+      case HOLD_NOT_FOUND, ACCOUNT_NOT_FOUND -> new ResponseEntity<>(result.describe(fromId, toId),
+        HttpStatus.NOT_FOUND);
+      default -> new ResponseEntity<>(result.describe(fromId, toId), HttpStatus.BAD_REQUEST);
+    };
+  }
+}
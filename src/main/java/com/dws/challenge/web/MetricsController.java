@@ -0,0 +1,82 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.NotificationDispatchMetrics;
+import com.dws.challenge.domain.ReplicationMetrics;
+import com.dws.challenge.domain.SnapshotMetrics;
+import com.dws.challenge.domain.StandingOrderMetrics;
+import com.dws.challenge.domain.TransferMetricsSnapshot;
+import com.dws.challenge.metrics.TransferMetrics;
+import com.dws.challenge.repository.journal.FileAccountJournal;
+import com.dws.challenge.service.NotificationDispatcher;
+import com.dws.challenge.service.ReplicationFollower;
+import com.dws.challenge.service.ReplicationLeader;
+import com.dws.challenge.service.StandingOrderScheduler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/v1/metrics")
+public class MetricsController {
+
+  private final TransferMetrics transferMetrics;
+  private final NotificationDispatcher notificationDispatcher;
+  private final ObjectProvider<FileAccountJournal> journal;
+  private final StandingOrderScheduler standingOrderScheduler;
+  private final ObjectProvider<ReplicationLeader> replicationLeader;
+  private final ObjectProvider<ReplicationFollower> replicationFollower;
+
+  @Autowired
+  public MetricsController(TransferMetrics transferMetrics, NotificationDispatcher notificationDispatcher,
+                           ObjectProvider<FileAccountJournal> journal, StandingOrderScheduler standingOrderScheduler,
+                           ObjectProvider<ReplicationLeader> replicationLeader,
+                           ObjectProvider<ReplicationFollower> replicationFollower) {
+    this.transferMetrics = transferMetrics;
+    this.notificationDispatcher = notificationDispatcher;
+    this.journal = journal;
+    this.standingOrderScheduler = standingOrderScheduler;
+    this.replicationLeader = replicationLeader;
+    this.replicationFollower = replicationFollower;
+  }
+
+  @GetMapping(path = "/transfers")
+  public TransferMetricsSnapshot transfers() {
+    return transferMetrics.snapshot();
+  }
+
+  @GetMapping(path = "/notifications")
+  public NotificationDispatchMetrics notifications() {
+    return notificationDispatcher.metrics();
+  }
+
+  @GetMapping(path = "/standing-orders")
+  public StandingOrderMetrics standingOrders() {
+    return standingOrderScheduler.metrics();
+  }
+
+  @GetMapping(path = "/snapshots")
+  public ResponseEntity<SnapshotMetrics> snapshots() {
+    FileAccountJournal fileJournal = journal.getIfAvailable();
+    if (fileJournal == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    return new ResponseEntity<>(fileJournal.snapshotMetrics(), HttpStatus.OK);
+  }
+
+  @GetMapping(path = "/replication")
+  public ResponseEntity<ReplicationMetrics> replication() {
+    ReplicationLeader leader = replicationLeader.getIfAvailable();
+    if (leader != null) {
+      return new ResponseEntity<>(leader.metrics(), HttpStatus.OK);
+    }
+    ReplicationFollower follower = replicationFollower.getIfAvailable();
+    if (follower != null) {
+      return new ResponseEntity<>(follower.metrics(), HttpStatus.OK);
+    }
+    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+  }
+}
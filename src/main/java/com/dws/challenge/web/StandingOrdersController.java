@@ -0,0 +1,48 @@
+package com.dws.challenge.web;
+
+import com.dws.challenge.domain.StandingOrder;
+import com.dws.challenge.domain.StandingOrderRequest;
+import com.dws.challenge.service.StandingOrderScheduler;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/v1/standing-orders")
+@Slf4j
+public class StandingOrdersController {
+
+  private final StandingOrderScheduler standingOrderScheduler;
+
+  @Autowired
+  public StandingOrdersController(StandingOrderScheduler standingOrderScheduler) {
+    this.standingOrderScheduler = standingOrderScheduler;
+  }
+
+  @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<StandingOrder> schedule(@RequestBody @Valid StandingOrderRequest request) {
+    log.info("Scheduling standing order {}", request);
+    return new ResponseEntity<>(standingOrderScheduler.schedule(request), HttpStatus.CREATED);
+  }
+
+  @GetMapping(path = "/{id}")
+  public ResponseEntity<StandingOrder> getOrder(@PathVariable long id) {
+    StandingOrder order = standingOrderScheduler.getOrder(id);
+    return order == null ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : new ResponseEntity<>(order, HttpStatus.OK);
+  }
+
+  @DeleteMapping(path = "/{id}")
+  public ResponseEntity<Void> cancel(@PathVariable long id) {
+    return new ResponseEntity<>(standingOrderScheduler.cancel(id) ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
+  }
+}
@@ -7,10 +7,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 import com.dws.challenge.domain.Account;
 import com.dws.challenge.domain.TransferRequest;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.TransferAdmission;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +35,9 @@ class AccountsControllerTest {
   @Autowired
   private AccountsService accountsService;
 
+  @Autowired
+  private TransferAdmission transferAdmission;
+
   @Autowired
   private WebApplicationContext webApplicationContext;
 
@@ -83,6 +88,12 @@ class AccountsControllerTest {
       .content("{\"accountId\":\"Id-123\",\"balance\":-1000}")).andExpect(status().isBadRequest());
   }
 
+  @Test
+  void createAccountBalanceFinerThanMinorUnits() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+      .content("{\"accountId\":\"Id-123\",\"balance\":10.005}")).andExpect(status().isBadRequest());
+  }
+
   @Test
   void createAccountEmptyAccountId() throws Exception {
     this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
@@ -213,4 +224,388 @@ class AccountsControllerTest {
                     .content(objectMapper.writeValueAsString(transferRequest)))
             .andExpect(status().isBadRequest());
   }
+
+  @Test
+  void transferBatchBestEffort() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-From\",\"balance\":1000}")).andExpect(status().isCreated());
+
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-To\",\"balance\":500}")).andExpect(status().isCreated());
+
+    this.mockMvc.perform(post("/v1/accounts/transfers/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"mode\":\"BEST_EFFORT\",\"transfers\":["
+                            + "{\"accountFromId\":\"Id-From\",\"accountToId\":\"Id-To\",\"amount\":300},"
+                            + "{\"accountFromId\":\"Id-From\",\"accountToId\":\"Id-To\",\"amount\":5000}]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.completed").value(1))
+            .andExpect(jsonPath("$.results[0].status").value("COMPLETED"))
+            .andExpect(jsonPath("$.results[1].status").value("REJECTED"));
+
+    this.mockMvc.perform(get("/v1/accounts/Id-To"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(800));
+  }
+
+  @Test
+  void transferBatchAllOrNothingRejected() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-From\",\"balance\":100}")).andExpect(status().isCreated());
+
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-To\",\"balance\":500}")).andExpect(status().isCreated());
+
+    this.mockMvc.perform(post("/v1/accounts/transfers/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"transfers\":["
+                            + "{\"accountFromId\":\"Id-From\",\"accountToId\":\"Id-To\",\"amount\":50},"
+                            + "{\"accountFromId\":\"Id-From\",\"accountToId\":\"Id-To\",\"amount\":60}]}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.results[0].status").value("ABORTED"))
+            .andExpect(jsonPath("$.results[1].status").value("REJECTED"));
+
+    this.mockMvc.perform(get("/v1/accounts/Id-From"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balance").value(100));
+  }
+
+  @Test
+  void transferMetricsCountOutcomes() throws Exception {
+    TransferRequest transferRequest = new TransferRequest();
+    transferRequest.setAccountFromId("NonExisting");
+    transferRequest.setAccountToId("Id-To");
+    transferRequest.setAmount(new BigDecimal("100"));
+
+    this.mockMvc.perform(post("/v1/accounts/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferRequest)))
+            .andExpect(status().isBadRequest());
+
+    this.mockMvc.perform(get("/v1/metrics/transfers"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.outcomes.ACCOUNT_NOT_FOUND").isNumber())
+            .andExpect(jsonPath("$.transferLatency.count").isNumber())
+            .andExpect(jsonPath("$.hottestAccounts").isArray());
+  }
+
+  @Test
+  void transferRetryWithIdempotencyKeyIsAppliedOnce() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-From\",\"balance\":1000}")).andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-To\",\"balance\":0}")).andExpect(status().isCreated());
+
+    TransferRequest transferRequest = new TransferRequest();
+    transferRequest.setAccountFromId("Id-From");
+    transferRequest.setAccountToId("Id-To");
+    transferRequest.setAmount(new BigDecimal("300"));
+    transferRequest.setIdempotencyKey("retry-" + System.nanoTime());
+
+    for (int attempt = 0; attempt < 3; attempt++) {
+      this.mockMvc.perform(post("/v1/accounts/transfer")
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content(objectMapper.writeValueAsString(transferRequest)))
+              .andExpect(status().isOk());
+    }
+
+    this.mockMvc.perform(get("/v1/accounts/Id-From"))
+            .andExpect(jsonPath("$.balance").value(700));
+    this.mockMvc.perform(get("/v1/accounts/Id-To"))
+            .andExpect(jsonPath("$.balance").value(300));
+
+    transferRequest.setAmount(new BigDecimal("5"));
+    this.mockMvc.perform(post("/v1/accounts/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferRequest)))
+            .andExpect(status().isBadRequest());
+    this.mockMvc.perform(get("/v1/accounts/Id-From"))
+            .andExpect(jsonPath("$.balance").value(700));
+  }
+
+  @Test
+  void transferIdempotencyKeysBelongToTheirCaller() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-From\",\"balance\":1000}")).andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-To\",\"balance\":0}")).andExpect(status().isCreated());
+
+    TransferRequest transferRequest = new TransferRequest();
+    transferRequest.setAccountFromId("Id-From");
+    transferRequest.setAccountToId("Id-To");
+    transferRequest.setAmount(new BigDecimal("300"));
+    transferRequest.setIdempotencyKey("shared-" + System.nanoTime());
+    this.mockMvc.perform(post("/v1/accounts/transfer")
+                    .with(request -> { request.setRemoteAddr("10.0.0.1"); return request; })
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferRequest)))
+            .andExpect(status().isOk());
+
+    // Another caller choosing the same key makes a transfer of its own.
+    transferRequest.setAmount(new BigDecimal("5"));
+    this.mockMvc.perform(post("/v1/accounts/transfer")
+                    .with(request -> { request.setRemoteAddr("10.0.0.2"); return request; })
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferRequest)))
+            .andExpect(status().isOk());
+
+    this.mockMvc.perform(get("/v1/accounts/Id-From"))
+            .andExpect(jsonPath("$.balance").value(695));
+  }
+
+  @Test
+  void transferRetryWithIdempotencyKeyIsAnsweredWhileTheAccountIsBusy() throws Exception {
+    String fromId = "Id-Busy-" + System.nanoTime();
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"" + fromId + "\",\"balance\":1000}")).andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-To\",\"balance\":0}")).andExpect(status().isCreated());
+
+    TransferRequest transferRequest = new TransferRequest();
+    transferRequest.setAccountFromId(fromId);
+    transferRequest.setAccountToId("Id-To");
+    transferRequest.setAmount(new BigDecimal("300"));
+    transferRequest.setIdempotencyKey("busy-" + System.nanoTime());
+    this.mockMvc.perform(post("/v1/accounts/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferRequest)))
+            .andExpect(status().isOk());
+
+    int admitted = 0;
+    while (transferAdmission.admit("busy-test", fromId, "Id-To") == TransferAdmission.Decision.ADMITTED) {
+      admitted++;
+    }
+    try {
+      this.mockMvc.perform(post("/v1/accounts/transfer")
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content(objectMapper.writeValueAsString(transferRequest)))
+              .andExpect(status().isOk());
+      transferRequest.setIdempotencyKey("busy-new-" + System.nanoTime());
+      this.mockMvc.perform(post("/v1/accounts/transfer")
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content(objectMapper.writeValueAsString(transferRequest)))
+              .andExpect(status().isTooManyRequests());
+    } finally {
+      for (int i = 0; i < admitted; i++) {
+        transferAdmission.release(fromId, "Id-To");
+      }
+    }
+    this.mockMvc.perform(get("/v1/accounts/" + fromId))
+            .andExpect(jsonPath("$.balance").value(700));
+  }
+
+  @Test
+  void transferRetryWithIdempotencyKeyReplaysRejection() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-From\",\"balance\":100}")).andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-To\",\"balance\":0}")).andExpect(status().isCreated());
+
+    TransferRequest transferRequest = new TransferRequest();
+    transferRequest.setAccountFromId("Id-From");
+    transferRequest.setAccountToId("Id-To");
+    transferRequest.setAmount(new BigDecimal("150"));
+    transferRequest.setIdempotencyKey("rejected-" + System.nanoTime());
+
+    this.mockMvc.perform(post("/v1/accounts/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferRequest)))
+            .andExpect(status().isBadRequest());
+
+    // Funding the account does not change the remembered outcome of the retried request.
+    this.accountsService.getAccount("Id-From").setBalance(new BigDecimal("1000"));
+    this.mockMvc.perform(post("/v1/accounts/transfer")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(transferRequest)))
+            .andExpect(status().isBadRequest());
+    this.mockMvc.perform(get("/v1/accounts/Id-To"))
+            .andExpect(jsonPath("$.balance").value(0));
+  }
+
+  @Test
+  void importAccountsReportsRejectedLines() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-Existing\",\"balance\":1}")).andExpect(status().isCreated());
+
+    String body = "{\"accountId\":\"Id-1\",\"balance\":100}\n"
+            + "\n"
+            + "{\"accountId\":\"Id-Existing\",\"balance\":5}\n"
+            + "{\"accountId\":\"Id-2\",\"balance\":-1}\n"
+            + "not json\n"
+            + "{\"accountId\":\"Id-3\",\"balance\":7.5}";
+
+    this.mockMvc.perform(post("/v1/accounts/import").contentType(MediaType.APPLICATION_NDJSON).content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.duplicates").value(1))
+            .andExpect(jsonPath("$.invalid").value(2))
+            .andExpect(jsonPath("$.errors[0].line").value(3))
+            .andExpect(jsonPath("$.errors[0].failure").value("DUPLICATE"))
+            .andExpect(jsonPath("$.errors[1].line").value(4))
+            .andExpect(jsonPath("$.errors[2].line").value(5));
+
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("Id-3").getBalance()).isEqualByComparingTo("7.5");
+    assertThat(accountsService.getAccount("Id-Existing").getBalance()).isEqualByComparingTo("1");
+  }
+
+  @Test
+  void exportAccountsWritesOneAccountPerLine() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts/import").contentType(MediaType.APPLICATION_NDJSON)
+            .content("{\"accountId\":\"Id-1\",\"balance\":100}\n{\"accountId\":\"Id-2\",\"balance\":0.5}\n"))
+            .andExpect(status().isOk());
+
+    String exported = this.mockMvc.perform(get("/v1/accounts"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andReturn().getResponse().getContentAsString();
+
+    assertThat(exported.lines()).containsExactlyInAnyOrder(
+            "{\"accountId\":\"Id-1\",\"balance\":100.00}",
+            "{\"accountId\":\"Id-2\",\"balance\":0.50}");
+  }
+
+  @Test
+  void importAccountsStopsAtOverlongLine() throws Exception {
+    String body = "{\"accountId\":\"Id-1\",\"balance\":100}\n"
+            + "{\"accountId\":\"" + "x".repeat(5000) + "\",\"balance\":1}\n"
+            + "{\"accountId\":\"Id-After\",\"balance\":100}\n";
+
+    this.mockMvc.perform(post("/v1/accounts/import").contentType(MediaType.APPLICATION_NDJSON).content(body))
+            .andExpect(status().isBadRequest());
+
+    assertThat(accountsService.getAccount("Id-1").getBalance()).isEqualByComparingTo("100");
+    assertThat(accountsService.getAccount("Id-After")).isNull();
+  }
+
+  @Test
+  void exportAccountsIncludesFundsUnderOpenHolds() throws Exception {
+    accountsService.createAccount(new Account("Id-Export-Held", new BigDecimal("100")));
+    this.mockMvc.perform(post("/v1/holds").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-Export-Held\",\"amount\":40}"))
+            .andExpect(status().isCreated());
+
+    String exported = this.mockMvc.perform(get("/v1/accounts"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+    assertThat(exported.lines()).containsExactly("{\"accountId\":\"Id-Export-Held\",\"balance\":100.00}");
+  }
+
+  @Test
+  void accountNamedExportIsNotShadowed() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"export\",\"balance\":5}")).andExpect(status().isCreated());
+
+    this.mockMvc.perform(get("/v1/accounts/export"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.accountId").value("export"));
+  }
+
+  @Test
+  void transferMultiLeg() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-From\",\"balance\":1000}")).andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-To\",\"balance\":0}")).andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-Fee\",\"balance\":0}")).andExpect(status().isCreated());
+
+    this.mockMvc.perform(post("/v1/accounts/transfers/multi-leg").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"debits\":[{\"accountId\":\"Id-From\",\"amount\":100}],"
+                    + "\"credits\":[{\"accountId\":\"Id-To\",\"amount\":98},{\"accountId\":\"Id-Fee\",\"amount\":2}]}"))
+            .andExpect(status().isOk());
+    this.mockMvc.perform(post("/v1/accounts/transfers/multi-leg").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"debits\":[{\"accountId\":\"Id-From\",\"amount\":1000}],"
+                    + "\"credits\":[{\"accountId\":\"Id-To\",\"amount\":1000}]}"))
+            .andExpect(status().isBadRequest());
+
+    this.mockMvc.perform(get("/v1/accounts/Id-From")).andExpect(jsonPath("$.balance").value(900));
+    this.mockMvc.perform(get("/v1/accounts/Id-To")).andExpect(jsonPath("$.balance").value(98));
+    this.mockMvc.perform(get("/v1/accounts/Id-Fee")).andExpect(jsonPath("$.balance").value(2));
+  }
+
+  @Test
+  void balanceSnapshot() throws Exception {
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-1\",\"balance\":100}")).andExpect(status().isCreated());
+    this.mockMvc.perform(post("/v1/accounts").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-2\",\"balance\":2.5}")).andExpect(status().isCreated());
+
+    this.mockMvc.perform(post("/v1/accounts/balances").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountIds\":[\"Id-2\",\"Id-Missing\",\"Id-1\",\"Id-2\"]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.balances.Id-1").value(100))
+            .andExpect(jsonPath("$.balances.Id-2").value(2.5))
+            .andExpect(jsonPath("$.unknownAccountIds[0]").value("Id-Missing"));
+
+    this.mockMvc.perform(post("/v1/accounts/balances").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountIds\":[]}"))
+            .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void transferHistory() throws Exception {
+    String since = Instant.now().minusMillis(1).toString();
+    accountsService.createAccount(new Account("Id-History-1", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-History-2", new BigDecimal("100")));
+    accountsService.transfer("Id-History-1", "Id-History-2", new BigDecimal("10"));
+    accountsService.transfer("Id-History-2", "Id-History-1", new BigDecimal("2.5"));
+    accountsService.transfer("Id-History-1", "Id-History-2", new BigDecimal("1"));
+
+    String firstPage = this.mockMvc.perform(get("/v1/accounts/Id-History-1/transfers")
+            .param("from", since).param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transfers.length()").value(2))
+            .andExpect(jsonPath("$.transfers[0].amount").value(1))
+            .andExpect(jsonPath("$.transfers[1].accountFromId").value("Id-History-2"))
+            .andExpect(jsonPath("$.nextCursor").isNumber())
+            .andReturn().getResponse().getContentAsString();
+    long cursor = objectMapper.readTree(firstPage).get("nextCursor").asLong();
+
+    this.mockMvc.perform(get("/v1/accounts/Id-History-1/transfers")
+            .param("from", since).param("cursor", Long.toString(cursor)).param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transfers.length()").value(1))
+            .andExpect(jsonPath("$.transfers[0].amount").value(10))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+    this.mockMvc.perform(get("/v1/accounts/Id-Missing/transfers")).andExpect(status().isNotFound());
+    this.mockMvc.perform(get("/v1/accounts/Id-History-1/transfers").param("limit", "0"))
+            .andExpect(status().isBadRequest());
+    this.mockMvc.perform(get("/v1/accounts/Id-History-1/transfers").param("from", "yesterday"))
+            .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void holds() throws Exception {
+    accountsService.createAccount(new Account("Id-Hold-1", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-Hold-2", BigDecimal.ZERO));
+
+    String placed = this.mockMvc.perform(post("/v1/holds").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-Hold-1\",\"amount\":30}"))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.amount").value(30))
+            .andReturn().getResponse().getContentAsString();
+    long id = objectMapper.readTree(placed).get("id").asLong();
+
+    this.mockMvc.perform(get("/v1/accounts/Id-Hold-1/funds"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.available").value(70))
+            .andExpect(jsonPath("$.reserved").value(30));
+    this.mockMvc.perform(post("/v1/holds/" + id + "/capture").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountToId\":\"Id-Hold-2\",\"amount\":31}"))
+            .andExpect(status().isBadRequest());
+    this.mockMvc.perform(post("/v1/holds/" + id + "/capture").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountToId\":\"Id-Hold-2\",\"amount\":10}"))
+            .andExpect(status().isOk());
+    this.mockMvc.perform(post("/v1/holds/" + id + "/release")).andExpect(status().isNotFound());
+    this.mockMvc.perform(get("/v1/holds/" + id)).andExpect(status().isNotFound());
+
+    assertThat(accountsService.getAccount("Id-Hold-1").getBalance()).isEqualByComparingTo("90");
+    assertThat(accountsService.getAccount("Id-Hold-2").getBalance()).isEqualByComparingTo("10");
+    this.mockMvc.perform(post("/v1/holds").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"accountId\":\"Id-Hold-1\",\"amount\":90.01}"))
+            .andExpect(status().isBadRequest());
+  }
 }
@@ -1,15 +1,24 @@
 package com.dws.challenge;
 
 import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.BatchTransferResult;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.domain.TransferStatus;
 import com.dws.challenge.exception.InsufficientBalanceException;
 import com.dws.challenge.exception.InvalidTransferRequestException;
 import com.dws.challenge.repository.AccountsRepository;
 import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.LockingTransferEngine;
 import com.dws.challenge.service.NotificationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import java.math.BigDecimal;
+import java.util.List;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -21,7 +30,6 @@ class AccountsServiceTest {
   @Mock
   private NotificationService notificationService;
 
-  @InjectMocks
   private AccountsService accountsService;
 
   private Account fromAccount;
@@ -30,6 +38,8 @@ class AccountsServiceTest {
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
+    accountsService = new AccountsService(accountsRepository, new DirectNotificationDispatcher(notificationService),
+            new LockingTransferEngine());
 
     fromAccount = new Account("Id-From", new BigDecimal("1000"));
     toAccount = new Account("Id-To", new BigDecimal("500"));
@@ -42,7 +52,7 @@ class AccountsServiceTest {
   void createAccount_delegatesToRepository() {
     Account account = new Account("Id-123", BigDecimal.TEN);
     accountsService.createAccount(account);
-    verify(accountsRepository).createAccount(account);
+    verify(accountsRepository).createAccount(eq(account), any());
   }
 
   @Test
@@ -100,6 +110,49 @@ class AccountsServiceTest {
             .hasMessageContaining("Account Id-From has insufficient balance.");
   }
 
+  @Test
+  void tryTransfer_reportsRejectionsWithoutThrowing() {
+    when(accountsRepository.getAccount("NonExistent")).thenReturn(null);
+
+    assertThat(accountsService.tryTransfer("Id-From", "Id-To", new BigDecimal("1500")))
+            .isEqualTo(TransferResult.INSUFFICIENT_BALANCE);
+    assertThat(accountsService.tryTransfer("Id-From", "Id-From", BigDecimal.TEN))
+            .isEqualTo(TransferResult.SAME_ACCOUNT);
+    assertThat(accountsService.tryTransfer("Id-From", "Id-To", BigDecimal.ZERO))
+            .isEqualTo(TransferResult.NON_POSITIVE_AMOUNT);
+    assertThat(accountsService.tryTransfer("Id-From", "Id-To", new BigDecimal("0.001")))
+            .isEqualTo(TransferResult.UNREPRESENTABLE_AMOUNT);
+    assertThat(accountsService.tryTransfer("Id-From", "Id-To", new BigDecimal("1.100")))
+            .isEqualTo(TransferResult.COMPLETED);
+    assertThat(accountsService.tryTransfer("Id-From", "NonExistent", BigDecimal.TEN))
+            .isEqualTo(TransferResult.ACCOUNT_NOT_FOUND);
+    toAccount.setBalanceMinorUnits(Long.MAX_VALUE - 1);
+    assertThat(accountsService.tryTransfer("Id-From", "Id-To", BigDecimal.ONE))
+            .isEqualTo(TransferResult.BALANCE_OVERFLOW);
+
+    assertThat(fromAccount.getBalance()).isEqualByComparingTo("998.90");
+  }
+
+  @Test
+  void transfer_amountFinerThanMinorUnits_throwsInvalidTransferRequestException() {
+    assertThatThrownBy(() -> accountsService.transfer("Id-From", "Id-To", new BigDecimal("0.001")))
+            .isInstanceOf(InvalidTransferRequestException.class);
+
+    assertThat(fromAccount.getBalance()).isEqualByComparingTo("1000");
+  }
+
+  @Test
+  void transfer_destinationOverflow_throwsInvalidTransferRequestException() {
+    toAccount.setBalanceMinorUnits(Long.MAX_VALUE - 1);
+
+    assertThatThrownBy(() -> accountsService.transfer("Id-From", "Id-To", BigDecimal.ONE))
+            .isInstanceOf(InvalidTransferRequestException.class)
+            .hasMessage("Transfer would overflow the balance of account Id-To.");
+
+    assertThat(fromAccount.getBalanceMinorUnits()).isEqualTo(100_000L);
+    assertThat(toAccount.getBalanceMinorUnits()).isEqualTo(Long.MAX_VALUE - 1);
+  }
+
   @Test
   void transfer_givenNonExistentSourceAccount_throwsInvalidTransferRequestException() {
     when(accountsRepository.getAccount("NonExistent")).thenReturn(null);
@@ -140,4 +193,116 @@ class AccountsServiceTest {
     assertThat(fromAccount.getBalance()).isEqualByComparingTo("10100");
     assertThat(toAccount.getBalance()).isEqualByComparingTo("9900");
   }
+
+  @Test
+  void transferBatch_allOrNothing_appliesEveryLegInOrder() {
+    BatchTransferResult result = accountsService.transferBatch(List.of(
+            leg("Id-From", "Id-To", "1000"),
+            leg("Id-To", "Id-From", "1200")), BatchTransferMode.ALL_OR_NOTHING);
+
+    assertThat(result.getCompleted()).isEqualTo(2);
+    assertThat(result.getResults()).extracting("status")
+            .containsExactly(TransferStatus.COMPLETED, TransferStatus.COMPLETED);
+    assertThat(fromAccount.getBalance()).isEqualByComparingTo("1200");
+    assertThat(toAccount.getBalance()).isEqualByComparingTo("300");
+    verify(notificationService).notifyAboutTransfer(fromAccount, "Transferred 1000 to account Id-To");
+    verify(notificationService).notifyAboutTransfer(toAccount, "Transferred 1200 to account Id-From");
+  }
+
+  @Test
+  void transferBatch_allOrNothing_insufficientBalanceAbortsWholeBatch() {
+    BatchTransferResult result = accountsService.transferBatch(List.of(
+            leg("Id-From", "Id-To", "600"),
+            leg("Id-From", "Id-To", "600")), BatchTransferMode.ALL_OR_NOTHING);
+
+    assertThat(result.getCompleted()).isZero();
+    assertThat(result.getResults()).extracting("status")
+            .containsExactly(TransferStatus.ABORTED, TransferStatus.REJECTED);
+    assertThat(result.getResults().get(1).getMessage()).isEqualTo("Account Id-From has insufficient balance.");
+    assertThat(fromAccount.getBalance()).isEqualByComparingTo("1000");
+    assertThat(toAccount.getBalance()).isEqualByComparingTo("500");
+    verifyNoInteractions(notificationService);
+  }
+
+  @Test
+  void transferBatch_bestEffort_skipsRejectedLegs() {
+    when(accountsRepository.getAccount("NonExistent")).thenReturn(null);
+
+    BatchTransferResult result = accountsService.transferBatch(List.of(
+            leg("Id-From", "Id-To", "600"),
+            leg("Id-From", "NonExistent", "10"),
+            leg("Id-From", "Id-To", "600"),
+            leg("Id-From", "Id-To", "400")), BatchTransferMode.BEST_EFFORT);
+
+    assertThat(result.getCompleted()).isEqualTo(2);
+    assertThat(result.getFailed()).isEqualTo(2);
+    assertThat(result.getResults()).extracting("status").containsExactly(
+            TransferStatus.COMPLETED, TransferStatus.REJECTED, TransferStatus.REJECTED, TransferStatus.COMPLETED);
+    assertThat(result.getResults().get(1).getMessage()).isEqualTo("Source or destination account does not exist.");
+    assertThat(fromAccount.getBalance()).isZero();
+    assertThat(toAccount.getBalance()).isEqualByComparingTo("1500");
+  }
+
+  @Test
+  void transferMultiLeg_splitPayment_movesEveryLegAndNotifiesEachPair() {
+    Account fee = new Account("Id-Fee", BigDecimal.ZERO);
+    when(accountsRepository.getAccount("Id-Fee")).thenReturn(fee);
+
+    accountsService.transferMultiLeg(
+            List.of(new TransferLeg("Id-From", new BigDecimal("300"))),
+            List.of(new TransferLeg("Id-To", new BigDecimal("290")), new TransferLeg("Id-Fee", BigDecimal.TEN)));
+
+    assertThat(fromAccount.getBalance()).isEqualByComparingTo("700");
+    assertThat(toAccount.getBalance()).isEqualByComparingTo("790");
+    assertThat(fee.getBalance()).isEqualByComparingTo("10");
+    verify(notificationService).notifyAboutTransfer(fromAccount, "Transferred 290.00 to account Id-To");
+    verify(notificationService).notifyAboutTransfer(fromAccount, "Transferred 10.00 to account Id-Fee");
+    verify(notificationService).notifyAboutTransfer(fee, "Received 10.00 from account Id-From");
+  }
+
+  @Test
+  void transferMultiLeg_oneDebitShort_changesNothing() {
+    Account other = new Account("Id-Other", new BigDecimal("50"));
+    when(accountsRepository.getAccount("Id-Other")).thenReturn(other);
+
+    assertThatThrownBy(() -> accountsService.transferMultiLeg(
+            List.of(new TransferLeg("Id-From", new BigDecimal("100")), new TransferLeg("Id-Other", new BigDecimal("60"))),
+            List.of(new TransferLeg("Id-To", new BigDecimal("160")))))
+            .isInstanceOf(InsufficientBalanceException.class)
+            .hasMessage("Account Id-Other has insufficient balance.");
+
+    assertThat(fromAccount.getBalance()).isEqualByComparingTo("1000");
+    assertThat(other.getBalance()).isEqualByComparingTo("50");
+    assertThat(toAccount.getBalance()).isEqualByComparingTo("500");
+    verifyNoInteractions(notificationService);
+  }
+
+  @Test
+  void transferMultiLeg_invalidShapes_areRejected() {
+    assertThatThrownBy(() -> accountsService.transferMultiLeg(
+            List.of(new TransferLeg("Id-From", new BigDecimal("100"))),
+            List.of(new TransferLeg("Id-To", new BigDecimal("90")))))
+            .isInstanceOf(InvalidTransferRequestException.class)
+            .hasMessage("Debits and credits must add up to the same amount.");
+    assertThatThrownBy(() -> accountsService.transferMultiLeg(
+            List.of(new TransferLeg("Id-From", new BigDecimal("100"))),
+            List.of(new TransferLeg("Id-To", new BigDecimal("50")), new TransferLeg("Id-From", new BigDecimal("50")))))
+            .isInstanceOf(InvalidTransferRequestException.class)
+            .hasMessage("Cannot transfer to the same account.");
+    assertThatThrownBy(() -> accountsService.transferMultiLeg(
+            List.of(new TransferLeg("Id-From", new BigDecimal("100"))),
+            List.of(new TransferLeg("NonExistent", new BigDecimal("100")))))
+            .isInstanceOf(InvalidTransferRequestException.class)
+            .hasMessage("Account NonExistent does not exist.");
+
+    assertThat(fromAccount.getBalance()).isEqualByComparingTo("1000");
+  }
+
+  private static TransferRequest leg(String fromId, String toId, String amount) {
+    TransferRequest request = new TransferRequest();
+    request.setAccountFromId(fromId);
+    request.setAccountToId(toId);
+    request.setAmount(new BigDecimal(amount));
+    return request;
+  }
 }
@@ -0,0 +1,75 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.NotificationDispatchMetrics;
+import com.dws.challenge.service.AsyncNotificationDispatcher;
+import com.dws.challenge.service.NotificationService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncNotificationDispatcherTest {
+
+  @Test
+  void coalescesPendingNotificationsPerAccount() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    Map<String, String> received = new ConcurrentHashMap<>();
+    NotificationService blockingService = (account, description) -> {
+      awaitQuietly(release);
+      received.merge(account.getAccountId(), description, (a, b) -> a + "|" + b);
+    };
+    AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(blockingService, 100, 100, 0);
+    Account from = new Account("Id-From");
+    Account to = new Account("Id-To");
+
+    dispatcher.transferCompleted(from, to, BigDecimal.ONE);
+    // The worker is now blocked on the first notification, so the next two queue up together.
+    Thread.sleep(50);
+    dispatcher.transferCompleted(from, to, BigDecimal.TEN);
+    dispatcher.transferCompleted(to, from, new BigDecimal("2"));
+    release.countDown();
+    dispatcher.shutdown();
+
+    assertThat(received.get("Id-From")).isEqualTo("Transferred 1 to account Id-To|"
+      + "Transferred 10 to account Id-To\nReceived 2 from account Id-To");
+    NotificationDispatchMetrics metrics = dispatcher.metrics();
+    // Two notifications for the first transfer, then one per account for the coalesced pair.
+    assertThat(metrics.getDelivered()).isEqualTo(4);
+    assertThat(metrics.getBatches()).isEqualTo(2);
+    assertThat(metrics.getDropped()).isZero();
+  }
+
+  @Test
+  void dropsAndCountsWhenQueueStaysFull() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(
+      (account, description) -> awaitQuietly(release), 1, 1, 1);
+    Account from = new Account("Id-From");
+    Account to = new Account("Id-To");
+
+    dispatcher.transferCompleted(from, to, BigDecimal.ONE);
+    Thread.sleep(50);
+    dispatcher.transferCompleted(from, to, BigDecimal.ONE);
+    dispatcher.transferCompleted(from, to, BigDecimal.ONE);
+
+    NotificationDispatchMetrics metrics = dispatcher.metrics();
+    assertThat(metrics.getQueueDepth()).isEqualTo(1);
+    assertThat(metrics.getDropped()).isEqualTo(1);
+    release.countDown();
+    dispatcher.shutdown();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.web.BinaryTransferProtocol;
+import com.dws.challenge.web.BinaryTransferServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryTransferServerTest {
+
+  @Test
+  void pipelinedRequestsAreAnsweredInOrder() throws Exception {
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine());
+    accountsService.createAccount(new Account("Id-From", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-To", BigDecimal.ZERO));
+    BinaryTransferServer server = new BinaryTransferServer(accountsService, 0, 2, 4096, false);
+    server.start();
+
+    try (SocketChannel client = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+      ByteBuffer requests = ByteBuffer.allocate(4096);
+      for (int i = 1; i <= 1_000; i++) {
+        BinaryTransferProtocol.writeTransfer(requests, i, "Id-From", "Id-To", 1);
+        if (requests.remaining() < 64) {
+          send(client, requests);
+        }
+      }
+      BinaryTransferProtocol.writeTransfer(requests, 1_001, "Id-From", "Id-To", 9_001);
+      BinaryTransferProtocol.writeTransfer(requests, 1_002, "Id-From", "Id-Missing", 1);
+      BinaryTransferProtocol.writeBalance(requests, 1_003, "Id-To");
+      // An unknown opcode is answered without dropping the connection.
+      requests.putInt(Long.BYTES + 1).putLong(1_004).put((byte) 99);
+      BinaryTransferProtocol.writeBalance(requests, 1_005, "Id-From");
+      send(client, requests);
+
+      ByteBuffer responses = ByteBuffer.allocate(4096).flip();
+      for (int i = 1; i <= 1_000; i++) {
+        assertResponse(client, responses, i, TransferResult.COMPLETED.ordinal());
+      }
+      assertResponse(client, responses, 1_001, TransferResult.INSUFFICIENT_BALANCE.ordinal());
+      assertResponse(client, responses, 1_002, TransferResult.ACCOUNT_NOT_FOUND.ordinal());
+      assertResponse(client, responses, 1_003, TransferResult.COMPLETED.ordinal());
+      assertThat(responses.getLong()).isEqualTo(1_000);
+      assertResponse(client, responses, 1_004, BinaryTransferProtocol.MALFORMED);
+      assertResponse(client, responses, 1_005, TransferResult.COMPLETED.ordinal());
+      assertThat(responses.getLong()).isEqualTo(9_000);
+    } finally {
+      server.close();
+    }
+    assertThat(accountsService.getAccount("Id-To").getBalance()).isEqualByComparingTo("10");
+  }
+
+  @Test
+  void followerAnswersTransfersAsReadOnlyAndStillServesBalances() throws Exception {
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine());
+    accountsService.createAccount(new Account("Id-From", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-To", BigDecimal.ZERO));
+    BinaryTransferServer server = new BinaryTransferServer(accountsService, 0, 1, 4096, true);
+    server.start();
+
+    try (SocketChannel client = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+      ByteBuffer requests = ByteBuffer.allocate(4096);
+      BinaryTransferProtocol.writeTransfer(requests, 1, "Id-From", "Id-To", 1_000);
+      BinaryTransferProtocol.writeBalance(requests, 2, "Id-From");
+      send(client, requests);
+
+      ByteBuffer responses = ByteBuffer.allocate(4096).flip();
+      assertResponse(client, responses, 1, BinaryTransferProtocol.READ_ONLY);
+      assertResponse(client, responses, 2, TransferResult.COMPLETED.ordinal());
+      assertThat(responses.getLong()).isEqualTo(10_000);
+    } finally {
+      server.close();
+    }
+    assertThat(accountsService.getAccount("Id-To").getBalance()).isEqualByComparingTo("0");
+  }
+
+  private static void send(SocketChannel client, ByteBuffer requests) throws Exception {
+    requests.flip();
+    while (requests.hasRemaining()) {
+      client.write(requests);
+    }
+    requests.clear();
+  }
+
+  private static void assertResponse(SocketChannel client, ByteBuffer responses, long correlationId, int status)
+          throws Exception {
+    ensureAvailable(client, responses, BinaryTransferProtocol.LENGTH_BYTES);
+    int length = responses.getInt();
+    ensureAvailable(client, responses, length);
+    assertThat(responses.getLong()).isEqualTo(correlationId);
+    assertThat(responses.get()).isEqualTo((byte) status);
+  }
+
+  private static void ensureAvailable(SocketChannel client, ByteBuffer responses, int bytes) throws Exception {
+    while (responses.remaining() < bytes) {
+      responses.compact();
+      if (client.read(responses) < 0) {
+        throw new EOFException();
+      }
+      responses.flip();
+    }
+  }
+}
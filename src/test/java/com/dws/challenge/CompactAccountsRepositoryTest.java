@@ -0,0 +1,97 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.repository.CompactAccountsRepository;
+import com.dws.challenge.service.CasTransferEngine;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.service.TransferEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactAccountsRepositoryTest {
+
+  private CompactAccountsRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new CompactAccountsRepository();
+  }
+
+  @Test
+  void createAccount_isFoundByIdThroughGrowth() {
+    for (int i = 0; i < 200_000; i++) {
+      repository.createAccount(new Account("Id-" + i, BigDecimal.valueOf(i)));
+    }
+
+    assertThat(repository.size()).isEqualTo(200_000);
+    assertThat(repository.getAccount("Id-0").getBalance()).isEqualByComparingTo("0");
+    assertThat(repository.getAccount("Id-123456").getBalance()).isEqualByComparingTo("123456");
+    assertThat(repository.getAccount("Id-200000")).isNull();
+    assertThatThrownBy(() -> repository.createAccount(new Account("Id-42", BigDecimal.ONE)))
+            .isInstanceOf(DuplicateAccountIdException.class);
+  }
+
+  @Test
+  void viewsWriteThroughToTheStore() {
+    repository.createAccount(new Account("Id-From", new BigDecimal("100")));
+    repository.createAccount(new Account("Id-To", BigDecimal.ZERO));
+    TransferEngine engine = new CasTransferEngine();
+
+    engine.transfer(repository.getAccount("Id-From"), repository.getAccount("Id-To"), 4_000);
+
+    assertThat(repository.getAccount("Id-From").getBalance()).isEqualByComparingTo("60");
+    assertThat(repository.getAccount("Id-To").getBalance()).isEqualByComparingTo("40");
+    assertThatThrownBy(() -> engine.transfer(repository.getAccount("Id-From"), repository.getAccount("Id-To"), 6_001))
+            .isInstanceOf(InsufficientBalanceException.class);
+    assertThat(repository.getAccount("Id-From")).isEqualTo(new Account("Id-From", new BigDecimal("60")));
+  }
+
+  @Test
+  void forEachAccount_visitsEveryAccountAndClearEmptiesTheStore() {
+    repository.createAccount(new Account("Id-Ä", new BigDecimal("1.50")));
+    repository.createAccount(new Account("Id-B", BigDecimal.TEN));
+
+    Map<String, BigDecimal> visited = new HashMap<>();
+    repository.forEachAccount(account -> visited.put(account.getAccountId(), account.getBalance()));
+    assertThat(visited).containsOnlyKeys("Id-Ä", "Id-B");
+    assertThat(visited.get("Id-Ä")).isEqualByComparingTo("1.50");
+
+    repository.clearAccounts();
+    assertThat(repository.getAccount("Id-B")).isNull();
+    repository.createAccount(new Account("Id-B", BigDecimal.ONE));
+    assertThat(repository.getAccount("Id-B").getBalance()).isEqualByComparingTo("1");
+  }
+
+  @Test
+  void viewsOfOneAccountShareItsLockUnderTheLockingEngine() throws InterruptedException {
+    repository.createAccount(new Account("Id-A", new BigDecimal("100")));
+    repository.createAccount(new Account("Id-B", new BigDecimal("100")));
+    TransferEngine engine = new LockingTransferEngine();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 10_000; i++) {
+      boolean forward = i % 2 == 0;
+      executor.execute(() -> engine.transfer(repository.getAccount(forward ? "Id-A" : "Id-B"),
+              repository.getAccount(forward ? "Id-B" : "Id-A"), 1));
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(repository.getAccount("Id-A").getHandle()).isZero();
+    assertThat(repository.getAccount("Id-B").getHandle()).isEqualTo(1);
+    assertThat(repository.getAccount("Id-A").getBalance()).isEqualByComparingTo("100");
+    assertThat(repository.getAccount("Id-B").getBalance()).isEqualByComparingTo("100");
+  }
+}
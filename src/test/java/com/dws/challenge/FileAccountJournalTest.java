@@ -0,0 +1,287 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.SnapshotMetrics;
+import com.dws.challenge.metrics.TransferMetrics;
+import com.dws.challenge.repository.AccountsRepository;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.ShardedAccountsRepository;
+import com.dws.challenge.repository.history.DisabledTransferHistory;
+import com.dws.challenge.repository.journal.AccountJournal;
+import com.dws.challenge.repository.journal.FileAccountJournal;
+import com.dws.challenge.repository.journal.JournalCodec;
+import com.dws.challenge.repository.journal.ReplayedAccounts;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.CasTransferEngine;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileAccountJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replaysConcurrentlyAppendedRecordsAfterRestart() throws Exception {
+    FileAccountJournal journal = new FileAccountJournal(directory);
+    journal.awaitDurable(journal.appendAccountCreated("A", 1_000_000));
+    journal.awaitDurable(journal.appendAccountCreated("B", 0));
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 8; i++) {
+      executor.execute(() -> {
+        for (int j = 0; j < 500; j++) {
+          journal.awaitDurable(journal.appendTransfer("A", "B", 3));
+        }
+      });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    journal.awaitDurable(journal.appendPostings(Map.of("A", -10L, "B", 10L)));
+    journal.close();
+
+    FileAccountJournal reopened = new FileAccountJournal(directory);
+    Map<String, Long> balances = replay(reopened);
+    reopened.close();
+
+    assertThat(balances).containsEntry("A", 1_000_000L - 12_000 - 10).containsEntry("B", 12_010L);
+  }
+
+  @Test
+  void ignoresTornRecordAtEndOfSegment() throws Exception {
+    FileAccountJournal journal = new FileAccountJournal(directory);
+    journal.awaitDurable(journal.appendAccountCreated("A", 500));
+    journal.awaitDurable(journal.appendTransfer("A", "B", 200));
+    journal.close();
+    truncateLastSegmentBy(5);
+
+    FileAccountJournal reopened = new FileAccountJournal(directory);
+    Map<String, Long> balances = replay(reopened);
+    reopened.close();
+
+    assertThat(balances).containsOnly(Map.entry("A", 500L));
+  }
+
+  @Test
+  void startupLoadsSnapshotAndReplaysOnlyLaterSegments() throws Exception {
+    FileAccountJournal journal = new FileAccountJournal(directory);
+    journal.awaitDurable(journal.appendAccountCreated("A", 1_000));
+    journal.awaitDurable(journal.appendTransfer("A", "B", 100));
+    SnapshotMetrics first = journal.snapshot();
+    journal.awaitDurable(journal.appendAccountCreated("B", 50));
+    journal.awaitDurable(journal.appendTransfer("B", "A", 30));
+    SnapshotMetrics second = journal.snapshot();
+    journal.awaitDurable(journal.appendTransfer("A", "B", 1));
+    journal.close();
+
+    assertThat(first.getLastAccounts()).isEqualTo(2);
+    assertThat(second.getSnapshotsTaken()).isEqualTo(2);
+    assertThat(second.getLastBytes()).isPositive();
+    try (var files = Files.list(directory)) {
+      assertThat(files.map(path -> path.getFileName().toString()))
+        .filteredOn(name -> name.startsWith("snapshot-")).hasSize(2);
+    }
+
+    FileAccountJournal reopened = new FileAccountJournal(directory);
+    Map<String, Long> balances = replay(reopened);
+    reopened.close();
+
+    assertThat(balances).containsEntry("A", 929L).containsEntry("B", 121L);
+  }
+
+  @Test
+  void startupFallsBackToPreviousSnapshotWhenNewestIsDamaged() throws Exception {
+    FileAccountJournal journal = new FileAccountJournal(directory);
+    journal.awaitDurable(journal.appendAccountCreated("A", 1_000));
+    journal.awaitDurable(journal.appendTransfer("A", "B", 100));
+    journal.snapshot();
+    journal.awaitDurable(journal.appendAccountCreated("B", 50));
+    journal.awaitDurable(journal.appendTransfer("B", "A", 30));
+    journal.snapshot();
+    journal.awaitDurable(journal.appendTransfer("A", "B", 1));
+    journal.snapshot();
+    journal.close();
+
+    Path newest;
+    try (var files = Files.list(directory)) {
+      newest = files.filter(path -> path.getFileName().toString().startsWith("snapshot-"))
+        .max(Path::compareTo).orElseThrow();
+    }
+    try (FileChannel channel = FileChannel.open(newest, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer middle = ByteBuffer.allocate(1);
+      channel.read(middle, channel.size() / 2);
+      middle.put(0, (byte) ~middle.get(0));
+      channel.write(middle.rewind(), channel.size() / 2);
+    }
+
+    FileAccountJournal reopened = new FileAccountJournal(directory);
+    Map<String, Long> balances = replay(reopened);
+    reopened.close();
+
+    assertThat(balances).containsEntry("A", 929L).containsEntry("B", 121L);
+  }
+
+  /**
+   * The journal lags on the creation of R2 and on the transfer that funds R1. Whatever the engine,
+   * a transfer from R1 to R2 must not get ahead of either record, so the journal cut after any
+   * record replays to accounts that were created and balances that are not negative.
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"locking", "cas", "sharded"})
+  void dependentChangesAreNeverJournaledAheadOfWhatTheySpend(String engineName) throws Exception {
+    FileAccountJournal file = new FileAccountJournal(directory);
+    AccountJournal journal = new LaggingJournal(file, "R2", "R0");
+    AccountsService accountsService = switch (engineName) {
+      case "sharded" -> {
+        ShardedAccountsRepository repository = new ShardedAccountsRepository(4);
+        yield service(repository, new ShardedTransferEngine(repository), journal);
+      }
+      case "cas" -> service(new AccountsRepositoryInMemory(), new CasTransferEngine(), journal);
+      default -> service(new AccountsRepositoryInMemory(), new LockingTransferEngine(), journal);
+    };
+    accountsService.createAccount(new Account("R0", BigDecimal.TEN));
+    accountsService.createAccount(new Account("R1", BigDecimal.ZERO));
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    executor.execute(() -> accountsService.createAccount(new Account("R2", BigDecimal.ZERO)));
+    executor.execute(() -> accountsService.transfer("R0", "R1", BigDecimal.TEN));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (accountsService.getAccount("R2") == null || accountsService.getAccount("R1").getBalanceMinorUnits() == 0) {
+      assertThat(System.nanoTime()).as("R2 created and R1 funded in time").isLessThan(deadline);
+      Thread.onSpinWait();
+    }
+    accountsService.transfer("R1", "R2", BigDecimal.TEN);
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    file.close();
+
+    ByteBuffer records;
+    try (var files = Files.list(directory)) {
+      records = ByteBuffer.wrap(Files.readAllBytes(files.filter(path -> Files.isRegularFile(path)).findFirst()
+        .orElseThrow()));
+    }
+    int cuts = 0;
+    for (int end = 0; end < records.limit(); end += Integer.BYTES * 2 + records.getInt(end)) {
+      assertConsistent(records.slice(0, end));
+      cuts++;
+    }
+    assertConsistent(records.slice());
+    assertThat(cuts).isEqualTo(5);
+  }
+
+  private static void assertConsistent(ByteBuffer prefix) {
+    ReplayedAccounts replayed = new ReplayedAccounts();
+    assertThat(JournalCodec.decode(prefix.duplicate(), replayed)).isEqualTo(prefix.limit());
+    replayed.forEach((accountId, wasCreated, balanceMinorUnits) -> {
+      assertThat(wasCreated).as("creation of %s", accountId).isTrue();
+      assertThat(balanceMinorUnits).as("balance of %s", accountId).isNotNegative();
+    });
+  }
+
+  private static AccountsService service(AccountsRepository repository, TransferEngine engine,
+                                         AccountJournal journal) {
+    return new AccountsService(repository, new DirectNotificationDispatcher((account, description) -> { }), engine,
+      journal, new TransferMetrics(), Set.of("R3"), new DisabledTransferHistory());
+  }
+
+  /**
+   * Delays the creation of one account and the transfers out of another before appending them.
+   */
+  private record LaggingJournal(AccountJournal journal, String lateCreationId, String lateTransferFromId)
+    implements AccountJournal {
+
+    @Override
+    public long appendAccountCreated(String accountId, long balanceMinorUnits) {
+      lagIf(accountId.equals(lateCreationId));
+      return journal.appendAccountCreated(accountId, balanceMinorUnits);
+    }
+
+    @Override
+    public long appendTransfer(String fromId, String toId, long amountMinorUnits) {
+      lagIf(fromId.equals(lateTransferFromId));
+      return journal.appendTransfer(fromId, toId, amountMinorUnits);
+    }
+
+    @Override
+    public long appendPostings(Map<String, Long> deltasByAccountId) {
+      return journal.appendPostings(deltasByAccountId);
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+      journal.awaitDurable(sequence);
+    }
+
+    @Override
+    public void replay(Handler handler) {
+      journal.replay(handler);
+    }
+
+    private static void lagIf(boolean late) {
+      if (late) {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private static Map<String, Long> replay(AccountJournal journal) {
+    Map<String, Long> balances = new HashMap<>();
+    journal.replay(new AccountJournal.Handler() {
+      @Override
+      public void accountCreated(String accountId, long balanceMinorUnits) {
+        balances.merge(accountId, balanceMinorUnits, Long::sum);
+      }
+
+      @Override
+      public void posted(String accountId, long deltaMinorUnits) {
+        balances.merge(accountId, deltaMinorUnits, Long::sum);
+      }
+    });
+    return balances;
+  }
+
+  private void truncateLastSegmentBy(int bytes) throws IOException {
+    Path segment;
+    try (var files = Files.list(directory)) {
+      segment = files.filter(path -> Files.isRegularFile(path) && sizeOf(path) > 0).sorted()
+        .reduce((first, second) -> second).orElseThrow();
+    }
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - bytes);
+    }
+  }
+
+  private static long sizeOf(Path path) {
+    try {
+      return Files.size(path);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
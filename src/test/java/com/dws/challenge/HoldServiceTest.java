@@ -0,0 +1,196 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.AccountFunds;
+import com.dws.challenge.domain.BalanceHold;
+import com.dws.challenge.domain.HoldRequest;
+import com.dws.challenge.domain.TransferMetricsSnapshot;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.metrics.TransferMetrics;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.history.DisabledTransferHistory;
+import com.dws.challenge.repository.journal.DisabledAccountJournal;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.HoldService;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.service.TransferEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HoldServiceTest {
+
+  private final MutableClock clock = new MutableClock(1_000_000);
+
+  private AccountsService accountsService;
+
+  private HoldService holdService;
+
+  @BeforeEach
+  void setUp() {
+    accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine());
+    accountsService.createAccount(new Account("Id-From", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-To", BigDecimal.ZERO));
+    holdService = new HoldService(accountsService, 60, 3600, 1000, clock);
+  }
+
+  @Test
+  void capture_paysTheCapturedPartAndReleasesTheRest() {
+    BalanceHold hold = holdService.placeHold(request("40", null));
+
+    assertFunds("60", "40");
+    // Held funds are not available to transfers.
+    assertThat(accountsService.tryTransfer("Id-From", "Id-To", new BigDecimal("61")))
+      .isEqualTo(TransferResult.INSUFFICIENT_BALANCE);
+    assertThat(holdService.capture(hold.getId(), "Id-To", new BigDecimal("41")))
+      .isEqualTo(TransferResult.CAPTURE_EXCEEDS_HOLD);
+
+    assertThat(holdService.capture(hold.getId(), "Id-To", new BigDecimal("25"))).isEqualTo(TransferResult.COMPLETED);
+
+    assertFunds("75", "0");
+    assertThat(accountsService.getAccount("Id-To").getBalance()).isEqualByComparingTo("25");
+    assertThat(holdService.getHold(hold.getId())).isNull();
+    assertThat(holdService.capture(hold.getId(), "Id-To", null)).isEqualTo(TransferResult.HOLD_NOT_FOUND);
+    assertThat(holdService.release(hold.getId())).isEqualTo(TransferResult.HOLD_NOT_FOUND);
+  }
+
+  @Test
+  void capture_isCountedInTheTransferMetrics() {
+    TransferMetrics metrics = new TransferMetrics();
+    accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine(),
+      new DisabledAccountJournal(), metrics, Set.of(), new DisabledTransferHistory());
+    accountsService.createAccount(new Account("Id-From", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-To", BigDecimal.ZERO));
+    holdService = new HoldService(accountsService, 60, 3600, 1000, clock);
+    BalanceHold hold = holdService.placeHold(request("40", null));
+
+    assertThat(holdService.capture(hold.getId(), "Id-Missing", null)).isEqualTo(TransferResult.ACCOUNT_NOT_FOUND);
+    assertThat(holdService.capture(hold.getId(), "Id-To", null)).isEqualTo(TransferResult.COMPLETED);
+
+    TransferMetricsSnapshot snapshot = metrics.snapshot();
+    assertThat(snapshot.getOutcomes()).containsEntry(TransferOutcome.COMPLETED, 1L)
+      .containsEntry(TransferOutcome.ACCOUNT_NOT_FOUND, 1L);
+    assertThat(snapshot.getTransferLatency().getCount()).isEqualTo(2);
+  }
+
+  @Test
+  void release_returnsTheWholeHold() {
+    BalanceHold hold = holdService.placeHold(request("40", null));
+
+    assertThat(holdService.release(hold.getId())).isEqualTo(TransferResult.COMPLETED);
+
+    assertFunds("100", "0");
+    assertThatThrownBy(() -> holdService.placeHold(request("100.01", null)))
+      .isInstanceOf(InsufficientBalanceException.class);
+  }
+
+  @Test
+  void releaseExpired_releasesHoldsOnceTheirExpiryHasPassed() {
+    BalanceHold shortHold = holdService.placeHold(request("10", 5L));
+    BalanceHold defaultHold = holdService.placeHold(request("20", null));
+    assertThat(defaultHold.getExpiresAt()).isEqualTo(Instant.ofEpochMilli(1_060_000));
+
+    clock.millis = 1_004_999;
+    holdService.releaseExpired();
+    assertFunds("70", "30");
+
+    clock.millis = 1_005_000;
+    holdService.releaseExpired();
+    assertThat(holdService.getHold(shortHold.getId())).isNull();
+    assertFunds("80", "20");
+
+    clock.millis = 1_060_000;
+    holdService.releaseExpired();
+    assertThat(holdService.getHold(defaultHold.getId())).isNull();
+    assertFunds("100", "0");
+  }
+
+  @Test
+  void releaseExpired_releasesAHoldWhoseCaptureFailedWhileItExpired() {
+    HoldService[] service = new HoldService[1];
+    // The hold expires while the capture is being settled, and the capture is then rejected.
+    TransferEngine engine = new LockingTransferEngine() {
+      @Override
+      public TransferResult settleReserved(Account source, long heldMinorUnits, Account destination,
+                                           long capturedMinorUnits, CommitListener listener) {
+        if (destination == null) {
+          return super.settleReserved(source, heldMinorUnits, destination, capturedMinorUnits, listener);
+        }
+        clock.millis = 1_005_000;
+        service[0].releaseExpired();
+        return TransferResult.BALANCE_OVERFLOW;
+      }
+    };
+    accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), engine);
+    accountsService.createAccount(new Account("Id-From", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-To", BigDecimal.ZERO));
+    holdService = new HoldService(accountsService, 60, 3600, 1000, clock);
+    service[0] = holdService;
+
+    BalanceHold hold = holdService.placeHold(request("10", 5L));
+    assertThat(holdService.capture(hold.getId(), "Id-To", null)).isEqualTo(TransferResult.BALANCE_OVERFLOW);
+    assertThat(holdService.getHold(hold.getId())).isNotNull();
+
+    clock.millis = 1_006_000;
+    holdService.releaseExpired();
+    assertThat(holdService.getHold(hold.getId())).isNull();
+    assertFunds("100", "0");
+  }
+
+  private void assertFunds(String available, String reserved) {
+    AccountFunds funds = holdService.funds("Id-From");
+    assertThat(funds.getAvailable()).isEqualByComparingTo(available);
+    assertThat(funds.getReserved()).isEqualByComparingTo(reserved);
+  }
+
+  private static HoldRequest request(String amount, Long expiresInSeconds) {
+    HoldRequest request = new HoldRequest();
+    request.setAccountId("Id-From");
+    request.setAmount(new BigDecimal(amount));
+    request.setExpiresInSeconds(expiresInSeconds);
+    return request;
+  }
+
+  private static final class MutableClock extends Clock {
+    long millis;
+
+    MutableClock(long millis) {
+      this.millis = millis;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.dws.challenge;
+
+import com.dws.challenge.service.LogRateCap;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogRateCapTest {
+
+  private final AtomicLong nanos = new AtomicLong(1_000);
+
+  @Test
+  void tryLog_dropsLinesOverTheCapAndReportsThemWithTheNextOneLetThrough() {
+    LogRateCap cap = new LogRateCap(2, nanos::get);
+
+    assertThat(cap.tryLog()).isZero();
+    assertThat(cap.tryLog()).isZero();
+    for (int i = 0; i < 5; i++) {
+      assertThat(cap.tryLog()).isEqualTo(-1);
+    }
+    assertThat(cap.dropped()).isEqualTo(5);
+
+    // 2 per second: one more line after half a second.
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+    assertThat(cap.tryLog()).isEqualTo(5);
+    assertThat(cap.dropped()).isZero();
+    assertThat(cap.tryLog()).isEqualTo(-1);
+    assertThat(cap.dropped()).isEqualTo(1);
+  }
+
+  @Test
+  void tryLog_letsEveryLineThroughWithoutACap() {
+    LogRateCap cap = new LogRateCap(0, nanos::get);
+
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(cap.tryLog()).isZero();
+    }
+    assertThat(cap.dropped()).isZero();
+  }
+}
@@ -0,0 +1,128 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.ReplicationMetrics;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.journal.FileAccountJournal;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.service.ReplicationFollower;
+import com.dws.challenge.service.ReplicationLeader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicationTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void followerCatchesUpFromSnapshotSegmentsAndLiveFlushes() throws Exception {
+    FileAccountJournal journal = new FileAccountJournal(directory);
+    journal.awaitDurable(journal.appendAccountCreated("A", 1_000_000));
+    journal.awaitDurable(journal.appendAccountCreated("B", 0));
+    journal.awaitDurable(journal.appendTransfer("A", "B", 100));
+    journal.snapshot();
+    journal.awaitDurable(journal.appendTransfer("A", "B", 50));
+
+    ReplicationLeader leader = new ReplicationLeader(journal, 0, 20, 1 << 20);
+    leader.start();
+    AccountsService followerAccounts = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine());
+    ReplicationFollower follower = new ReplicationFollower(followerAccounts,
+      new InetSocketAddress("localhost", leader.getPort()), 50);
+    follower.start();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 4; i++) {
+      executor.execute(() -> {
+        for (int j = 0; j < 250; j++) {
+          journal.awaitDurable(journal.appendTransfer("A", "B", 3));
+        }
+      });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+    journal.awaitDurable(journal.appendAccountCreated("C", 5));
+    journal.awaitDurable(journal.appendPostings(Map.of("B", -10L, "C", 10L)));
+
+    awaitTrue(() -> followerAccounts.getAccount("C") != null
+      && followerAccounts.getAccount("B").getBalanceMinorUnits() == 150 + 3_000 - 10);
+    assertThat(followerAccounts.getAccount("A").getBalanceMinorUnits()).isEqualTo(1_000_000 - 150 - 3_000);
+    assertThat(followerAccounts.getAccount("C").getBalanceMinorUnits()).isEqualTo(15);
+
+    awaitTrue(() -> follower.metrics().getLagMillis() >= 0);
+    ReplicationMetrics followerMetrics = follower.metrics();
+    assertThat(followerMetrics.getConnections()).isEqualTo(1);
+    assertThat(followerMetrics.getBootstraps()).isEqualTo(1);
+    assertThat(followerMetrics.getLagMillis()).isLessThan(10_000);
+    assertThat(leader.metrics().getConnections()).isEqualTo(1);
+    assertThat(leader.metrics().getBootstraps()).isEqualTo(1);
+
+    follower.close();
+    leader.close();
+    journal.close();
+  }
+
+  @Test
+  void followerKeepsServingAccountsWhileItBootstrapsAgain() throws Exception {
+    FileAccountJournal journal = new FileAccountJournal(directory);
+    journal.awaitDurable(journal.appendAccountCreated("A", 1_000));
+    journal.awaitDurable(journal.appendAccountCreated("B", 0));
+    ReplicationLeader leader = new ReplicationLeader(journal, 0, 20, 1 << 20);
+    leader.start();
+    int port = leader.getPort();
+    AccountsService followerAccounts = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine());
+    ReplicationFollower follower = new ReplicationFollower(followerAccounts,
+      new InetSocketAddress("localhost", port), 20);
+    follower.start();
+    awaitTrue(() -> follower.metrics().getBootstraps() == 1);
+
+    leader.close();
+    awaitTrue(() -> follower.metrics().getConnections() == 0);
+    journal.awaitDurable(journal.appendTransfer("A", "B", 400));
+    AtomicBoolean missing = new AtomicBoolean();
+    AtomicBoolean reading = new AtomicBoolean(true);
+    Thread reader = new Thread(() -> {
+      while (reading.get()) {
+        if (followerAccounts.getAccount("A") == null || followerAccounts.getAccount("B") == null) {
+          missing.set(true);
+        }
+      }
+    });
+    reader.start();
+    ReplicationLeader restarted = new ReplicationLeader(journal, port, 20, 1 << 20);
+    restarted.start();
+
+    awaitTrue(() -> follower.metrics().getBootstraps() == 2);
+    reading.set(false);
+    reader.join();
+    assertThat(missing).isFalse();
+    assertThat(followerAccounts.getAccount("A").getBalanceMinorUnits()).isEqualTo(600);
+    assertThat(followerAccounts.getAccount("B").getBalanceMinorUnits()).isEqualTo(400);
+
+    follower.close();
+    restarted.close();
+    journal.close();
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+}
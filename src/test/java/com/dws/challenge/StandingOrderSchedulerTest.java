@@ -0,0 +1,158 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.StandingOrder;
+import com.dws.challenge.domain.StandingOrderMetrics;
+import com.dws.challenge.domain.StandingOrderRequest;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.service.StandingOrderScheduler;
+import com.dws.challenge.service.TimerWheel;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StandingOrderSchedulerTest {
+
+  private static final class Deadline extends TimerWheel.Timer {
+    final long expected;
+
+    Deadline(long expected) {
+      this.expected = expected;
+    }
+  }
+
+  @Test
+  void timerWheel_expiresEveryTimerExactlyAtItsDeadline() {
+    TimerWheel wheel = new TimerWheel(0);
+    SplittableRandom random = new SplittableRandom(7);
+    List<Deadline> cancelled = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      // Spread over all but the top level, which would take too many ticks to reach.
+      Deadline timer = new Deadline(1 + random.nextLong(1L << (8 + 6 * random.nextInt(4))));
+      wheel.schedule(timer, timer.expected);
+      if (i % 10 == 0) {
+        cancelled.add(timer);
+      }
+    }
+    cancelled.forEach(wheel::cancel);
+
+    List<Deadline> expired = new ArrayList<>();
+    long[] lastDeadline = {0};
+    while (wheel.size() > 0) {
+      long tick = wheel.currentTick() + 1 + random.nextInt(1000);
+      wheel.advance(tick, timer -> {
+        assertThat(timer.getDeadline()).isEqualTo(((Deadline) timer).expected).isLessThanOrEqualTo(tick)
+          .isGreaterThanOrEqualTo(lastDeadline[0]).isEqualTo(wheel.currentTick());
+        lastDeadline[0] = timer.getDeadline();
+        expired.add((Deadline) timer);
+      });
+    }
+
+    assertThat(expired).hasSize(18_000).doesNotContainAnyElementsOf(cancelled);
+  }
+
+  @Test
+  void constructor_rejectsNonPositiveBatchSize() {
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine());
+
+    assertThatThrownBy(() -> new StandingOrderScheduler(accountsService, 100, 0, new MutableClock(0)))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void runDue_executesDueOrdersAndReschedulesRecurringOnes() {
+    MutableClock clock = new MutableClock(1_000_000);
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine());
+    accountsService.createAccount(new Account("Id-From", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-To", BigDecimal.ZERO));
+    StandingOrderScheduler scheduler = new StandingOrderScheduler(accountsService, 100, 2, clock);
+
+    StandingOrder recurring = scheduler.schedule(request("10", null, 1L));
+    StandingOrder once = scheduler.schedule(request("5", Instant.ofEpochMilli(1_002_500), null));
+    StandingOrder tooLarge = scheduler.schedule(request("1000", Instant.ofEpochMilli(1_000_250), null));
+
+    clock.millis = 1_000_050;
+    scheduler.runDue();
+    assertThat(accountsService.getAccount("Id-To").getBalance()).isEqualByComparingTo("0");
+
+    clock.millis = 1_002_600;
+    scheduler.runDue();
+    // The recurring order at 0s and the one-off at 2.5s; the oversized one is rejected.
+    assertThat(accountsService.getAccount("Id-To").getBalance()).isEqualByComparingTo("15");
+
+    // Missed occurrences of the recurring order catch up one per tick.
+    clock.millis = 1_002_700;
+    scheduler.runDue();
+    clock.millis = 1_002_800;
+    scheduler.runDue();
+    assertThat(accountsService.getAccount("Id-To").getBalance()).isEqualByComparingTo("35");
+    assertThat(scheduler.getOrder(recurring.getId()).getNextDueAt()).isEqualTo(Instant.ofEpochMilli(1_003_000));
+    assertThat(scheduler.getOrder(once.getId())).isNull();
+    assertThat(scheduler.getOrder(tooLarge.getId())).isNull();
+
+    assertThat(scheduler.cancel(recurring.getId())).isTrue();
+    clock.millis = 1_010_000;
+    scheduler.runDue();
+    assertThat(accountsService.getAccount("Id-To").getBalance()).isEqualByComparingTo("35");
+
+    StandingOrderMetrics metrics = scheduler.metrics();
+    assertThat(metrics.getPending()).isZero();
+    assertThat(metrics.getExecuted()).isEqualTo(5);
+    assertThat(metrics.getCompleted()).isEqualTo(4);
+    assertThat(metrics.getRejected()).isEqualTo(1);
+    assertThat(metrics.getLag().getCount()).isEqualTo(5);
+  }
+
+  private static StandingOrderRequest request(String amount, Instant firstDueAt, Long intervalSeconds) {
+    StandingOrderRequest request = new StandingOrderRequest();
+    request.setAccountFromId("Id-From");
+    request.setAccountToId("Id-To");
+    request.setAmount(new BigDecimal(amount));
+    request.setFirstDueAt(firstDueAt);
+    request.setIntervalSeconds(intervalSeconds);
+    return request;
+  }
+
+  private static final class MutableClock extends Clock {
+    long millis;
+
+    MutableClock(long millis) {
+      this.millis = millis;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+}
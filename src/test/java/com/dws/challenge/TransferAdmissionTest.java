@@ -0,0 +1,77 @@
+package com.dws.challenge;
+
+import com.dws.challenge.service.TransferAdmission;
+import com.dws.challenge.service.TransferAdmission.Decision;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferAdmissionTest {
+
+  private final AtomicLong nanos = new AtomicLong(1_000);
+
+  @Test
+  void admit_limitsClientToBurstThenRefillsAtRate() {
+    TransferAdmission admission = new TransferAdmission(64, 10, 3, 0, 1, 0, nanos::get);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(admission.admit("client-1", "Id-" + i, "Id-To")).isEqualTo(Decision.ADMITTED);
+    }
+    assertThat(admission.admit("client-1", "Id-4", "Id-To")).isEqualTo(Decision.CLIENT_RATE_EXCEEDED);
+    assertThat(admission.admit("client-2", "Id-4", "Id-To")).isEqualTo(Decision.ADMITTED);
+
+    // 10 per second: one more token after 100ms.
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(admission.admit("client-1", "Id-4", "Id-To")).isEqualTo(Decision.ADMITTED);
+    assertThat(admission.admit("client-1", "Id-5", "Id-To")).isEqualTo(Decision.CLIENT_RATE_EXCEEDED);
+  }
+
+  @Test
+  void admit_limitsSourceAccountAcrossClients() {
+    TransferAdmission admission = new TransferAdmission(64, 0, 1, 1, 2, 0, nanos::get);
+
+    assertThat(admission.admit("client-1", "Id-Hot", "Id-To")).isEqualTo(Decision.ADMITTED);
+    assertThat(admission.admit("client-2", "Id-Hot", "Id-To")).isEqualTo(Decision.ADMITTED);
+    assertThat(admission.admit("client-3", "Id-Hot", "Id-To")).isEqualTo(Decision.ACCOUNT_RATE_EXCEEDED);
+    assertThat(admission.admit("client-3", "Id-To", "Id-Hot")).isEqualTo(Decision.ADMITTED);
+  }
+
+  @Test
+  void admit_boundsTransfersInFlightPerAccountUntilReleased() {
+    TransferAdmission admission = new TransferAdmission(64, 0, 1, 0, 1, 2, nanos::get);
+
+    assertThat(admission.admit("client", "Id-A", "Id-Hot")).isEqualTo(Decision.ADMITTED);
+    assertThat(admission.admit("client", "Id-Hot", "Id-B")).isEqualTo(Decision.ADMITTED);
+    assertThat(admission.admit("client", "Id-C", "Id-Hot")).isEqualTo(Decision.ACCOUNT_BUSY);
+    // The rejected request left nothing behind on its source account.
+    assertThat(admission.admit("client", "Id-C", "Id-D")).isEqualTo(Decision.ADMITTED);
+
+    admission.release("Id-A", "Id-Hot");
+    assertThat(admission.admit("client", "Id-E", "Id-Hot")).isEqualTo(Decision.ADMITTED);
+  }
+
+  @Test
+  void admit_takesNoTokenFromARequestRejectedByAnotherLimit() {
+    TransferAdmission admission = new TransferAdmission(64, 10, 1, 1, 1, 0, nanos::get);
+
+    assertThat(admission.admit("client-1", "Id-Hot", "Id-To")).isEqualTo(Decision.ADMITTED);
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(admission.admit("client-1", "Id-Hot", "Id-To")).isEqualTo(Decision.ACCOUNT_RATE_EXCEEDED);
+    // The client's token was not spent on the rejected request.
+    assertThat(admission.admit("client-1", "Id-Other", "Id-To")).isEqualTo(Decision.ADMITTED);
+  }
+
+  @Test
+  void retryAfterNanos_isTheWaitForTheSlowerBucket() {
+    TransferAdmission admission = new TransferAdmission(64, 10, 1, 1, 1, 0, nanos::get);
+
+    assertThat(admission.admit("client-1", "Id-Hot", "Id-To")).isEqualTo(Decision.ADMITTED);
+    assertThat(admission.retryAfterNanos("client-1", "Id-Other")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(admission.retryAfterNanos("client-2", "Id-Hot")).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    assertThat(admission.retryAfterNanos("client-1", "Id-Hot")).isZero();
+  }
+}
@@ -0,0 +1,157 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.BalanceHold;
+import com.dws.challenge.domain.BatchTransferMode;
+import com.dws.challenge.domain.HoldRequest;
+import com.dws.challenge.domain.TransferLeg;
+import com.dws.challenge.domain.TransferRequest;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.JournalUnavailableException;
+import com.dws.challenge.metrics.TransferMetrics;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.audit.FileTransferAuditLog;
+import com.dws.challenge.repository.history.DisabledTransferHistory;
+import com.dws.challenge.repository.journal.AccountJournal;
+import com.dws.challenge.repository.journal.DisabledAccountJournal;
+import com.dws.challenge.service.AccountsService;
+import com.dws.challenge.service.DirectNotificationDispatcher;
+import com.dws.challenge.service.HoldService;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.web.BinaryTransferProtocol;
+import com.dws.challenge.web.BinaryTransferServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransferAuditLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void everyCompletedTransferIsAuditedWhateverItsPath() throws Exception {
+    FileTransferAuditLog auditLog = new FileTransferAuditLog(directory, 1 << 20);
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine(),
+      new DisabledAccountJournal(), new TransferMetrics(), Set.of(), new DisabledTransferHistory(), auditLog);
+    accountsService.createAccount(new Account("Id-A", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-B", BigDecimal.ZERO));
+    accountsService.createAccount(new Account("Id-C", BigDecimal.ZERO));
+
+    accountsService.transfer("Id-A", "Id-B", new BigDecimal("1"));
+    assertThat(accountsService.tryTransfer("Id-A", "Id-B", new BigDecimal("1000")))
+      .isEqualTo(TransferResult.INSUFFICIENT_BALANCE);
+    accountsService.transferBatch(List.of(leg("Id-A", "Id-B", "2"), leg("Id-B", "Id-C", "3")),
+      BatchTransferMode.ALL_OR_NOTHING);
+    accountsService.transferMultiLeg(List.of(new TransferLeg("Id-A", new BigDecimal("4"))),
+      List.of(new TransferLeg("Id-B", new BigDecimal("1")), new TransferLeg("Id-C", new BigDecimal("3"))));
+    HoldService holdService = new HoldService(accountsService, 60, 3600, 1000, Clock.systemUTC());
+    HoldRequest holdRequest = new HoldRequest();
+    holdRequest.setAccountId("Id-A");
+    holdRequest.setAmount(new BigDecimal("5"));
+    BalanceHold hold = holdService.placeHold(holdRequest);
+    assertThat(holdService.capture(hold.getId(), "Id-C", null)).isEqualTo(TransferResult.COMPLETED);
+
+    BinaryTransferServer server = new BinaryTransferServer(accountsService, 0, 1, 4096, false);
+    server.start();
+    try (SocketChannel client = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+      ByteBuffer frames = ByteBuffer.allocate(256);
+      BinaryTransferProtocol.writeTransfer(frames, 1, "Id-C", "Id-A", 600);
+      client.write(frames.flip());
+      ByteBuffer response = ByteBuffer.allocate(BinaryTransferProtocol.LENGTH_BYTES + Long.BYTES + 1);
+      while (response.hasRemaining()) {
+        client.read(response);
+      }
+      assertThat(response.get(response.limit() - 1)).isEqualTo(BinaryTransferProtocol.status(TransferResult.COMPLETED));
+    } finally {
+      server.close();
+    }
+    auditLog.close();
+
+    // A later run appends to a segment of its own and reads the earlier ones back.
+    FileTransferAuditLog reopened = new FileTransferAuditLog(directory, 1 << 20);
+    reopened.append(List.of(reopened.prepare("Id-B", "Id-A", 1)));
+    reopened.close();
+    assertThat(segments()).hasSize(2);
+    assertThat(readAll(reopened)).containsExactly(
+      "Id-A>Id-B:100", "Id-A>Id-B:200", "Id-B>Id-C:300", "Id-A>Id-B:100", "Id-A>Id-C:300", "Id-A>Id-C:500",
+      "Id-C>Id-A:600", "Id-B>Id-A:1");
+  }
+
+  @Test
+  void aTransferWhoseJournalRecordFailsIsNotAudited() throws Exception {
+    FileTransferAuditLog auditLog = new FileTransferAuditLog(directory, 1 << 20);
+    AccountJournal failingJournal = new DisabledAccountJournal() {
+      @Override
+      public long appendTransfer(String fromId, String toId, long amountMinorUnits) {
+        throw new JournalUnavailableException("Journal write failed", null);
+      }
+    };
+    AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory(),
+      new DirectNotificationDispatcher((account, description) -> { }), new LockingTransferEngine(),
+      failingJournal, new TransferMetrics(), Set.of(), new DisabledTransferHistory(), auditLog);
+    accountsService.createAccount(new Account("Id-A", new BigDecimal("100")));
+    accountsService.createAccount(new Account("Id-B", BigDecimal.ZERO));
+
+    assertThatThrownBy(() -> accountsService.transfer("Id-A", "Id-B", new BigDecimal("1")))
+      .isInstanceOf(JournalUnavailableException.class);
+    auditLog.close();
+
+    assertThat(readAll(auditLog)).isEmpty();
+    assertThat(accountsService.getAccount("Id-A").getBalance()).isEqualByComparingTo("100");
+  }
+
+  @Test
+  void fullSegmentsRollOverAndNothingIsLost() throws Exception {
+    FileTransferAuditLog auditLog = new FileTransferAuditLog(directory, 256);
+    for (int i = 0; i < 100; i++) {
+      auditLog.append(List.of(auditLog.prepare("Id-From", "Id-To", i)));
+    }
+    auditLog.close();
+
+    assertThat(segments().size()).isGreaterThan(1);
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      expected.add("Id-From>Id-To:" + i);
+    }
+    assertThat(readAll(auditLog)).containsExactlyElementsOf(expected);
+  }
+
+  private List<Path> segments() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.toList();
+    }
+  }
+
+  private static List<String> readAll(FileTransferAuditLog auditLog) {
+    List<String> records = new ArrayList<>();
+    auditLog.read((timestampMillis, fromId, toId, amountMinorUnits) -> {
+      assertThat(timestampMillis).isPositive();
+      records.add(fromId + ">" + toId + ":" + amountMinorUnits);
+    });
+    return records;
+  }
+
+  private static TransferRequest leg(String fromId, String toId, String amount) {
+    TransferRequest request = new TransferRequest();
+    request.setAccountFromId(fromId);
+    request.setAccountToId(toId);
+    request.setAmount(new BigDecimal(amount));
+    return request;
+  }
+}
@@ -0,0 +1,352 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.TransferResult;
+import com.dws.challenge.exception.DuplicateAccountIdException;
+import com.dws.challenge.exception.InsufficientBalanceException;
+import com.dws.challenge.exception.InvalidTransferRequestException;
+import com.dws.challenge.exception.JournalUnavailableException;
+import com.dws.challenge.exception.SnapshotUnavailableException;
+import com.dws.challenge.exception.UnsupportedByTransferEngineException;
+import com.dws.challenge.repository.AccountsRepositoryInMemory;
+import com.dws.challenge.repository.ShardedAccountsRepository;
+import com.dws.challenge.service.AccountLockTable;
+import com.dws.challenge.service.CasTransferEngine;
+import com.dws.challenge.service.LockingTransferEngine;
+import com.dws.challenge.service.ShardedTransferEngine;
+import com.dws.challenge.service.TransferEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransferEngineTest {
+
+  static Stream<Arguments> engines() {
+    return Stream.of(Arguments.of(new LockingTransferEngine()), Arguments.of(new CasTransferEngine()),
+      Arguments.of(new ShardedTransferEngine(new ShardedAccountsRepository(4))));
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void transfer_movesFunds(TransferEngine engine) {
+    Account from = new Account("Id-From");
+    from.setBalanceMinorUnits(1_000);
+    Account to = new Account("Id-To");
+
+    engine.transfer(from, to, 300);
+
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(700);
+    assertThat(to.getBalanceMinorUnits()).isEqualTo(300);
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void transfer_overdraftIsRejectedWithoutSideEffects(TransferEngine engine) {
+    Account from = new Account("Id-From");
+    from.setBalanceMinorUnits(100);
+    Account to = new Account("Id-To");
+
+    assertThatThrownBy(() -> engine.transfer(from, to, 101))
+            .isInstanceOf(InsufficientBalanceException.class);
+
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(100);
+    assertThat(to.getBalanceMinorUnits()).isZero();
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void transfer_overflowIsRejectedWithoutSideEffects(TransferEngine engine) {
+    Account from = new Account("Id-From");
+    from.setBalanceMinorUnits(100);
+    Account to = new Account("Id-To");
+    to.setBalanceMinorUnits(Long.MAX_VALUE);
+
+    assertThatThrownBy(() -> engine.transfer(from, to, 1))
+            .isInstanceOf(InvalidTransferRequestException.class);
+
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(100);
+    assertThat(to.getBalanceMinorUnits()).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void transfer_failingCommitListenerLeavesBalancesUntouched(TransferEngine engine) {
+    Account from = new Account("Id-From");
+    from.setBalanceMinorUnits(100);
+    Account to = new Account("Id-To");
+
+    assertThatThrownBy(() -> engine.tryTransfer(from, to, 40, (debited, credited, amount) -> {
+      throw new JournalUnavailableException("Journal write failed", null);
+    })).isInstanceOf(JournalUnavailableException.class);
+
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(100);
+    assertThat(to.getBalanceMinorUnits()).isZero();
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void reserve_settlesCapturedPartAndReturnsTheRest(TransferEngine engine) {
+    Account from = new Account("Id-From");
+    from.setBalanceMinorUnits(1_000);
+    Account to = new Account("Id-To");
+
+    assertThat(engine.tryReserve(from, 1_001)).isEqualTo(TransferResult.INSUFFICIENT_BALANCE);
+    assertThat(engine.tryReserve(from, 400)).isEqualTo(TransferResult.COMPLETED);
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(600);
+
+    assertThat(engine.settleReserved(from, 400, to, 150)).isEqualTo(TransferResult.COMPLETED);
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(850);
+    assertThat(to.getBalanceMinorUnits()).isEqualTo(150);
+
+    assertThat(engine.tryReserve(from, 850)).isEqualTo(TransferResult.COMPLETED);
+    assertThat(engine.settleReserved(from, 850, null, 0)).isEqualTo(TransferResult.COMPLETED);
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(850);
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void settle_returningTheRestWouldOverflowSoNothingChanges(TransferEngine engine) {
+    Account from = new Account("Id-From");
+    from.setBalanceMinorUnits(1_000);
+    Account to = new Account("Id-To");
+    assertThat(engine.tryReserve(from, 400)).isEqualTo(TransferResult.COMPLETED);
+    from.setBalanceMinorUnits(Long.MAX_VALUE - 100);
+
+    assertThat(engine.settleReserved(from, 400, to, 150)).isEqualTo(TransferResult.BALANCE_OVERFLOW);
+
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(Long.MAX_VALUE - 100);
+    assertThat(to.getBalanceMinorUnits()).isZero();
+  }
+
+  @Test
+  void casSettle_capturedFundsAlreadySpentWaitsForTheSourceInsteadOfLeavingHalfASettlement() {
+    Account from = new Account("Id-From");
+    from.setBalanceMinorUnits(1_000);
+    CasTransferEngine engine = new CasTransferEngine();
+    assertThat(engine.tryReserve(from, 400)).isEqualTo(TransferResult.COMPLETED);
+    Account to = new Account("Id-To") {
+      @Override
+      public void creditMinorUnits(long amountMinorUnits) {
+        super.creditMinorUnits(amountMinorUnits);
+        // A large credit reaches the source before the rest of the hold goes back to it.
+        from.setBalanceMinorUnits(Long.MAX_VALUE - 100);
+      }
+
+      @Override
+      public boolean tryDebitMinorUnits(long amountMinorUnits) {
+        // The capture has been spent, and meanwhile the source spends enough to take the rest.
+        from.tryDebitMinorUnits(1_000);
+        return false;
+      }
+    };
+
+    assertThat(engine.settleReserved(from, 400, to, 150)).isEqualTo(TransferResult.COMPLETED);
+
+    assertThat(from.getBalanceMinorUnits()).isEqualTo(Long.MAX_VALUE - 100 - 1_000 + 250);
+    assertThat(to.getBalanceMinorUnits()).isEqualTo(150);
+  }
+
+  @Test
+  void shardedRepository_refusesToStartWithAnotherAccountStore() {
+    assertThatThrownBy(() -> new ShardedAccountsRepository(4, "compact"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("accounts.repository=compact");
+  }
+
+  @Test
+  void casEngine_refusesMultiAccountOperationsAsUnsupported() {
+    CasTransferEngine engine = new CasTransferEngine();
+    List<Account> accounts = List.of(new Account("Id-A"), new Account("Id-B"));
+
+    assertThatThrownBy(() -> engine.snapshotBalances(accounts))
+            .isInstanceOf(UnsupportedByTransferEngineException.class);
+    assertThatThrownBy(() -> engine.withAccountsLocked(accounts, () -> null))
+            .isInstanceOf(UnsupportedByTransferEngineException.class);
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void transfer_concurrentTransfersConserveFundsAndNeverOverdraw(TransferEngine engine) throws InterruptedException {
+    List<Account> accounts = Stream.of("A", "B", "C", "D").map(Account::new).toList();
+    accounts.forEach(account -> account.setBalanceMinorUnits(1_000));
+    for (int i = 0; i < accounts.size(); i++) {
+      accounts.get(i).setHandle(accounts.size() - i);
+    }
+    AtomicInteger negativeSeen = new AtomicInteger();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 20_000; i++) {
+      executor.execute(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts.size());
+        int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+        try {
+          engine.transfer(accounts.get(from), accounts.get(to), 1 + random.nextInt(400));
+        } catch (InsufficientBalanceException ignored) {
+          // expected under contention
+        }
+        if (accounts.get(from).getBalanceMinorUnits() < 0) {
+          negativeSeen.incrementAndGet();
+        }
+      });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(negativeSeen).hasValue(0);
+    assertThat(accounts.stream().mapToLong(Account::getBalanceMinorUnits).sum()).isEqualTo(4_000);
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void transfer_concurrentCreditsToHotAccountAreAllCounted(TransferEngine engine) throws InterruptedException {
+    Account collector = new Account("Collector");
+    collector.enableStripedCredits();
+    List<Account> payers = Stream.of("A", "B", "C", "D", "E", "F", "G", "H").map(Account::new).toList();
+    payers.forEach(account -> account.setBalanceMinorUnits(10_000));
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (Account payer : payers) {
+      executor.execute(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          engine.transfer(payer, collector, 1);
+        }
+      });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(collector.getBalanceMinorUnits()).isEqualTo(80_000);
+    payers.forEach(payer -> assertThat(payer.getBalanceMinorUnits()).isZero());
+  }
+
+  @ParameterizedTest
+  @MethodSource("engines")
+  void transfer_hotAccountDebitSeesStripedCredits(TransferEngine engine) {
+    Account collector = new Account("Collector");
+    collector.enableStripedCredits();
+    Account payer = new Account("Payer");
+    payer.setBalanceMinorUnits(500);
+
+    engine.transfer(payer, collector, 500);
+    engine.transfer(collector, payer, 200);
+
+    assertThatThrownBy(() -> engine.transfer(collector, payer, 301))
+            .isInstanceOf(InsufficientBalanceException.class);
+    assertThat(collector.getBalanceMinorUnits()).isEqualTo(300);
+    assertThat(payer.getBalanceMinorUnits()).isEqualTo(200);
+  }
+
+  @Test
+  void snapshotBalances_isConsistentWhileTransfersRun() throws InterruptedException {
+    TransferEngine engine = new LockingTransferEngine();
+    List<Account> accounts = Stream.of("A", "B", "C", "D", "E", "F").map(Account::new).toList();
+    for (int i = 0; i < accounts.size(); i++) {
+      accounts.get(i).setHandle(i);
+      accounts.get(i).setBalanceMinorUnits(1_000);
+    }
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicInteger inconsistentSnapshots = new AtomicInteger();
+    AtomicInteger takenSnapshots = new AtomicInteger();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int t = 0; t < 3; t++) {
+      executor.execute(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running.get()) {
+          int from = random.nextInt(accounts.size());
+          int to = (from + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+          try {
+            engine.transfer(accounts.get(from), accounts.get(to), 1 + random.nextInt(100));
+          } catch (InsufficientBalanceException ignored) {
+            // expected under contention
+          }
+        }
+      });
+    }
+    executor.execute(() -> {
+      try {
+        for (int i = 0; i < 20_000; i++) {
+          try {
+            if (LongStream.of(engine.snapshotBalances(accounts)).sum() != 6_000) {
+              inconsistentSnapshots.incrementAndGet();
+            }
+            takenSnapshots.incrementAndGet();
+          } catch (SnapshotUnavailableException ignored) {
+            // the writers kept every stripe busy for the whole retry budget
+          }
+        }
+      } finally {
+        running.set(false);
+      }
+    });
+    executor.shutdown();
+    assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(inconsistentSnapshots).hasValue(0);
+    assertThat(takenSnapshots).hasPositiveValue();
+  }
+
+  @Test
+  void lockTable_stripesByHandleGivenOnInsertOrElseById() {
+    AccountsRepositoryInMemory repository = new AccountsRepositoryInMemory();
+    repository.createAccount(new Account("A"));
+    assertThatThrownBy(() -> repository.createAccount(new Account("A")))
+            .isInstanceOf(DuplicateAccountIdException.class);
+    Account b = new Account("B");
+    repository.createAccount(b);
+
+    assertThat(repository.getAccount("A").getHandle()).isZero();
+    assertThat(b.getHandle()).isEqualTo(1);
+
+    AccountLockTable table = new AccountLockTable(64);
+    assertThat(table.stripeOf(b)).isEqualTo(1);
+    assertThat(IntStream.range(0, 64).mapToObj(i -> table.stripeOf(new Account("Unregistered-" + i)))
+            .collect(Collectors.toSet())).hasSizeGreaterThan(16);
+  }
+
+  @Test
+  void snapshotBalances_givesUpRatherThanWaitingForLockedStripes() throws Exception {
+    LockingTransferEngine engine = new LockingTransferEngine();
+    Account account = new Account("A");
+    account.setHandle(0);
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread holder = new Thread(() -> engine.withAccountsLocked(List.of(account), () -> {
+      locked.countDown();
+      try {
+        return release.await(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }));
+    holder.start();
+    assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+    long started = System.nanoTime();
+    assertThatThrownBy(() -> engine.snapshotBalances(List.of(account)))
+            .isInstanceOf(SnapshotUnavailableException.class);
+    assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(5));
+
+    release.countDown();
+    holder.join();
+    assertThat(engine.snapshotBalances(List.of(account))).containsExactly(0);
+  }
+}
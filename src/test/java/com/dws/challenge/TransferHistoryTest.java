@@ -0,0 +1,150 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.TransferHistoryEntry;
+import com.dws.challenge.domain.TransferHistoryPage;
+import com.dws.challenge.repository.history.SegmentedTransferHistory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferHistoryTest {
+
+  private static final int SEGMENT_ENTRIES = 4;
+
+  @TempDir
+  Path directory;
+
+  private final SteppingClock clock = new SteppingClock();
+
+  @Test
+  void page_walksNewestFirstAcrossMemoryAndDiskSegments() throws Exception {
+    SegmentedTransferHistory history = recordTransfers(10);
+    history.close();
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files.filter(file -> file.toString().endsWith(".seg")).count()).isEqualTo(2);
+    }
+
+    List<Long> ids = new ArrayList<>();
+    Long cursor = null;
+    do {
+      TransferHistoryPage page = history.page("Id-A", Long.MIN_VALUE, Long.MAX_VALUE, cursor, 2);
+      assertThat(page.getTransfers()).hasSizeLessThanOrEqualTo(2);
+      page.getTransfers().forEach(entry -> ids.add(entry.getId()));
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+
+    // Id-A sends every even transfer and receives the odd multiples of three.
+    assertThat(ids).containsExactly(10L, 9L, 8L, 6L, 4L, 3L, 2L);
+    TransferHistoryEntry oldest = history.page("Id-A", Long.MIN_VALUE, Long.MAX_VALUE, 3L, 1)
+            .getTransfers().get(0);
+    assertThat(oldest.getAccountFromId()).isEqualTo("Id-A");
+    assertThat(oldest.getAccountToId()).isEqualTo("Id-B");
+    assertThat(oldest.getAmount()).isEqualByComparingTo("0.02");
+    assertThat(oldest.getTimestamp()).isEqualTo(Instant.ofEpochMilli(2_000));
+  }
+
+  @Test
+  void page_filtersByTimeRange() throws Exception {
+    SegmentedTransferHistory history = recordTransfers(10);
+    history.close();
+
+    TransferHistoryPage page = history.page("Id-A", 3_000, 9_000, null, 10);
+
+    assertThat(page.getTransfers()).extracting(TransferHistoryEntry::getId).containsExactly(8L, 6L, 4L, 3L);
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  void reopen_keepsSpilledSegmentsAndContinuesNumbering() throws Exception {
+    recordTransfers(10).close();
+
+    SegmentedTransferHistory reopened = new SegmentedTransferHistory(directory, SEGMENT_ENTRIES, clock);
+    reopened.record("Id-A", "Id-C", 100);
+
+    // The two transfers still in memory were not spilled, and their numbers are not given out again.
+    List<TransferHistoryEntry> transfers = reopened.page("Id-A", Long.MIN_VALUE, Long.MAX_VALUE, null, 3)
+            .getTransfers();
+    assertThat(transfers).extracting(TransferHistoryEntry::getId).endsWith(8L, 6L);
+    assertThat(transfers.get(0).getId()).isGreaterThan(10L);
+    TransferHistoryEntry latest = reopened.page("Id-C", Long.MIN_VALUE, Long.MAX_VALUE, null, 1).getTransfers().get(0);
+    assertThat(latest.getAccountFromId()).isEqualTo("Id-A");
+    assertThat(latest.getAmount()).isEqualByComparingTo("1.00");
+    reopened.close();
+  }
+
+  @Test
+  void reopen_withoutRecoveredAccountsStartsANewHistory() throws Exception {
+    recordTransfers(10).close();
+
+    SegmentedTransferHistory reopened = new SegmentedTransferHistory(directory, SEGMENT_ENTRIES, clock, false);
+    reopened.record("Id-A", "Id-C", 100);
+
+    assertThat(reopened.page("Id-A", Long.MIN_VALUE, Long.MAX_VALUE, null, 10).getTransfers())
+            .extracting(TransferHistoryEntry::getId).containsExactly(1L);
+    reopened.close();
+  }
+
+  @Test
+  void record_isNumberedInRecordingOrderAcrossBackgroundDrains() throws Exception {
+    SegmentedTransferHistory history = new SegmentedTransferHistory(directory, SEGMENT_ENTRIES, clock);
+    for (int i = 1; i <= 1_000; i++) {
+      history.record("Id-A", "Id-B", i);
+    }
+    history.close();
+
+    List<TransferHistoryEntry> newest = history.page("Id-A", Long.MIN_VALUE, Long.MAX_VALUE, null, 1_000)
+            .getTransfers();
+    assertThat(newest).hasSize(1_000);
+    for (TransferHistoryEntry entry : newest) {
+      assertThat(entry.getAmount().movePointRight(2).longValueExact()).isEqualTo(entry.getId());
+    }
+  }
+
+  private SegmentedTransferHistory recordTransfers(int count) {
+    SegmentedTransferHistory history = new SegmentedTransferHistory(directory, SEGMENT_ENTRIES, clock);
+    for (int i = 1; i <= count; i++) {
+      if (i % 2 == 0) {
+        history.record("Id-A", "Id-B", i);
+      } else if (i % 3 == 0) {
+        history.record("Id-B", "Id-A", i);
+      } else {
+        history.record("Id-B", "Id-C", i);
+      }
+    }
+    return history;
+  }
+
+  /**
+   * Advances one second per reading, so transfer n happens at n seconds.
+   */
+  private static final class SteppingClock extends Clock {
+    private long millis;
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      millis += 1_000;
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.dws.challenge;
+
+import com.dws.challenge.domain.Account;
+import com.dws.challenge.domain.HotAccount;
+import com.dws.challenge.domain.LatencySummary;
+import com.dws.challenge.domain.TransferMetricsSnapshot;
+import com.dws.challenge.domain.TransferOutcome;
+import com.dws.challenge.metrics.HotAccountTracker;
+import com.dws.challenge.metrics.LatencyHistogram;
+import com.dws.challenge.metrics.TransferMetrics;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferMetricsTest {
+
+  @Test
+  void histogramReportsBucketUpperBounds() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 99; i++) {
+      histogram.record(100);
+    }
+    histogram.record(5_000);
+
+    LatencySummary summary = histogram.summary();
+
+    assertThat(summary.getCount()).isEqualTo(100);
+    assertThat(summary.getP50Nanos()).isEqualTo(128);
+    assertThat(summary.getP99Nanos()).isEqualTo(128);
+    assertThat(summary.getP999Nanos()).isEqualTo(8192);
+    assertThat(summary.getCountsByUpperBoundNanos()).containsEntry(128L, 99L).containsEntry(8192L, 1L);
+  }
+
+  @Test
+  void hotAccountTrackerKeepsHeavyHittersWhenSlotsCollide() {
+    HotAccountTracker tracker = new HotAccountTracker(2);
+    for (int i = 0; i < 100; i++) {
+      tracker.record("hot", 1_000);
+      tracker.record("cold-" + (i % 7), 10);
+    }
+
+    assertThat(tracker.top(1)).extracting(HotAccount::getAccountId).containsExactly("hot");
+  }
+
+  @Test
+  void snapshotCountsOutcomesAndLockTimings() {
+    TransferMetrics metrics = new TransferMetrics();
+    Account first = new Account("A");
+    Account second = new Account("B");
+
+    metrics.recordTransfer(TransferOutcome.COMPLETED, 1_000);
+    metrics.recordTransfer(TransferOutcome.INSUFFICIENT_BALANCE, 500);
+    metrics.recordLocks(first, 10, second, 50_000, 200);
+
+    TransferMetricsSnapshot snapshot = metrics.snapshot();
+
+    assertThat(snapshot.getOutcomes()).containsEntry(TransferOutcome.COMPLETED, 1L)
+      .containsEntry(TransferOutcome.INSUFFICIENT_BALANCE, 1L)
+      .containsEntry(TransferOutcome.ACCOUNT_NOT_FOUND, 0L);
+    assertThat(snapshot.getLockWait().getCount()).isEqualTo(1);
+    assertThat(snapshot.getLockHold().getP50Nanos()).isEqualTo(256);
+    assertThat(snapshot.getHottestAccounts()).extracting(HotAccount::getAccountId).containsExactly("B", "A");
+  }
+}